@@ -2,10 +2,7 @@ package son.arca;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.cache.guava.GuavaCacheManager;
-import org.springframework.context.annotation.Bean;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
@@ -24,11 +21,4 @@ public class Application {
     public static void main(String[] args) throws Exception {
         SpringApplication.run(Application.class, args);
     }
-
-    @Bean
-    public CacheManager cacheManager() {
-        //ConcurrentMapCacheManager  good for testing and PoCs only
-        CacheManager cacheManager = new GuavaCacheManager("arca-cache");
-        return cacheManager;
-    }
 }
@@ -1,8 +1,18 @@
 package son.arca.api;
 
+import org.springframework.data.domain.Sort;
+import son.arca.model.BatchResult;
 import son.arca.model.Cause;
+import son.arca.model.CauseChanges;
+import son.arca.model.CauseView;
+import son.arca.model.CauseOccurrence;
+import son.arca.model.ParetoItem;
+import son.arca.model.TopCauses;
 
+import java.io.IOException;
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 /**
  * ArcaService application programming interface
@@ -11,15 +21,148 @@ import java.util.Collection;
  */
 public interface ArcaService {
 
-    Collection<Cause> findAll();
+    /**
+     * Returns all causes in id order. The causes are immutable views, which
+     * may be shared with other callers.
+     */
+    Collection<CauseView> findAll();
+
+    /**
+     * Returns the first <code>top</code> causes in the given order among
+     * those with the given name and a frequency of at least
+     * <code>minFrequency</code>. Filtering, sorting and limiting are done by
+     * the database.
+     *
+     * @param name The name of the causes, or null for any name.
+     * @param minFrequency The lowest frequency, or null for any frequency.
+     * @param sort The order of the causes.
+     * @param top The number of causes, or zero or less for all of them.
+     */
+    Collection<Cause> findAll(String name, Long minFrequency, Sort sort, int top);
+
+    /**
+     * Like findAll(name, minFrequency, sort, top), but reads and returns only
+     * the given fields of the causes, for clients that need few of them.
+     *
+     * @param fields The Cause properties to return: id, name, frequency,
+     *        total, description or version.
+     * @return The value by property name of each cause.
+     * @throws IllegalArgumentException if there are no fields or one is not
+     *         a Cause property.
+     */
+    Collection<Map<String, Object>> findFields(List<String> fields, String name,
+                                               Long minFrequency, Sort sort, int top);
+
+    /**
+     * Returns at most <code>size</code> causes with an id greater than
+     * <code>afterId</code>, in ascending id order.
+     */
+    Collection<Cause> findAllAfter(Long afterId, int size);
+
+    /**
+     * Hands every cause, in ascending id order, to the handler as it is read
+     * from the database without materializing the whole table.
+     */
+    void streamAll(CauseHandler handler) throws IOException;
+
+    /**
+     * Returns the Pareto series of the <code>top</code> most frequent causes,
+     * or of all causes if <code>top</code> is zero or less.
+     */
+    List<ParetoItem> findPareto(int top);
 
     Cause findOne(Long id);
 
     Cause create(Cause cause);
 
+    /**
+     * Updates a cause. If the cause carries a version, it must be the stored
+     * version.
+     *
+     * @throws javax.persistence.NoResultException if the cause does not exist.
+     * @throws org.springframework.dao.OptimisticLockingFailureException if
+     *         the version is not the stored version or the cause is updated
+     *         concurrently.
+     */
     Cause update(Cause cause);
 
     void delete(Long id);
 
+    /**
+     * Creates all causes in one transaction and reports the outcome of each.
+     */
+    List<BatchResult> createAll(List<Cause> causes);
+
+    /**
+     * Updates all causes in one transaction and reports the outcome of each.
+     */
+    List<BatchResult> updateAll(List<Cause> causes);
+
+    /**
+     * Deletes all causes in one transaction and reports the outcome of each.
+     */
+    List<BatchResult> deleteAll(List<Long> ids);
+
+    /**
+     * Adds each delta to the frequency of the causes with that name, as
+     * batched updates in one transaction.
+     *
+     * @param deltas The frequency delta per cause name.
+     * @return The updated causes. Names without a cause are not included.
+     */
+    Collection<Cause> addFrequencies(Map<String, Long> deltas);
+
+    /**
+     * Adds to the frequency of a cause without waiting for the database.
+     * Increments are accumulated in memory and written in batches every
+     * <code>arca.increment.flush-millis</code>; until then findOne does not
+     * see them.
+     */
+    void increment(Long id, long by);
+
+    /**
+     * Returns the occurrences of a cause per step of a time range, as counted
+     * from the growth of its frequency.
+     *
+     * @param id The cause id.
+     * @param from The start of the range in epoch milliseconds.
+     * @param to The end of the range in epoch milliseconds, exclusive.
+     * @param stepMillis The width of each point; a whole number of minutes.
+     * @return One point per step, or null if the cause does not exist.
+     * @throws IllegalArgumentException if the step is not a whole number of
+     *         minutes or the range has too many points.
+     */
+    List<CauseOccurrence> findSeries(Long id, long from, long to, long stepMillis);
+
+    /**
+     * Returns the <code>k</code> causes that occurred most in the last
+     * <code>windowMillis</code> milliseconds, estimated in fixed memory. Each
+     * estimate is at least the exact count and exceeds it by at most its
+     * error.
+     *
+     * @throws IllegalArgumentException if k or the window are out of range.
+     */
+    TopCauses findTop(int k, long windowMillis);
+
+    /**
+     * Returns the causes created or updated and the ids of the causes deleted
+     * since a high-water mark returned by an earlier call. The cost scales
+     * with the number of changes, not with the number of causes.
+     *
+     * @param since The high-water mark of the previous call, or null for all
+     *        causes and no deletions.
+     * @return The changes and the high-water mark to pass to the next call.
+     */
+    CauseChanges findChanges(Long since);
+
+    /**
+     * Returns the version of the whole collection of causes. It changes with
+     * every committed create, update and delete, and is cheap to read, so a
+     * client can tell whether its copy of the causes is still current without
+     * reading them. The causes read after the version contain at least the
+     * changes it stands for.
+     */
+    String getCollectionVersion();
+
     void evictCache();
 }
@@ -0,0 +1,14 @@
+package son.arca.api;
+
+import son.arca.model.Cause;
+
+import java.io.IOException;
+
+/**
+ * Callback invoked for each Cause while a result set is streamed.
+ * @author Harrison Mfula
+ */
+public interface CauseHandler {
+
+    void handle(Cause cause) throws IOException;
+}
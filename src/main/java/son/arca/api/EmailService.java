@@ -2,7 +2,8 @@ package son.arca.api;
 
 import son.arca.model.Cause;
 
-import java.util.concurrent.Future;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * EmailService application programming interface
@@ -13,8 +14,13 @@ public interface EmailService {
 
     Boolean send(Cause cause);
 
+    /**
+     * Sends one email to the recipient listing all the given causes.
+     */
+    Boolean sendDigest(String recipient, Collection<Cause> causes);
+
     void sendAsync(Cause cause);
 
-    Future<Boolean> sendAsyncWithResult(Cause cause);
+    CompletableFuture<Boolean> sendAsyncWithResult(Cause cause);
 
 }
@@ -0,0 +1,44 @@
+package son.arca.api;
+
+import son.arca.model.IngestionReport;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Ingests network fault and KPI event files into the cause frequencies.
+ *
+ * @author Harrison Mfula
+ */
+public interface IngestionService {
+
+    enum Format {
+        CSV, NDJSON;
+
+        /**
+         * @return The format of the file by its extension: .csv is CSV,
+         *         .ndjson, .jsonl and .json are NDJSON.
+         */
+        public static Format of(Path file) {
+            String name = file.getFileName().toString().toLowerCase();
+            if (name.endsWith(".csv")) {
+                return CSV;
+            }
+            if (name.endsWith(".ndjson") || name.endsWith(".jsonl") || name.endsWith(".json")) {
+                return NDJSON;
+            }
+            throw new IllegalArgumentException("Unknown event file format: " + name);
+        }
+    }
+
+    /**
+     * Counts the events of the file per cause name and adds the counts to the
+     * frequencies of the causes.
+     *
+     * @param file The event file.
+     * @param format The format of the file.
+     * @return The ingestion report.
+     * @throws IOException Thrown if the file cannot be read.
+     */
+    IngestionReport ingest(Path file, Format format) throws IOException;
+}
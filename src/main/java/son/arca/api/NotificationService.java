@@ -0,0 +1,24 @@
+package son.arca.api;
+
+import son.arca.model.Cause;
+
+/**
+ * NotificationService application programming interface
+ * @author Harrison Mfula
+ */
+public interface NotificationService {
+
+    /**
+     * Queues a Cause notification for the recipient. Pending notifications
+     * are merged and sent as one digest per recipient and batch.
+     *
+     * @param recipient The recipient, or null for the default recipient.
+     * @param cause The Cause to notify about.
+     * @return false if the notification queue is full or the service is
+     *         stopping.
+     * @throws IllegalArgumentException if the recipient is not a valid
+     *         address or not one of the allowed recipients.
+     */
+    boolean enqueue(String recipient, Cause cause);
+
+}
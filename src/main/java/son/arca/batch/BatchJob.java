@@ -0,0 +1,199 @@
+package son.arca.batch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.scheduling.Trigger;
+import org.springframework.scheduling.TriggerContext;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A scheduled job. Each firing hands the work to an Executor according to
+ * the job's OverlapPolicy, so a long run neither blocks the scheduler thread
+ * nor delays the other jobs. The job records, in milliseconds:
+ * <ul>
+ * <li>the duration of its runs;</li>
+ * <li>the lag between the time a firing was due and the time it fired;</li>
+ * <li>the firings missed because of the overlap policy.</li>
+ * </ul>
+ *
+ * @author Harrison Mfula
+ */
+public class BatchJob implements Runnable {
+
+    private Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final String name;
+    private final Trigger trigger;
+    private final OverlapPolicy overlapPolicy;
+    private final Executor executor;
+    private final Runnable work;
+
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicBoolean queued = new AtomicBoolean();
+
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong missed = new AtomicLong();
+    private final AtomicLong totalDuration = new AtomicLong();
+    private final AtomicLong maxDuration = new AtomicLong();
+    private final AtomicLong maxLag = new AtomicLong();
+    private volatile long lastDuration;
+    private volatile long lastLag;
+    private volatile long scheduledTime;
+
+    /**
+     * @param name The job name used in the logs and metrics.
+     * @param trigger When the job fires.
+     * @param overlapPolicy What a firing does while a run is in progress.
+     * @param executor Runs the work. A SyncTaskExecutor runs it on the
+     *                 scheduler thread, which is what a fixed-delay job needs
+     *                 for its delay to start at the end of the run.
+     * @param work The work of a run.
+     */
+    public BatchJob(String name, Trigger trigger, OverlapPolicy overlapPolicy,
+                    Executor executor, Runnable work) {
+        this.name = name;
+        this.trigger = trigger;
+        this.overlapPolicy = overlapPolicy;
+        this.executor = executor;
+        this.work = work;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return The Trigger to schedule this job with. It remembers when each
+     *         firing is due so that the lag can be measured.
+     */
+    public Trigger getTrigger() {
+        return new Trigger() {
+            @Override
+            public Date nextExecutionTime(TriggerContext triggerContext) {
+                Date next = trigger.nextExecutionTime(triggerContext);
+                if (next != null) {
+                    scheduledTime = next.getTime();
+                }
+                return next;
+            }
+        };
+    }
+
+    /**
+     * Fires the job.
+     */
+    @Override
+    public void run() {
+        if (scheduledTime > 0) {
+            long lag = Math.max(0, System.currentTimeMillis() - scheduledTime);
+            lastLag = lag;
+            updateMax(maxLag, lag);
+        }
+
+        switch (overlapPolicy) {
+            case CONCURRENT:
+                running.incrementAndGet();
+                execute();
+                break;
+            case QUEUE:
+                if (running.compareAndSet(0, 1)) {
+                    execute();
+                } else if (!queued.compareAndSet(false, true)) {
+                    missed.incrementAndGet();
+                }
+                break;
+            default:
+                if (running.compareAndSet(0, 1)) {
+                    execute();
+                } else {
+                    missed.incrementAndGet();
+                    logger.info("Skipped {}; the previous run is still in progress.", name);
+                }
+        }
+    }
+
+    public Collection<Metric<?>> metrics() {
+        String prefix = "batch.job." + name + ".";
+        long completed = runs.get();
+        Collection<Metric<?>> metrics = new ArrayList<Metric<?>>();
+        metrics.add(new Metric<Long>(prefix + "runs", completed));
+        metrics.add(new Metric<Long>(prefix + "failed", failed.get()));
+        metrics.add(new Metric<Long>(prefix + "missed", missed.get()));
+        metrics.add(new Metric<Integer>(prefix + "running", running.get()));
+        metrics.add(new Metric<Long>(prefix + "duration.last", lastDuration));
+        metrics.add(new Metric<Long>(prefix + "duration.max", maxDuration.get()));
+        metrics.add(new Metric<Double>(prefix + "duration.mean",
+                completed == 0 ? 0.0 : (double) totalDuration.get() / completed));
+        metrics.add(new Metric<Long>(prefix + "lag.last", lastLag));
+        metrics.add(new Metric<Long>(prefix + "lag.max", maxLag.get()));
+        return metrics;
+    }
+
+    private void execute() {
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    runWork();
+                }
+            });
+        } catch (RuntimeException e) {
+            running.decrementAndGet();
+            missed.incrementAndGet();
+            logger.error("Could not start " + name, e);
+        }
+    }
+
+    /**
+     * Runs the work, and with the QUEUE policy the firings queued while it
+     * was in progress. The run is counted out even if the work throws an
+     * Error.
+     */
+    private void runWork() {
+        try {
+            do {
+                runOnce();
+            } while (overlapPolicy == OverlapPolicy.QUEUE && queued.getAndSet(false));
+        } finally {
+            running.decrementAndGet();
+        }
+        // a firing queued after the last check found the run still in progress
+        if (overlapPolicy == OverlapPolicy.QUEUE && queued.get()
+                && running.compareAndSet(0, 1)) {
+            queued.set(false);
+            execute();
+        }
+    }
+
+    private void runOnce() {
+        long start = System.currentTimeMillis();
+        try {
+            work.run();
+        } catch (RuntimeException e) {
+            failed.incrementAndGet();
+            logger.error("Run of " + name + " failed", e);
+        } finally {
+            long duration = System.currentTimeMillis() - start;
+            lastDuration = duration;
+            totalDuration.addAndGet(duration);
+            updateMax(maxDuration, duration);
+            runs.incrementAndGet();
+        }
+    }
+
+    private static void updateMax(AtomicLong max, long value) {
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+}
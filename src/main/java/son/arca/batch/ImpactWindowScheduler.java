@@ -0,0 +1,279 @@
+package son.arca.batch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs SonActions in parallel while respecting the impact window of every
+ * cell:
+ * <ul>
+ * <li>an action runs as soon as none of its cells is being changed by
+ * another action or is still within the impact window of an earlier
+ * one;</li>
+ * <li>otherwise it waits, and reserves all its cells: no waiting action of
+ * lower priority may take them, so an action on many cells cannot be
+ * starved by actions on few of them;</li>
+ * <li>whenever an action is submitted or an impact window ends, the waiting
+ * actions are reconsidered highest priority first, then in submission
+ * order.</li>
+ * </ul>
+ * Actions on cells that do not overlap therefore run concurrently on the
+ * executor instead of one after the other.
+ *
+ * @author Harrison Mfula
+ */
+public class ImpactWindowScheduler {
+
+    private Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final Executor executor;
+    private final ScheduledExecutorService timer;
+
+    private final Object lock = new Object();
+    private final PriorityQueue<Pending> waiting = new PriorityQueue<Pending>();
+    private final Map<String, Cell> cells = new HashMap<String, Cell>();
+    private long sequence;
+    private int running;
+
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    /**
+     * @param executor Runs the actions.
+     * @param timer Ends the impact windows.
+     */
+    public ImpactWindowScheduler(Executor executor, ScheduledExecutorService timer) {
+        this.executor = executor;
+        this.timer = timer;
+    }
+
+    /**
+     * @param action The action to run.
+     * @return A future completed when the action has run, exceptionally if
+     *         it failed or could not be started.
+     */
+    public CompletableFuture<Void> submit(SonAction action) {
+        List<Pending> started;
+        Pending pending;
+        synchronized (lock) {
+            pending = new Pending(action, sequence++);
+            waiting.add(pending);
+            started = dispatch();
+        }
+        start(started);
+        return pending.future;
+    }
+
+    public int getRunning() {
+        synchronized (lock) {
+            return running;
+        }
+    }
+
+    public int getWaiting() {
+        synchronized (lock) {
+            return waiting.size();
+        }
+    }
+
+    public long getCompleted() {
+        return completed.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    /**
+     * Claims the cells of every waiting action that can run, in priority
+     * order. The cells of an action that cannot run are reserved for it
+     * until the end of the pass. Must hold the lock.
+     *
+     * @return The actions to start once the lock is released.
+     */
+    private List<Pending> dispatch() {
+        List<Pending> started = new ArrayList<Pending>();
+        Set<String> reserved = new HashSet<String>();
+        List<Pending> blocked = new ArrayList<Pending>();
+        long now = System.nanoTime();
+        while (!waiting.isEmpty()) {
+            Pending pending = waiting.poll();
+            if (isBlocked(pending.action, reserved, now)) {
+                reserved.addAll(pending.action.getCells());
+                blocked.add(pending);
+                continue;
+            }
+            for (String id : pending.action.getCells()) {
+                cell(id).running = true;
+            }
+            running++;
+            started.add(pending);
+        }
+        waiting.addAll(blocked);
+        return started;
+    }
+
+    private boolean isBlocked(SonAction action, Set<String> reserved, long now) {
+        for (String id : action.getCells()) {
+            Cell cell = cells.get(id);
+            if (reserved.contains(id)
+                    || cell != null && (cell.running || cell.busyUntil - now > 0)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void start(List<Pending> started) {
+        for (final Pending pending : started) {
+            try {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        execute(pending);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                release(pending.action, false);
+                failed.incrementAndGet();
+                pending.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    private void execute(Pending pending) {
+        try {
+            pending.action.getWork().run();
+            completed.incrementAndGet();
+            pending.future.complete(null);
+        } catch (RuntimeException e) {
+            failed.incrementAndGet();
+            logger.error("SON action " + pending.action.getName() + " failed", e);
+            pending.future.completeExceptionally(e);
+        } finally {
+            // a failed action may have changed part of its cells, so it gets
+            // the impact window too
+            release(pending.action, true);
+        }
+    }
+
+    /**
+     * Frees the cells of a finished action and, when the impact window ends,
+     * reconsiders the waiting actions.
+     */
+    private void release(SonAction action, boolean ran) {
+        long impactNanos = ran ? TimeUnit.MILLISECONDS.toNanos(action.getImpactMillis()) : 0;
+        List<Cell> released = new ArrayList<Cell>(action.getCells().size());
+        synchronized (lock) {
+            long busyUntil = System.nanoTime() + impactNanos;
+            for (String id : action.getCells()) {
+                Cell cell = cells.get(id);
+                cell.running = false;
+                cell.busyUntil = busyUntil;
+                released.add(cell);
+            }
+            running--;
+        }
+        if (impactNanos > 0) {
+            scheduleWake(released, impactNanos);
+        } else {
+            wake(released);
+        }
+    }
+
+    private void scheduleWake(final List<Cell> released, long delayNanos) {
+        timer.schedule(new Runnable() {
+            @Override
+            public void run() {
+                wake(released);
+            }
+        }, delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void wake(List<Cell> released) {
+        List<Pending> started;
+        List<Cell> early = new ArrayList<Cell>();
+        long remaining = 0;
+        synchronized (lock) {
+            long now = System.nanoTime();
+            for (Cell cell : released) {
+                if (cell.running) {
+                    // taken again; its own release wakes the waiters
+                    continue;
+                }
+                long left = cell.busyUntil - now;
+                if (left > 0) {
+                    early.add(cell);
+                    remaining = Math.max(remaining, left);
+                    continue;
+                }
+                if (cells.get(cell.id) == cell) {
+                    cells.remove(cell.id);
+                }
+            }
+            started = dispatch();
+        }
+        if (!early.isEmpty()) {
+            scheduleWake(early, remaining);
+        }
+        start(started);
+    }
+
+    private Cell cell(String id) {
+        Cell cell = cells.get(id);
+        if (cell == null) {
+            cell = new Cell(id);
+            cells.put(id, cell);
+        }
+        return cell;
+    }
+
+    /**
+     * The state of a cell with a running action or an impact window. Idle
+     * cells are not kept.
+     */
+    private static class Cell {
+
+        private final String id;
+        private boolean running;
+        private long busyUntil;
+
+        Cell(String id) {
+            this.id = id;
+        }
+    }
+
+    private static class Pending implements Comparable<Pending> {
+
+        private final SonAction action;
+        private final long sequence;
+        private final CompletableFuture<Void> future = new CompletableFuture<Void>();
+
+        Pending(SonAction action, long sequence) {
+            this.action = action;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Pending other) {
+            if (action.getPriority() != other.action.getPriority()) {
+                return action.getPriority() > other.action.getPriority() ? -1 : 1;
+            }
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package son.arca.batch;
+
+/**
+ * What a BatchJob does when it fires while a previous run is still going.
+ *
+ * @author Harrison Mfula
+ */
+public enum OverlapPolicy {
+
+    /**
+     * The firing is dropped and counted as missed.
+     */
+    SKIP,
+
+    /**
+     * One run is queued behind the current one; further firings while it is
+     * queued are merged into it and counted as missed.
+     */
+    QUEUE,
+
+    /**
+     * The firing runs alongside the current run.
+     */
+    CONCURRENT
+}
@@ -0,0 +1,61 @@
+package son.arca.batch;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * An optimisation action of a SON function on a cell or a cluster of cells.
+ * Once the action completes, its cells may not be touched again by any
+ * action until the impact window has passed, so that the network has time
+ * to show the effect of the change.
+ *
+ * @author Harrison Mfula
+ */
+public class SonAction {
+
+    private final String name;
+    private final Set<String> cells;
+    private final int priority;
+    private final long impactMillis;
+    private final Runnable work;
+
+    /**
+     * @param name The name used in the logs.
+     * @param cells The ids of the cells the action changes.
+     * @param priority Higher priorities run first when cells are contended.
+     * @param impactMillis The impact window after the action completes.
+     * @param work The change itself.
+     */
+    public SonAction(String name, Set<String> cells, int priority, long impactMillis,
+                     Runnable work) {
+        if (cells == null || cells.isEmpty()) {
+            throw new IllegalArgumentException("A SON action needs at least one cell.");
+        }
+        this.name = name;
+        this.cells = Collections.unmodifiableSet(new LinkedHashSet<String>(cells));
+        this.priority = priority;
+        this.impactMillis = impactMillis;
+        this.work = work;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Set<String> getCells() {
+        return cells;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    public long getImpactMillis() {
+        return impactMillis;
+    }
+
+    public Runnable getWork() {
+        return work;
+    }
+}
@@ -0,0 +1,111 @@
+package son.arca.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.interceptor.AsyncUncaughtExceptionHandler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.CounterService;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.AsyncConfigurer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Configures the bounded executor running the <code>@Async</code> email work
+ * instead of the default executor, which starts a new thread per call.
+ *
+ * @author Harrison Mfula
+ */
+@Configuration
+public class AsyncConfiguration implements AsyncConfigurer {
+
+    public enum RejectionPolicy {
+        ABORT, CALLER_RUNS, DISCARD, DISCARD_OLDEST
+    }
+
+    private Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    @Autowired
+    private CounterService counterService;
+
+    @Value("${arca.async.core-pool-size:4}")
+    private int corePoolSize;
+
+    @Value("${arca.async.max-pool-size:16}")
+    private int maxPoolSize;
+
+    @Value("${arca.async.queue-capacity:500}")
+    private int queueCapacity;
+
+    @Value("${arca.async.keep-alive-seconds:60}")
+    private int keepAliveSeconds;
+
+    @Value("${arca.async.rejection-policy:ABORT}")
+    private RejectionPolicy rejectionPolicy;
+
+    @Bean
+    public ExecutorPublicMetrics.CountingRejectedExecutionHandler emailRejectedExecutionHandler() {
+        return new ExecutorPublicMetrics.CountingRejectedExecutionHandler(
+                toHandler(rejectionPolicy));
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor emailExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("arca-email-");
+        executor.setCorePoolSize(corePoolSize);
+        executor.setMaxPoolSize(maxPoolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setKeepAliveSeconds(keepAliveSeconds);
+        executor.setRejectedExecutionHandler(emailRejectedExecutionHandler());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    @Bean
+    public PublicMetrics emailExecutorMetrics() {
+        return new ExecutorPublicMetrics("email",
+                emailExecutor().getThreadPoolExecutor(),
+                emailRejectedExecutionHandler());
+    }
+
+    @Override
+    public Executor getAsyncExecutor() {
+        return emailExecutor();
+    }
+
+    @Override
+    public AsyncUncaughtExceptionHandler getAsyncUncaughtExceptionHandler() {
+        return new AsyncUncaughtExceptionHandler() {
+            @Override
+            public void handleUncaughtException(Throwable ex, Method method,
+                                                Object... params) {
+                logger.error("Uncaught exception in asynchronous method "
+                        + method.getDeclaringClass().getSimpleName() + "."
+                        + method.getName(), ex);
+                counterService.increment("async.uncaught");
+            }
+        };
+    }
+
+    private RejectedExecutionHandler toHandler(RejectionPolicy policy) {
+        switch (policy) {
+            case CALLER_RUNS:
+                return new ThreadPoolExecutor.CallerRunsPolicy();
+            case DISCARD:
+                return new ThreadPoolExecutor.DiscardPolicy();
+            case DISCARD_OLDEST:
+                return new ThreadPoolExecutor.DiscardOldestPolicy();
+            default:
+                return new ThreadPoolExecutor.AbortPolicy();
+        }
+    }
+}
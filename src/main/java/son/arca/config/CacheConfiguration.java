@@ -0,0 +1,126 @@
+package son.arca.config;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.Weigher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.guava.GuavaCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import son.arca.model.CauseView;
+import son.arca.util.ArcaConstants;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Configures the Guava caches from the <code>arca.cache.*</code> properties
+ * and publishes their statistics on the actuator <code>/metrics</code>
+ * endpoint as <code>cache.{name}.*</code>.
+ *
+ * @author Harrison Mfula
+ */
+@Configuration
+@EnableConfigurationProperties(CacheProperties.class)
+public class CacheConfiguration {
+
+    private static final String RECORD_STATS = "recordStats";
+
+    private Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    @Autowired
+    private CacheProperties cacheProperties;
+
+    @Bean
+    public CacheManager cacheManager() {
+        GuavaCacheManager cacheManager = new GuavaCacheManager() {
+            @Override
+            protected com.google.common.cache.Cache<Object, Object> createNativeGuavaCache(
+                    String name) {
+                return cacheBuilder(name).build();
+            }
+        };
+
+        Set<String> cacheNames = new LinkedHashSet<String>();
+        cacheNames.add(ArcaConstants.ARCA_CACHE_NAME);
+        cacheNames.addAll(cacheProperties.getSpecs().keySet());
+        cacheManager.setCacheNames(cacheNames);
+        return cacheManager;
+    }
+
+    @Bean
+    public PublicMetrics cacheStatisticsMetrics(final CacheManager cacheManager) {
+        return new PublicMetrics() {
+            @Override
+            public Collection<Metric<?>> metrics() {
+                Collection<Metric<?>> metrics = new ArrayList<Metric<?>>();
+                for (String name : cacheManager.getCacheNames()) {
+                    Cache cache = cacheManager.getCache(name);
+                    if (!(cache.getNativeCache() instanceof com.google.common.cache.Cache)) {
+                        continue;
+                    }
+                    CacheStats stats = ((com.google.common.cache.Cache<?, ?>) cache
+                            .getNativeCache()).stats();
+                    String prefix = "cache." + name + ".";
+                    metrics.add(new Metric<Long>(prefix + "hit.count", stats.hitCount()));
+                    metrics.add(new Metric<Long>(prefix + "miss.count", stats.missCount()));
+                    metrics.add(new Metric<Long>(prefix + "eviction.count",
+                            stats.evictionCount()));
+                    metrics.add(new Metric<Long>(prefix + "load.count", stats.loadCount()));
+                    metrics.add(new Metric<Double>(prefix + "load.average-millis",
+                            stats.averageLoadPenalty() / TimeUnit.MILLISECONDS.toNanos(1)));
+                }
+                return metrics;
+            }
+        };
+    }
+
+    /**
+     * Builds the CacheBuilder of the named cache from its specification.
+     * Statistics are always recorded. A size based weigher is installed when
+     * the specification bounds the cache by <code>maximumWeight</code>.
+     */
+    private CacheBuilder<Object, Object> cacheBuilder(String name) {
+        String spec = cacheProperties.getSpec(name);
+        if (!spec.contains(RECORD_STATS)) {
+            spec = spec.isEmpty() ? RECORD_STATS : spec + "," + RECORD_STATS;
+        }
+        logger.info("Cache {} specification: {}", name, spec);
+
+        CacheBuilder<Object, Object> builder = CacheBuilder.from(spec);
+        if (spec.contains("maximumWeight")) {
+            builder.weigher(new Weigher<Object, Object>() {
+                @Override
+                public int weigh(Object key, Object value) {
+                    return estimateSize(value);
+                }
+            });
+        }
+        return builder;
+    }
+
+    /**
+     * Approximates the retained size of a cached value in bytes.
+     */
+    private static int estimateSize(Object value) {
+        if (value instanceof CauseView) {
+            CauseView cause = (CauseView) value;
+            return 120 + length(cause.getName()) * 2 + length(cause.getDescription()) * 2;
+        }
+        return 64;
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+}
@@ -0,0 +1,47 @@
+package son.arca.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Guava CacheBuilder specifications of the application caches, bound from
+ * the <code>arca.cache.*</code> properties.
+ *
+ * @author Harrison Mfula
+ */
+@ConfigurationProperties(prefix = "arca.cache")
+public class CacheProperties {
+
+    /**
+     * The specification of caches without an entry in <code>specs</code>.
+     */
+    private String defaultSpec = "maximumSize=10000";
+
+    /**
+     * The specification of each cache, keyed by cache name.
+     */
+    private Map<String, String> specs = new HashMap<String, String>();
+
+    public String getDefaultSpec() {
+        return defaultSpec;
+    }
+
+    public void setDefaultSpec(String defaultSpec) {
+        this.defaultSpec = defaultSpec;
+    }
+
+    public Map<String, String> getSpecs() {
+        return specs;
+    }
+
+    public void setSpecs(Map<String, String> specs) {
+        this.specs = specs;
+    }
+
+    public String getSpec(String cacheName) {
+        String spec = specs.get(cacheName);
+        return spec != null ? spec : defaultSpec;
+    }
+}
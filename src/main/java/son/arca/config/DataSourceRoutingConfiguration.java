@@ -0,0 +1,96 @@
+package son.arca.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceBuilder;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import son.arca.datasource.ReplicaRoutingDataSource;
+import son.arca.datasource.ReplicaSelector;
+import son.arca.repository.CauseChangeRepository;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replaces the auto-configured DataSource when
+ * <code>arca.datasource.routing.enabled</code> is true. Read-only
+ * transactions, such as those of the ArcaServiceBean read methods, then run
+ * on the replicas of <code>arca.datasource.routing.replicas</code> and all
+ * other work on the primary configured by <code>spring.datasource.*</code>.
+ * The schema and data scripts only run on the primary.
+ *
+ * @author Harrison Mfula
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "arca.datasource.routing", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(DataSourceRoutingProperties.class)
+public class DataSourceRoutingConfiguration {
+
+    @Autowired
+    private DataSourceProperties dataSourceProperties;
+
+    @Autowired
+    private DataSourceRoutingProperties routingProperties;
+
+    private final List<org.apache.tomcat.jdbc.pool.DataSource> pools =
+            new ArrayList<org.apache.tomcat.jdbc.pool.DataSource>();
+
+    @Bean
+    public ReplicaSelector replicaSelector() {
+        DataSource primary = pool(dataSourceProperties.getUrl(),
+                dataSourceProperties.getUsername(), dataSourceProperties.getPassword());
+        String username = routingProperties.getUsername() != null
+                ? routingProperties.getUsername() : dataSourceProperties.getUsername();
+        String password = routingProperties.getPassword() != null
+                ? routingProperties.getPassword() : dataSourceProperties.getPassword();
+        Map<String, DataSource> replicas = new LinkedHashMap<String, DataSource>();
+        for (int i = 0; i < routingProperties.getReplicas().size(); i++) {
+            replicas.put("replica-" + i,
+                    pool(routingProperties.getReplicas().get(i), username, password));
+        }
+        return new ReplicaSelector(primary, replicas, CauseChangeRepository.CHANGE_COUNT_QUERY,
+                routingProperties.getHeartbeatMillis(), routingProperties.getMaxLagMillis());
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource() {
+        ReplicaRoutingDataSource routingDataSource = new ReplicaRoutingDataSource(
+                replicaSelector());
+        routingDataSource.setTargetDataSources(
+                new HashMap<Object, Object>(replicaSelector().getDataSources()));
+        routingDataSource.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    @PreDestroy
+    public void close() {
+        for (org.apache.tomcat.jdbc.pool.DataSource pool : pools) {
+            pool.close();
+        }
+    }
+
+    private DataSource pool(String url, String username, String password) {
+        org.apache.tomcat.jdbc.pool.DataSource pool =
+                (org.apache.tomcat.jdbc.pool.DataSource) DataSourceBuilder
+                        .create(dataSourceProperties.getClassLoader())
+                        .type(org.apache.tomcat.jdbc.pool.DataSource.class)
+                        .driverClassName(dataSourceProperties.getDriverClassName())
+                        .url(url)
+                        .username(username)
+                        .password(password)
+                        .build();
+        pools.add(pool);
+        return pool;
+    }
+}
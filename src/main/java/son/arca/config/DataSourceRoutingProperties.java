@@ -0,0 +1,95 @@
+package son.arca.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read replicas of the database, bound from the
+ * <code>arca.datasource.routing.*</code> properties.
+ *
+ * @author Harrison Mfula
+ */
+@ConfigurationProperties(prefix = "arca.datasource.routing")
+public class DataSourceRoutingProperties {
+
+    /**
+     * Whether read-only transactions are sent to the replicas.
+     */
+    private boolean enabled;
+
+    /**
+     * The JDBC URL of each replica.
+     */
+    private List<String> replicas = new ArrayList<String>();
+
+    /**
+     * The user of the replicas; by default the user of the primary.
+     */
+    private String username;
+
+    /**
+     * The password of the replicas; by default the password of the primary.
+     */
+    private String password;
+
+    /**
+     * Replicas lagging more than this are not used.
+     */
+    private long maxLagMillis = 5000;
+
+    /**
+     * How often the heartbeat is written to the primary and the lag of the
+     * replicas measured.
+     */
+    private long heartbeatMillis = 1000;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public List<String> getReplicas() {
+        return replicas;
+    }
+
+    public void setReplicas(List<String> replicas) {
+        this.replicas = replicas;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
+    public long getMaxLagMillis() {
+        return maxLagMillis;
+    }
+
+    public void setMaxLagMillis(long maxLagMillis) {
+        this.maxLagMillis = maxLagMillis;
+    }
+
+    public long getHeartbeatMillis() {
+        return heartbeatMillis;
+    }
+
+    public void setHeartbeatMillis(long heartbeatMillis) {
+        this.heartbeatMillis = heartbeatMillis;
+    }
+}
@@ -0,0 +1,70 @@
+package son.arca.config;
+
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes the state of a ThreadPoolExecutor on the actuator
+ * <code>/metrics</code> endpoint as <code>executor.{name}.*</code> gauges.
+ *
+ * @author Harrison Mfula
+ */
+public class ExecutorPublicMetrics implements PublicMetrics {
+
+    private final String prefix;
+    private final ThreadPoolExecutor executor;
+    private final CountingRejectedExecutionHandler rejectedExecutionHandler;
+
+    public ExecutorPublicMetrics(String name, ThreadPoolExecutor executor,
+                                 CountingRejectedExecutionHandler rejectedExecutionHandler) {
+        this.prefix = "executor." + name + ".";
+        this.executor = executor;
+        this.rejectedExecutionHandler = rejectedExecutionHandler;
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        Collection<Metric<?>> metrics = new ArrayList<Metric<?>>();
+        metrics.add(new Metric<Integer>(prefix + "active", executor.getActiveCount()));
+        metrics.add(new Metric<Integer>(prefix + "pool.size", executor.getPoolSize()));
+        metrics.add(new Metric<Integer>(prefix + "pool.max", executor.getMaximumPoolSize()));
+        metrics.add(new Metric<Integer>(prefix + "queue.size", executor.getQueue().size()));
+        metrics.add(new Metric<Integer>(prefix + "queue.remaining",
+                executor.getQueue().remainingCapacity()));
+        metrics.add(new Metric<Long>(prefix + "completed", executor.getCompletedTaskCount()));
+        if (rejectedExecutionHandler != null) {
+            metrics.add(new Metric<Long>(prefix + "rejected",
+                    rejectedExecutionHandler.getRejectedCount()));
+        }
+        return metrics;
+    }
+
+    /**
+     * Counts rejected tasks before handing them to the configured policy.
+     */
+    public static class CountingRejectedExecutionHandler implements RejectedExecutionHandler {
+
+        private final RejectedExecutionHandler delegate;
+        private final AtomicLong rejectedCount = new AtomicLong();
+
+        public CountingRejectedExecutionHandler(RejectedExecutionHandler delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+            rejectedCount.incrementAndGet();
+            delegate.rejectedExecution(task, executor);
+        }
+
+        public long getRejectedCount() {
+            return rejectedCount.get();
+        }
+    }
+}
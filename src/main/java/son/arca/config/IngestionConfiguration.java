@@ -0,0 +1,31 @@
+package son.arca.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Configures the executor parsing the shards of ingested event files.
+ *
+ * @author Harrison Mfula
+ */
+@Configuration
+public class IngestionConfiguration {
+
+    @Value("${arca.ingest.parallelism:0}")
+    private int parallelism;
+
+    /**
+     * One thread per shard; by default one per core.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor ingestExecutor() {
+        int size = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("arca-ingest-");
+        executor.setCorePoolSize(size);
+        executor.setMaxPoolSize(size);
+        return executor;
+    }
+}
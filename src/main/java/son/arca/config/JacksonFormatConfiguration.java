@@ -0,0 +1,63 @@
+package son.arca.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurerAdapter;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+import son.arca.metrics.LatencyHistograms;
+import son.arca.metrics.TimedJackson2HttpMessageConverter;
+import son.arca.util.JacksonFormats;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.List;
+
+/**
+ * Adds the Smile and CBOR message converters, so the endpoints producing or
+ * consuming them are negotiated through the Accept and Content-Type
+ * headers. They are added after the JSON converter, which remains the
+ * representation of requests accepting any media type. The time spent
+ * writing them is recorded like the JSON serialization.
+ * <p>
+ * The cause endpoints serve all three from the same URLs, so their
+ * responses carry <code>Vary: Accept</code> to keep shared caches from
+ * answering a request with another representation.
+ *
+ * @author Harrison Mfula
+ */
+@Configuration
+public class JacksonFormatConfiguration extends WebMvcConfigurerAdapter {
+
+    @Autowired
+    private JacksonFormats jacksonFormats;
+
+    @Autowired
+    private LatencyHistograms latencyHistograms;
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new TimedJackson2HttpMessageConverter(
+                jacksonFormats.getSmileObjectMapper(), JacksonFormats.APPLICATION_SMILE,
+                latencyHistograms.latency("serialization.smile")));
+        converters.add(new TimedJackson2HttpMessageConverter(
+                jacksonFormats.getCborObjectMapper(), JacksonFormats.APPLICATION_CBOR,
+                latencyHistograms.latency("serialization.cbor")));
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new HandlerInterceptorAdapter() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response,
+                                     Object handler) {
+                if (!response.containsHeader(HttpHeaders.VARY)) {
+                    response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+                }
+                return true;
+            }
+        }).addPathPatterns("/api/causes/**");
+    }
+}
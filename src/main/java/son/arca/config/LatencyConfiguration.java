@@ -0,0 +1,45 @@
+package son.arca.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurerAdapter;
+import son.arca.metrics.LatencyEndpoint;
+import son.arca.metrics.LatencyHistograms;
+import son.arca.metrics.LatencyInterceptor;
+import son.arca.metrics.TimedMappingJackson2HttpMessageConverter;
+
+/**
+ * Records the latency of the REST endpoints and of the JSON serialization
+ * of their responses, and publishes all latency histograms on the actuator
+ * <code>/latency</code> endpoint.
+ *
+ * @author Harrison Mfula
+ */
+@Configuration
+public class LatencyConfiguration extends WebMvcConfigurerAdapter {
+
+    @Autowired
+    private LatencyHistograms latencyHistograms;
+
+    @Bean
+    public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(
+            ObjectMapper objectMapper) {
+        return new TimedMappingJackson2HttpMessageConverter(objectMapper,
+                latencyHistograms.latency("serialization.json"));
+    }
+
+    @Bean
+    public LatencyEndpoint latencyEndpoint() {
+        return new LatencyEndpoint(latencyHistograms);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new LatencyInterceptor(latencyHistograms))
+                .addPathPatterns("/api/**");
+    }
+}
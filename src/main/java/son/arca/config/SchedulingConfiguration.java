@@ -0,0 +1,183 @@
+package son.arca.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.scheduling.support.CronTrigger;
+import org.springframework.scheduling.support.PeriodicTrigger;
+import son.arca.batch.ArcaServiceBatchProcessorBean;
+import son.arca.batch.BatchJob;
+import son.arca.batch.ImpactWindowScheduler;
+import son.arca.batch.OverlapPolicy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Schedules the jobs of the <code>batch</code> profile on a pool of
+ * <code>batch.scheduler.pool-size</code> threads, so that a long run does
+ * not delay the other jobs. Their metrics are published on the actuator
+ * <code>/metrics</code> endpoint as <code>batch.job.{name}.*</code>.
+ * <p>
+ * SON actions submitted to the ImpactWindowScheduler respect the impact
+ * window of every cell; its metrics are <code>son.actions.*</code>. No job
+ * submits any yet.
+ *
+ * @author Harrison Mfula
+ */
+@Configuration
+@Profile("batch")
+@EnableScheduling
+public class SchedulingConfiguration implements SchedulingConfigurer {
+
+    @Autowired
+    private ArcaServiceBatchProcessorBean batchProcessor;
+
+    @Value("${batch.scheduler.pool-size:4}")
+    private int poolSize;
+
+    @Value("${batch.cause.cron}")
+    private String cron;
+
+    @Value("${batch.cause.cron-overlap:SKIP}")
+    private OverlapPolicy cronOverlap;
+
+    @Value("${batch.cause.fixed-rate}")
+    private long fixedRate;
+
+    @Value("${batch.cause.fixed-rate-overlap:SKIP}")
+    private OverlapPolicy fixedRateOverlap;
+
+    @Value("${batch.cause.fixed-delay}")
+    private long fixedDelay;
+
+    @Value("${batch.cause.initial-delay}")
+    private long initialDelay;
+
+    @Value("${batch.son.pool-size:0}")
+    private int sonPoolSize;
+
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolTaskScheduler batchTaskScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setThreadNamePrefix("arca-batch-");
+        scheduler.setPoolSize(poolSize);
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+
+    /**
+     * Runs the SON actions; by default one thread per core.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor sonExecutor() {
+        int size = sonPoolSize > 0 ? sonPoolSize : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("arca-son-");
+        executor.setCorePoolSize(size);
+        executor.setMaxPoolSize(size);
+        return executor;
+    }
+
+    @Bean
+    public ImpactWindowScheduler impactWindowScheduler() {
+        return new ImpactWindowScheduler(sonExecutor(),
+                batchTaskScheduler().getScheduledExecutor());
+    }
+
+    @Bean
+    public PublicMetrics sonSchedulerMetrics() {
+        return new PublicMetrics() {
+            @Override
+            public Collection<Metric<?>> metrics() {
+                ImpactWindowScheduler scheduler = impactWindowScheduler();
+                Collection<Metric<?>> metrics = new ArrayList<Metric<?>>();
+                metrics.add(new Metric<Integer>("son.actions.running", scheduler.getRunning()));
+                metrics.add(new Metric<Integer>("son.actions.waiting", scheduler.getWaiting()));
+                metrics.add(new Metric<Long>("son.actions.completed", scheduler.getCompleted()));
+                metrics.add(new Metric<Long>("son.actions.failed", scheduler.getFailed()));
+                return metrics;
+            }
+        };
+    }
+
+    @Bean
+    public BatchJob cronBatchJob() {
+        return new BatchJob("cronJob", new CronTrigger(cron), cronOverlap,
+                batchTaskScheduler(), new Runnable() {
+                    @Override
+                    public void run() {
+                        batchProcessor.cronJob();
+                    }
+                });
+    }
+
+    @Bean
+    public BatchJob fixedRateBatchJob() {
+        PeriodicTrigger trigger = new PeriodicTrigger(fixedRate);
+        trigger.setFixedRate(true);
+        trigger.setInitialDelay(initialDelay);
+        return new BatchJob("fixedRateJobWithInitialDelay", trigger, fixedRateOverlap,
+                batchTaskScheduler(), new Runnable() {
+                    @Override
+                    public void run() {
+                        batchProcessor.fixedRateJobWithInitialDelay();
+                    }
+                });
+    }
+
+    /**
+     * Runs on the scheduler thread so the delay is measured from the end of
+     * the run; runs of this job never overlap.
+     */
+    @Bean
+    public BatchJob fixedDelayBatchJob() {
+        PeriodicTrigger trigger = new PeriodicTrigger(fixedDelay);
+        trigger.setInitialDelay(initialDelay);
+        return new BatchJob("fixedDelayJobWithInitialDelay", trigger, OverlapPolicy.SKIP,
+                new SyncTaskExecutor(), new Runnable() {
+                    @Override
+                    public void run() {
+                        batchProcessor.fixedDelayJobWithInitialDelay();
+                    }
+                });
+    }
+
+    @Bean
+    public PublicMetrics batchJobMetrics() {
+        return new PublicMetrics() {
+            @Override
+            public Collection<Metric<?>> metrics() {
+                Collection<Metric<?>> metrics = new ArrayList<Metric<?>>();
+                for (BatchJob job : batchJobs()) {
+                    metrics.addAll(job.metrics());
+                }
+                return metrics;
+            }
+        };
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar taskRegistrar) {
+        taskRegistrar.setScheduler(batchTaskScheduler());
+        for (BatchJob job : batchJobs()) {
+            taskRegistrar.addTriggerTask(job, job.getTrigger());
+        }
+    }
+
+    private List<BatchJob> batchJobs() {
+        return Arrays.asList(cronBatchJob(), fixedRateBatchJob(), fixedDelayBatchJob());
+    }
+}
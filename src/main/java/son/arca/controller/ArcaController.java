@@ -1,16 +1,51 @@
 package son.arca.controller;
 
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import son.arca.api.ArcaService;
+import son.arca.api.CauseHandler;
 import son.arca.api.EmailService;
+import son.arca.api.IngestionService;
+import son.arca.api.NotificationService;
+import son.arca.model.BatchResult;
 import son.arca.model.Cause;
+import son.arca.model.CauseChanges;
+import son.arca.model.CauseOccurrence;
+import son.arca.model.CauseView;
+import son.arca.model.IngestionReport;
+import son.arca.model.ParetoItem;
+import son.arca.model.TopCauses;
+import son.arca.series.Resolution;
+import son.arca.service.CauseChangeBroadcaster;
+import son.arca.util.ArcaConstants;
+import son.arca.util.JacksonFormats;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.concurrent.Future;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
 
 /**
  * The ArcaController class is a RESTful web service controller. The
@@ -24,12 +59,56 @@ import java.util.concurrent.Future;
 @RestController
 public class ArcaController extends BaseController {
 
+    /**
+     * The properties causes can be sorted by.
+     */
+    private static final List<String> SORT_PROPERTIES =
+            Arrays.asList("id", "name", "frequency", "total");
+
+    /**
+     * Tell the ETags of the Smile and CBOR representations from JSON ones.
+     */
+    private static final String SMILE_ETAG_SUFFIX = "-smile";
+    private static final String CBOR_ETAG_SUFFIX = "-cbor";
+
     @Autowired
     private ArcaService arcaService;
 
     @Autowired
     private EmailService emailService;
 
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private IngestionService ingestionService;
+
+    @Autowired
+    private CauseChangeBroadcaster causeChangeBroadcaster;
+
+    @Autowired
+    private JacksonFormats jacksonFormats;
+
+    /**
+     * The directory the event files to ingest are read from.
+     */
+    @Value("${arca.ingest.directory:ingest}")
+    private String ingestDirectory;
+
+    /**
+     * The time in milliseconds to wait for an email when the client asks to
+     * wait for the asynchronous result.
+     */
+    @Value("${arca.email.send-timeout:10000}")
+    private long sendTimeout;
+
+    /**
+     * The HTTP status returned with the Cause when the email is not sent
+     * within the send timeout.
+     */
+    @Value("${arca.email.send-timeout-status:ACCEPTED}")
+    private HttpStatus sendTimeoutStatus;
+
     @RequestMapping("/")
     public String index() {
         return "index";
@@ -39,22 +118,205 @@ public class ArcaController extends BaseController {
      * Web service endpoint to fetch all Cause entities. The service returns
      * the collection of Cause entities as JSON.
      *
-     * @return A ResponseEntity containing a Collection of Cause objects.
+     * The response carries the version of the whole collection as an ETag.
+     * If the <code>If-None-Match</code> header carries it, nothing changed
+     * and the service returns an empty response body with HTTP status 304
+     * without reading the causes.
+     *
+     * If the <code>size</code> parameter is supplied, a single keyset page of
+     * at most <code>size</code> causes with an id greater than
+     * <code>after</code> is returned instead. When more causes may follow, the
+     * response carries a <code>Link</code> header with <code>rel="next"</code>
+     * pointing at the next page.
+     *
+     * If any of <code>name</code>, <code>minFrequency</code>,
+     * <code>sort</code> or <code>top</code> is supplied, only the first
+     * <code>top</code> causes matching the filters are returned in the
+     * requested order, by default by descending frequency. These parameters
+     * cannot be combined with <code>size</code>; the service returns HTTP
+     * status 400 if they are, or if the sort is invalid.
+     *
+     * If <code>fields</code> is supplied, only those properties of each
+     * Cause are read from the database and returned, in id order unless a
+     * filter or sort is supplied as well. It cannot be combined with
+     * <code>size</code>; the service returns HTTP status 400 if it is, or if
+     * a field is not a Cause property.
+     *
+     * @param after The id of the last Cause of the previous page.
+     * @param size The maximum number of causes in the page.
+     * @param name The name of the causes.
+     * @param minFrequency The lowest frequency of the causes.
+     * @param sort The order as <code>property[,asc|desc]</code>, where the
+     *        property is id, name, frequency or total.
+     * @param top The number of causes to return; all matches if zero.
+     * @param fields The comma separated properties to return, among id, name,
+     *        frequency, total, description and version.
+     * @param webRequest The request, checked for an <code>If-None-Match</code>
+     *        header.
+     * @return A ResponseEntity containing a Collection of Cause objects, or
+     *         of their selected properties by name.
      */
     @RequestMapping(
             value = "/api/causes",
             method = RequestMethod.GET,
-            produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<Collection<Cause>> getCauses() {
+            produces = {MediaType.APPLICATION_JSON_VALUE,
+                    JacksonFormats.APPLICATION_SMILE_VALUE,
+                    JacksonFormats.APPLICATION_CBOR_VALUE})
+    public ResponseEntity<Collection<?>> getCauses(
+            @RequestParam(value = "after", defaultValue = "0") long after,
+            @RequestParam(value = "size", required = false) Integer size,
+            @RequestParam(value = "name", required = false) String name,
+            @RequestParam(value = "minFrequency", required = false) Long minFrequency,
+            @RequestParam(value = "sort", required = false) String sort,
+            @RequestParam(value = "top", required = false) Integer top,
+            @RequestParam(value = "fields", required = false) String fields,
+            WebRequest webRequest) {
         logger.info("> getCauses");
 
-        Collection<Cause> causes = arcaService.findAll();
+        if (isCollectionNotModified(webRequest)) {
+            logger.info("< getCauses");
+            return null;
+        }
+
+        boolean filtered = name != null || minFrequency != null || sort != null
+                || top != null;
+        if (fields != null) {
+            Sort order = size != null ? null
+                    : filtered ? parseSort(sort) : new Sort("id");
+            if (order == null) {
+                logger.info("< getCauses");
+                return new ResponseEntity<Collection<?>>(HttpStatus.BAD_REQUEST);
+            }
+
+            Collection<Map<String, Object>> causes;
+            try {
+                causes = arcaService.findFields(parseFields(fields), name, minFrequency,
+                        order, top == null ? 0 : top);
+            } catch (IllegalArgumentException e) {
+                logger.info("< getCauses");
+                return new ResponseEntity<Collection<?>>(HttpStatus.BAD_REQUEST);
+            }
+
+            logger.info("< getCauses");
+            return new ResponseEntity<Collection<?>>(causes, HttpStatus.OK);
+        }
+
+        if (filtered) {
+            Sort order = size == null ? parseSort(sort) : null;
+            if (order == null) {
+                logger.info("< getCauses");
+                return new ResponseEntity<Collection<?>>(HttpStatus.BAD_REQUEST);
+            }
+
+            Collection<Cause> causes = arcaService.findAll(name, minFrequency, order,
+                    top == null ? 0 : top);
+
+            logger.info("< getCauses");
+            return new ResponseEntity<Collection<?>>(causes, HttpStatus.OK);
+        }
+
+        if (size != null) {
+            int pageSize = Math.max(1, Math.min(size, ArcaConstants.MAX_PAGE_SIZE));
+            List<Cause> page = new ArrayList<Cause>(
+                    arcaService.findAllAfter(after, pageSize));
+
+            HttpHeaders headers = new HttpHeaders();
+            if (page.size() == pageSize) {
+                Long lastId = page.get(page.size() - 1).getId();
+                headers.add(HttpHeaders.LINK, "</api/causes?after=" + lastId
+                        + "&size=" + pageSize + ">; rel=\"next\"");
+            }
+
+            logger.info("< getCauses");
+            return new ResponseEntity<Collection<?>>(page, headers,
+                    HttpStatus.OK);
+        }
+
+        Collection<CauseView> causes = arcaService.findAll();
 
         logger.info("< getCauses");
-        return new ResponseEntity<Collection<Cause>>(causes,
+        return new ResponseEntity<Collection<?>>(causes,
                 HttpStatus.OK);
     }
 
+    /**
+     * Web service endpoint to stream all Cause entities. The causes are
+     * written to the response as an array one by one while they are read
+     * from the database, so memory use does not depend on the table size.
+     * The array is JSON, Smile or CBOR, as chosen by the Accept header.
+     *
+     * @param accept The Accept header of the request.
+     * @param response The HttpServletResponse the array is written to.
+     * @throws IOException Thrown if the response cannot be written.
+     */
+    @RequestMapping(
+            value = "/api/causes",
+            method = RequestMethod.GET,
+            params = "stream=true",
+            produces = {MediaType.APPLICATION_JSON_VALUE,
+                    JacksonFormats.APPLICATION_SMILE_VALUE,
+                    JacksonFormats.APPLICATION_CBOR_VALUE})
+    public void streamCauses(
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            HttpServletResponse response) throws IOException {
+        logger.info("> streamCauses");
+
+        MediaType mediaType = JacksonFormats.negotiate(accept);
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(mediaType.toString());
+
+        final JsonGenerator generator = jacksonFormats.getObjectMapper(mediaType).getFactory()
+                .createGenerator(response.getOutputStream(), JsonEncoding.UTF8);
+        try {
+            generator.writeStartArray();
+            arcaService.streamAll(new CauseHandler() {
+                @Override
+                public void handle(Cause cause) throws IOException {
+                    generator.writeObject(cause);
+                }
+            });
+            generator.writeEndArray();
+        } finally {
+            generator.close();
+        }
+
+        logger.info("< streamCauses");
+    }
+
+    /**
+     * Web service endpoint to fetch the Pareto series of the causes. The
+     * causes are returned in descending frequency order with their share and
+     * cumulative share of all occurrences, kept up to date on every write.
+     * Like the collection of causes, the series is served with the ETag of
+     * the collection version and answers 304 if it did not change.
+     *
+     * @param top The number of causes to return; all causes if zero.
+     * @param webRequest The request, checked for an <code>If-None-Match</code>
+     *        header.
+     * @return A ResponseEntity containing a List of ParetoItem objects.
+     */
+    @RequestMapping(
+            value = "/api/causes/pareto",
+            method = RequestMethod.GET,
+            produces = {MediaType.APPLICATION_JSON_VALUE,
+                    JacksonFormats.APPLICATION_SMILE_VALUE,
+                    JacksonFormats.APPLICATION_CBOR_VALUE})
+    public ResponseEntity<List<ParetoItem>> getPareto(
+            @RequestParam(value = "top", defaultValue = "0") int top,
+            WebRequest webRequest) {
+        logger.info("> getPareto top:{}", top);
+
+        if (isCollectionNotModified(webRequest)) {
+            logger.info("< getPareto top:{}", top);
+            return null;
+        }
+
+        List<ParetoItem> items = arcaService.findPareto(top);
+
+        logger.info("< getPareto top:{}", top);
+        return new ResponseEntity<List<ParetoItem>>(items, HttpStatus.OK);
+    }
+
     /**
      * Web service endpoint to fetch a single Cause entity by primary key
      * identifier.
@@ -64,22 +326,36 @@ public class ArcaController extends BaseController {
      * If not found, the service returns an empty response body with HTTP status
      * 404.
      *
+     * The response carries the version of the Cause as a strong ETag. If the
+     * <code>If-None-Match</code> header carries it, the service returns an
+     * empty response body with HTTP status 304.
+     *
      * @param id A Long URL path variable containing the Cause primary key
      *        identifier.
+     * @param webRequest The request, checked for an <code>If-None-Match</code>
+     *        header.
      * @return A ResponseEntity containing a single Cause object, if found,
      *         and a HTTP status code as described in the method comment.
      */
     @RequestMapping(
             value = "/api/causes/{id}",
             method = RequestMethod.GET,
-            produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<Cause> getCause(@PathVariable("id") Long id) {
+            produces = {MediaType.APPLICATION_JSON_VALUE,
+                    JacksonFormats.APPLICATION_SMILE_VALUE,
+                    JacksonFormats.APPLICATION_CBOR_VALUE})
+    public ResponseEntity<Cause> getCause(@PathVariable("id") Long id,
+                                          WebRequest webRequest) {
         logger.info("> getCause id:{}", id);
 
         Cause cause = arcaService.findOne(id);
         if (cause == null) {
             return new ResponseEntity<Cause>(HttpStatus.NOT_FOUND);
         }
+        if (cause.getVersion() != null && webRequest.checkNotModified(
+                eTag(cause.getVersion(), webRequest.getHeader(HttpHeaders.ACCEPT)))) {
+            logger.info("< getCause id:{}", id);
+            return null;
+        }
 
         logger.info("< getCause id:{}", id);
         return new ResponseEntity<Cause>(cause, HttpStatus.OK);
@@ -104,8 +380,12 @@ public class ArcaController extends BaseController {
     @RequestMapping(
             value = "/api/causes",
             method = RequestMethod.POST,
-            consumes = MediaType.APPLICATION_JSON_VALUE,
-            produces = MediaType.APPLICATION_JSON_VALUE)
+            consumes = {MediaType.APPLICATION_JSON_VALUE,
+                    JacksonFormats.APPLICATION_SMILE_VALUE,
+                    JacksonFormats.APPLICATION_CBOR_VALUE},
+            produces = {MediaType.APPLICATION_JSON_VALUE,
+                    JacksonFormats.APPLICATION_SMILE_VALUE,
+                    JacksonFormats.APPLICATION_CBOR_VALUE})
     public ResponseEntity<Cause> createCause(
             @RequestBody Cause cause) {
         logger.info("> createCause");
@@ -122,15 +402,23 @@ public class ArcaController extends BaseController {
      * Cause is updated in the data repository.
      *
      * If updated successfully, the persisted Cause is returned as JSON with
-     * HTTP status 200.
+     * HTTP status 200 and the ETag of its new version.
      *
      * If not found, the service returns an empty response body and HTTP status
      * 404.
      *
+     * If the Cause carries a version other than the stored one, or is updated
+     * concurrently, the service returns an empty response body with HTTP
+     * status 409. If the version is supplied as an <code>If-Match</code>
+     * ETag instead, HTTP status 412 is returned.
+     *
      * If not updated successfully, the service returns an empty response body
      * with HTTP status 500.
      *
      * @param cause The Cause object to be updated.
+     * @param ifMatch The ETag of the version the update is based on.
+     * @param accept The Accept header, which selects the representation of
+     *        the returned ETag.
      * @return A ResponseEntity containing a single Cause object, if updated
      *         successfully, and a HTTP status code as described in the method
      *         comment.
@@ -138,20 +426,49 @@ public class ArcaController extends BaseController {
     @RequestMapping(
             value = "/api/causes/{id}",
             method = RequestMethod.PUT,
-            consumes = MediaType.APPLICATION_JSON_VALUE,
-            produces = MediaType.APPLICATION_JSON_VALUE)
+            consumes = {MediaType.APPLICATION_JSON_VALUE,
+                    JacksonFormats.APPLICATION_SMILE_VALUE,
+                    JacksonFormats.APPLICATION_CBOR_VALUE},
+            produces = {MediaType.APPLICATION_JSON_VALUE,
+                    JacksonFormats.APPLICATION_SMILE_VALUE,
+                    JacksonFormats.APPLICATION_CBOR_VALUE})
     public ResponseEntity<Cause> updateCause(
-            @RequestBody Cause cause) {
+            @RequestBody Cause cause,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
         logger.info("> updateCause:{}", cause.getId());
 
-        Cause updatedCause = arcaService.update(cause);
+        if (ifMatch != null && !"*".equals(ifMatch.trim())) {
+            Long version = parseETag(ifMatch);
+            if (version == null) {
+                logger.info("< updateCause:{}", cause.getId());
+                return new ResponseEntity<Cause>(HttpStatus.PRECONDITION_FAILED);
+            }
+            cause.setVersion(version);
+        }
+
+        Cause updatedCause;
+        try {
+            updatedCause = arcaService.update(cause);
+        } catch (OptimisticLockingFailureException e) {
+            if (ifMatch == null) {
+                throw e;
+            }
+            logger.info("< updateCause:{}", cause.getId());
+            return new ResponseEntity<Cause>(HttpStatus.PRECONDITION_FAILED);
+        }
         if (updatedCause == null) {
             return new ResponseEntity<Cause>(
                     HttpStatus.INTERNAL_SERVER_ERROR);
         }
 
+        HttpHeaders headers = new HttpHeaders();
+        if (updatedCause.getVersion() != null) {
+            headers.setETag(eTag(updatedCause.getVersion(), accept));
+        }
+
         logger.info("< updateCause:{}", cause.getId());
-        return new ResponseEntity<Cause>(updatedCause, HttpStatus.OK);
+        return new ResponseEntity<Cause>(updatedCause, headers, HttpStatus.OK);
     }
 
     /**
@@ -183,6 +500,331 @@ public class ArcaController extends BaseController {
         return new ResponseEntity<Cause>(HttpStatus.NO_CONTENT);
     }
 
+    /**
+     * Web service endpoint to create many Cause entities at once. The HTTP
+     * request body is expected to contain a JSON array of Cause objects. All
+     * causes are persisted in one transaction using JDBC batching.
+     *
+     * The service returns the outcome of each item, in request order, with
+     * HTTP status 200.
+     *
+     * @param causes The Cause objects to be created.
+     * @return A ResponseEntity containing a List of BatchResult objects.
+     */
+    @RequestMapping(
+            value = "/api/causes/batch",
+            method = RequestMethod.POST,
+            consumes = {MediaType.APPLICATION_JSON_VALUE,
+                    JacksonFormats.APPLICATION_SMILE_VALUE,
+                    JacksonFormats.APPLICATION_CBOR_VALUE},
+            produces = {MediaType.APPLICATION_JSON_VALUE,
+                    JacksonFormats.APPLICATION_SMILE_VALUE,
+                    JacksonFormats.APPLICATION_CBOR_VALUE})
+    public ResponseEntity<List<BatchResult>> createCauses(
+            @RequestBody List<Cause> causes) {
+        logger.info("> createCauses size:{}", causes.size());
+
+        List<BatchResult> results = arcaService.createAll(causes);
+
+        logger.info("< createCauses size:{}", causes.size());
+        return new ResponseEntity<List<BatchResult>>(results, HttpStatus.OK);
+    }
+
+    /**
+     * Web service endpoint to update many Cause entities at once. The HTTP
+     * request body is expected to contain a JSON array of Cause objects. All
+     * causes are updated in one transaction using JDBC batching.
+     *
+     * The service returns the outcome of each item, in request order, with
+     * HTTP status 200.
+     *
+     * @param causes The Cause objects to be updated.
+     * @return A ResponseEntity containing a List of BatchResult objects.
+     */
+    @RequestMapping(
+            value = "/api/causes/batch",
+            method = RequestMethod.PUT,
+            consumes = {MediaType.APPLICATION_JSON_VALUE,
+                    JacksonFormats.APPLICATION_SMILE_VALUE,
+                    JacksonFormats.APPLICATION_CBOR_VALUE},
+            produces = {MediaType.APPLICATION_JSON_VALUE,
+                    JacksonFormats.APPLICATION_SMILE_VALUE,
+                    JacksonFormats.APPLICATION_CBOR_VALUE})
+    public ResponseEntity<List<BatchResult>> updateCauses(
+            @RequestBody List<Cause> causes) {
+        logger.info("> updateCauses size:{}", causes.size());
+
+        List<BatchResult> results = arcaService.updateAll(causes);
+
+        logger.info("< updateCauses size:{}", causes.size());
+        return new ResponseEntity<List<BatchResult>>(results, HttpStatus.OK);
+    }
+
+    /**
+     * Web service endpoint to delete many Cause entities at once. The HTTP
+     * request body is expected to contain a JSON array of Cause primary key
+     * identifiers. All causes are deleted in one transaction.
+     *
+     * The service returns the outcome of each item, in request order, with
+     * HTTP status 200.
+     *
+     * @param ids The primary key identifiers of the causes to be deleted.
+     * @return A ResponseEntity containing a List of BatchResult objects.
+     */
+    @RequestMapping(
+            value = "/api/causes/batch",
+            method = RequestMethod.DELETE,
+            consumes = {MediaType.APPLICATION_JSON_VALUE,
+                    JacksonFormats.APPLICATION_SMILE_VALUE,
+                    JacksonFormats.APPLICATION_CBOR_VALUE},
+            produces = {MediaType.APPLICATION_JSON_VALUE,
+                    JacksonFormats.APPLICATION_SMILE_VALUE,
+                    JacksonFormats.APPLICATION_CBOR_VALUE})
+    public ResponseEntity<List<BatchResult>> deleteCauses(
+            @RequestBody List<Long> ids) {
+        logger.info("> deleteCauses size:{}", ids.size());
+
+        List<BatchResult> results = arcaService.deleteAll(ids);
+
+        logger.info("< deleteCauses size:{}", ids.size());
+        return new ResponseEntity<List<BatchResult>>(results, HttpStatus.OK);
+    }
+
+    /**
+     * Web service endpoint to ingest an event file of the ingest directory
+     * into the cause frequencies. Every event counts once towards the
+     * frequency of the cause named in it.
+     *
+     * The service returns the IngestionReport with HTTP status 200, HTTP
+     * status 404 if the file does not exist and HTTP status 400 if the file
+     * is outside <code>arca.ingest.directory</code> or its format is unknown.
+     *
+     * @param fileName The name of the file, relative to the ingest directory.
+     * @param format CSV or NDJSON; by default derived from the extension.
+     * @return A ResponseEntity containing the IngestionReport.
+     * @throws IOException Thrown if the file cannot be read.
+     */
+    @RequestMapping(
+            value = "/api/causes/ingest",
+            method = RequestMethod.POST,
+            produces = {MediaType.APPLICATION_JSON_VALUE,
+                    JacksonFormats.APPLICATION_SMILE_VALUE,
+                    JacksonFormats.APPLICATION_CBOR_VALUE})
+    public ResponseEntity<IngestionReport> ingestCauses(
+            @RequestParam("file") String fileName,
+            @RequestParam(value = "format", required = false) IngestionService.Format format)
+            throws IOException {
+        logger.info("> ingestCauses file:{}", fileName);
+
+        Path directory = Paths.get(ingestDirectory).toAbsolutePath().normalize();
+        Path file = directory.resolve(fileName).normalize();
+        if (!file.startsWith(directory)) {
+            logger.info("< ingestCauses file:{}", fileName);
+            return new ResponseEntity<IngestionReport>(HttpStatus.BAD_REQUEST);
+        }
+        if (!Files.isRegularFile(file)) {
+            logger.info("< ingestCauses file:{}", fileName);
+            return new ResponseEntity<IngestionReport>(HttpStatus.NOT_FOUND);
+        }
+        if (format == null) {
+            try {
+                format = IngestionService.Format.of(file);
+            } catch (IllegalArgumentException e) {
+                logger.info("< ingestCauses file:{}", fileName);
+                return new ResponseEntity<IngestionReport>(HttpStatus.BAD_REQUEST);
+            }
+        }
+
+        IngestionReport report = ingestionService.ingest(file, format);
+
+        logger.info("< ingestCauses file:{}", fileName);
+        return new ResponseEntity<IngestionReport>(report, HttpStatus.OK);
+    }
+
+    /**
+     * Web service endpoint to add to the frequency of a Cause. The increment
+     * is accumulated in memory and written with other increments of the
+     * Cause at the next flush, so concurrent increments do not contend for
+     * its row.
+     *
+     * The service returns an empty response body with HTTP status 202, HTTP
+     * status 404 if the Cause does not exist and HTTP status 400 if
+     * <code>by</code> is not positive.
+     *
+     * @param id A Long URL path variable containing the Cause primary key
+     *        identifier.
+     * @param by The number of occurrences to add.
+     * @return A ResponseEntity with a HTTP status code as described in the
+     *         method comment.
+     */
+    @RequestMapping(
+            value = "/api/causes/{id}/increment",
+            method = RequestMethod.POST)
+    public ResponseEntity<Void> incrementCause(@PathVariable("id") Long id,
+            @RequestParam(value = "by", defaultValue = "1") long by) {
+        logger.info("> incrementCause id:{} by:{}", id, by);
+
+        if (by < 1) {
+            logger.info("< incrementCause id:{} by:{}", id, by);
+            return new ResponseEntity<Void>(HttpStatus.BAD_REQUEST);
+        }
+        if (arcaService.findOne(id) == null) {
+            logger.info("< incrementCause id:{} by:{}", id, by);
+            return new ResponseEntity<Void>(HttpStatus.NOT_FOUND);
+        }
+        arcaService.increment(id, by);
+
+        logger.info("< incrementCause id:{} by:{}", id, by);
+        return new ResponseEntity<Void>(HttpStatus.ACCEPTED);
+    }
+
+    /**
+     * Web service endpoint to fetch the causes that occurred most in the last
+     * minutes, most frequent first. The occurrences are estimates: each is at
+     * least the exact count and exceeds it by at most its error, and every
+     * error is at most <code>maxError</code>.
+     *
+     * The service returns the TopCauses with HTTP status 200, or HTTP status
+     * 400 if k exceeds <code>arca.top.capacity</code> or the window exceeds
+     * <code>arca.top.window-seconds</code>.
+     *
+     * @param k The number of causes.
+     * @param window The length of the window ending now, such as 30s or 5m.
+     * @return A ResponseEntity containing the TopCauses.
+     */
+    @RequestMapping(
+            value = "/api/causes/top",
+            method = RequestMethod.GET,
+            produces = {MediaType.APPLICATION_JSON_VALUE,
+                    JacksonFormats.APPLICATION_SMILE_VALUE,
+                    JacksonFormats.APPLICATION_CBOR_VALUE})
+    public ResponseEntity<TopCauses> getTopCauses(
+            @RequestParam(value = "k", defaultValue = "10") int k,
+            @RequestParam(value = "window", defaultValue = "5m") String window) {
+        logger.info("> getTopCauses k:{} window:{}", k, window);
+
+        TopCauses top;
+        try {
+            top = arcaService.findTop(k, Resolution.parseDuration(window));
+        } catch (IllegalArgumentException e) {
+            logger.info("< getTopCauses k:{} window:{}", k, window);
+            return new ResponseEntity<TopCauses>(HttpStatus.BAD_REQUEST);
+        }
+
+        logger.info("< getTopCauses k:{} window:{}", k, window);
+        return new ResponseEntity<TopCauses>(top, HttpStatus.OK);
+    }
+
+    /**
+     * Web service endpoint to fetch the causes changed since an earlier
+     * request, for clients mirroring the causes. The response carries the
+     * causes created or updated, the ids of the causes deleted and the
+     * high-water mark to send as <code>since</code> next time.
+     *
+     * Without <code>since</code> the service returns all causes. The service
+     * returns the CauseChanges with HTTP status 200, or HTTP status 400 if
+     * <code>since</code> is negative.
+     *
+     * @param since The high-water mark of the previous response.
+     * @return A ResponseEntity containing the CauseChanges.
+     */
+    @RequestMapping(
+            value = "/api/causes/changes",
+            method = RequestMethod.GET,
+            produces = {MediaType.APPLICATION_JSON_VALUE,
+                    JacksonFormats.APPLICATION_SMILE_VALUE,
+                    JacksonFormats.APPLICATION_CBOR_VALUE})
+    public ResponseEntity<CauseChanges> getCauseChanges(
+            @RequestParam(value = "since", required = false) Long since) {
+        logger.info("> getCauseChanges since:{}", since);
+
+        if (since != null && since < 0) {
+            logger.info("< getCauseChanges since:{}", since);
+            return new ResponseEntity<CauseChanges>(HttpStatus.BAD_REQUEST);
+        }
+
+        CauseChanges changes = arcaService.findChanges(since);
+
+        logger.info("< getCauseChanges since:{}", since);
+        return new ResponseEntity<CauseChanges>(changes, HttpStatus.OK);
+    }
+
+    /**
+     * Web service endpoint streaming the committed changes of the causes as
+     * Server-Sent Events named <code>cause</code>. Each event carries the
+     * type of the change (CREATED, UPDATED or DELETED), the Cause id and the
+     * Cause as written, or null for deletions.
+     *
+     * A client that cannot keep up is disconnected and should reload the
+     * causes when it reconnects. The service returns HTTP status 503 if
+     * <code>arca.stream.max-subscribers</code> streams are open.
+     *
+     * @return The event stream.
+     */
+    @RequestMapping(
+            value = "/api/causes/stream",
+            method = RequestMethod.GET,
+            produces = "text/event-stream")
+    public ResponseEntity<SseEmitter> streamCauseChanges() {
+        logger.info("> streamCauseChanges");
+
+        SseEmitter emitter = causeChangeBroadcaster.subscribe();
+        if (emitter == null) {
+            logger.info("< streamCauseChanges");
+            return new ResponseEntity<SseEmitter>(HttpStatus.SERVICE_UNAVAILABLE);
+        }
+
+        logger.info("< streamCauseChanges");
+        return new ResponseEntity<SseEmitter>(emitter, HttpStatus.OK);
+    }
+
+    /**
+     * Web service endpoint to fetch how often a Cause occurred over time.
+     * Occurrences are counted from the growth of the Cause frequency.
+     *
+     * The service returns one point per step with HTTP status 200, HTTP
+     * status 404 if the Cause does not exist and HTTP status 400 if the step
+     * is not a whole number of minutes or the range has too many points.
+     *
+     * @param id A Long URL path variable containing the Cause primary key
+     *        identifier.
+     * @param from The start of the range in epoch milliseconds; by default
+     *        one hour before <code>to</code>.
+     * @param to The end of the range in epoch milliseconds; by default now.
+     * @param step The width of each point, such as 1m, 15m, 1h or 1d.
+     * @return A ResponseEntity containing the CauseOccurrence points.
+     */
+    @RequestMapping(
+            value = "/api/causes/{id}/series",
+            method = RequestMethod.GET,
+            produces = {MediaType.APPLICATION_JSON_VALUE,
+                    JacksonFormats.APPLICATION_SMILE_VALUE,
+                    JacksonFormats.APPLICATION_CBOR_VALUE})
+    public ResponseEntity<List<CauseOccurrence>> getCauseSeries(
+            @PathVariable("id") Long id,
+            @RequestParam(value = "from", required = false) Long from,
+            @RequestParam(value = "to", required = false) Long to,
+            @RequestParam(value = "step", defaultValue = "1m") String step) {
+        logger.info("> getCauseSeries id:{}", id);
+
+        long end = to == null ? System.currentTimeMillis() : to;
+        long start = from == null ? end - TimeUnit.HOURS.toMillis(1) : from;
+        List<CauseOccurrence> series;
+        try {
+            series = arcaService.findSeries(id, start, end, Resolution.parseDuration(step));
+        } catch (IllegalArgumentException e) {
+            logger.info("< getCauseSeries id:{}", id);
+            return new ResponseEntity<List<CauseOccurrence>>(HttpStatus.BAD_REQUEST);
+        }
+        if (series == null) {
+            logger.info("< getCauseSeries id:{}", id);
+            return new ResponseEntity<List<CauseOccurrence>>(HttpStatus.NOT_FOUND);
+        }
+
+        logger.info("< getCauseSeries id:{}", id);
+        return new ResponseEntity<List<CauseOccurrence>>(series, HttpStatus.OK);
+    }
+
     /**
      * Web service endpoint to fetch a single Cause entity by primary key
      * identifier and send it as an email.
@@ -193,49 +835,194 @@ public class ArcaController extends BaseController {
      * If not found, the service returns an empty response body with HTTP status
      * 404.
      *
+     * If the client does not wait, the notification is queued and merged with
+     * other pending notifications for the same recipient into one digest
+     * email. If the notification queue is full, the Cause is returned with
+     * HTTP status 503. A recipient that is not a valid address or not one of
+     * the <code>arca.notification.allowed-recipients</code> is answered with
+     * HTTP status 400.
+     *
+     * If the client waits for the email, the request thread is released and
+     * the response is completed by the email worker. If the email is not sent
+     * within <code>arca.email.send-timeout</code> milliseconds, the Cause is
+     * returned with the <code>arca.email.send-timeout-status</code> HTTP
+     * status (202 by default) while the email is still being sent.
+     *
      * @param id A Long URL path variable containing the Cause primary key
      *        identifier.
      * @param waitForAsyncResult A boolean indicating if the web service should
      *        wait for the asynchronous email transmission.
-     * @return A ResponseEntity containing a single Cause object, if found,
-     *         and a HTTP status code as described in the method comment.
+     * @param recipient The recipient of the digest email when not waiting;
+     *        the default recipient if absent.
+     * @return A DeferredResult completed with a ResponseEntity containing a
+     *         single Cause object, if found, and a HTTP status code as
+     *         described in the method comment.
      */
     @RequestMapping(
             value = "/api/causes/{id}/send",
             method = RequestMethod.POST,
-            produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<Cause> sendCause(@PathVariable("id") Long id,
-                                                 @RequestParam(
-                                                         value = "wait",
-                                                         defaultValue = "false") boolean waitForAsyncResult) {
+            produces = {MediaType.APPLICATION_JSON_VALUE,
+                    JacksonFormats.APPLICATION_SMILE_VALUE,
+                    JacksonFormats.APPLICATION_CBOR_VALUE})
+    public DeferredResult<ResponseEntity<Cause>> sendCause(
+            @PathVariable("id") Long id,
+            @RequestParam(
+                    value = "wait",
+                    defaultValue = "false") boolean waitForAsyncResult,
+            @RequestParam(
+                    value = "to",
+                    required = false) String recipient) {
 
         logger.info("> sendCause id:{}", id);
 
-        Cause cause = null;
+        final DeferredResult<ResponseEntity<Cause>> deferredResult =
+                new DeferredResult<ResponseEntity<Cause>>(sendTimeout);
 
-        try {
-            cause = arcaService.findOne(id);
-            if (cause == null) {
+        final Cause cause = arcaService.findOne(id);
+        if (cause == null) {
+            deferredResult.setResult(new ResponseEntity<Cause>(HttpStatus.NOT_FOUND));
+            logger.info("< sendCause id:{}", id);
+            return deferredResult;
+        }
+
+        if (!waitForAsyncResult) {
+            HttpStatus status;
+            try {
+                status = notificationService.enqueue(recipient, cause)
+                        ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE;
+            } catch (IllegalArgumentException e) {
+                deferredResult.setResult(new ResponseEntity<Cause>(HttpStatus.BAD_REQUEST));
                 logger.info("< sendCause id:{}", id);
-                return new ResponseEntity<Cause>(HttpStatus.NOT_FOUND);
+                return deferredResult;
             }
+            deferredResult.setResult(new ResponseEntity<Cause>(cause, status));
+            logger.info("< sendCause id:{}", id);
+            return deferredResult;
+        }
 
-            if (waitForAsyncResult) {
-                Future<Boolean> asyncResponse = emailService
-                        .sendAsyncWithResult(cause);
-                boolean emailSent = asyncResponse.get();
-                logger.info("- cause email sent? {}", emailSent);
-            } else {
-                emailService.sendAsync(cause);
+        deferredResult.onTimeout(new Runnable() {
+            @Override
+            public void run() {
+                logger.warn("Timed out waiting for the Cause email after {} ms.",
+                        sendTimeout);
+                deferredResult.setResult(new ResponseEntity<Cause>(cause,
+                        sendTimeoutStatus));
             }
-        } catch (Exception e) {
-            logger.error("A problem occurred sending the Cause.", e);
-            return new ResponseEntity<Cause>(
-                    HttpStatus.INTERNAL_SERVER_ERROR);
-        }
+        });
+
+        emailService.sendAsyncWithResult(cause).whenComplete(
+                new BiConsumer<Boolean, Throwable>() {
+                    @Override
+                    public void accept(Boolean emailSent, Throwable failure) {
+                        if (failure != null) {
+                            logger.error("A problem occurred sending the Cause.", failure);
+                            deferredResult.setResult(new ResponseEntity<Cause>(
+                                    HttpStatus.INTERNAL_SERVER_ERROR));
+                            return;
+                        }
+                        logger.info("- cause email sent? {}", emailSent);
+                        deferredResult.setResult(new ResponseEntity<Cause>(cause,
+                                HttpStatus.OK));
+                    }
+                });
 
         logger.info("< sendCause id:{}", id);
-        return new ResponseEntity<Cause>(cause, HttpStatus.OK);
+        return deferredResult;
+    }
+
+    /**
+     * Answers a conditional request for a collection of causes: if the
+     * <code>If-None-Match</code> header carries the ETag of the current
+     * collection version, the response status is set to 304 and the causes
+     * need not be read. Otherwise the ETag is added to the response. The
+     * version is read first: the causes read after it may hold later changes
+     * too, which at worst makes the next conditional request answer 200.
+     *
+     * @return True if the response is 304 Not Modified.
+     */
+    private boolean isCollectionNotModified(WebRequest webRequest) {
+        String version = arcaService.getCollectionVersion();
+        return version != null && webRequest.checkNotModified(
+                eTag(version, webRequest.getHeader(HttpHeaders.ACCEPT)));
+    }
+
+    /**
+     * The JSON, Smile and CBOR bodies of the same version differ, so their
+     * strong ETags do too: the ETags of Smile and CBOR carry a suffix.
+     *
+     * @return The strong ETag of a version in the representation negotiated
+     *         for the Accept header.
+     */
+    private static String eTag(Object version, String accept) {
+        MediaType mediaType = JacksonFormats.negotiate(accept);
+        String suffix = "";
+        if (JacksonFormats.APPLICATION_SMILE.equals(mediaType)) {
+            suffix = SMILE_ETAG_SUFFIX;
+        } else if (JacksonFormats.APPLICATION_CBOR.equals(mediaType)) {
+            suffix = CBOR_ETAG_SUFFIX;
+        }
+        return "\"" + version + suffix + "\"";
+    }
+
+    /**
+     * @return The version of a strong Cause ETag of any representation, or
+     *         null if it is not one.
+     */
+    private static Long parseETag(String eTag) {
+        String value = eTag.trim();
+        if (value.length() < 3 || value.charAt(0) != '"'
+                || value.charAt(value.length() - 1) != '"') {
+            return null;
+        }
+        value = value.substring(1, value.length() - 1);
+        for (String suffix : Arrays.asList(SMILE_ETAG_SUFFIX, CBOR_ETAG_SUFFIX)) {
+            if (value.endsWith(suffix)) {
+                value = value.substring(0, value.length() - suffix.length());
+            }
+        }
+        try {
+            return Long.valueOf(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return The distinct fields of a comma separated list, in list order.
+     */
+    private List<String> parseFields(String fields) {
+        Set<String> parsed = new LinkedHashSet<String>();
+        for (String field : fields.split(",")) {
+            if (!field.trim().isEmpty()) {
+                parsed.add(field.trim());
+            }
+        }
+        return new ArrayList<String>(parsed);
     }
 
-}
\ No newline at end of file
+    /**
+     * Parses a sort parameter such as <code>frequency,desc</code>. Causes
+     * with equal values are ordered by id.
+     *
+     * @return The Sort, by default by descending frequency, or null if the
+     *         parameter is invalid.
+     */
+    private Sort parseSort(String sort) {
+        if (sort == null) {
+            return new Sort(Sort.Direction.DESC, "frequency").and(new Sort("id"));
+        }
+        String[] parts = sort.split(",");
+        if (parts.length > 2 || !SORT_PROPERTIES.contains(parts[0])) {
+            return null;
+        }
+        Sort.Direction direction = Sort.Direction.ASC;
+        if (parts.length == 2) {
+            direction = Sort.Direction.fromStringOrNull(parts[1]);
+            if (direction == null) {
+                return null;
+            }
+        }
+        Sort order = new Sort(direction, parts[0]);
+        return "id".equals(parts[0]) ? order : order.and(new Sort("id"));
+    }
+}
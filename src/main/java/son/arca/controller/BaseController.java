@@ -2,11 +2,13 @@ package son.arca.controller;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
 import javax.persistence.NoResultException;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * The BaseController class implements common functionality for all Controller
@@ -38,6 +40,43 @@ public class BaseController {
         return new ResponseEntity<Exception>(HttpStatus.NOT_FOUND);
     }
 
+    /**
+     * Handles OptimisticLockingFailureExceptions thrown when a Cause is
+     * updated with a version other than the stored one, or concurrently.
+     * Creates a response with an empty body and HTTP status code 409,
+     * conflict.
+     *
+     * @param olfe An OptimisticLockingFailureException instance.
+     * @return A ResponseEntity with an empty response body and HTTP status code
+     *         409.
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Exception> handleOptimisticLockingFailureException(
+            OptimisticLockingFailureException olfe) {
+        logger.error("> handleOptimisticLockingFailureException");
+        logger.error("- OptimisticLockingFailureException: ", olfe);
+        logger.error("< handleOptimisticLockingFailureException");
+        return new ResponseEntity<Exception>(HttpStatus.CONFLICT);
+    }
+
+    /**
+     * Handles RejectedExecutionExceptions thrown when the bounded executor
+     * running asynchronous work is saturated. Creates a response with an
+     * empty body and HTTP status code 503, service unavailable.
+     *
+     * @param ree A RejectedExecutionException instance.
+     * @return A ResponseEntity with an empty response body and HTTP status code
+     *         503.
+     */
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<Exception> handleRejectedExecutionException(
+            RejectedExecutionException ree) {
+        logger.error("> handleRejectedExecutionException");
+        logger.error("- RejectedExecutionException: ", ree);
+        logger.error("< handleRejectedExecutionException");
+        return new ResponseEntity<Exception>(HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
     /**
      * Handles all Exceptions not addressed by more specific
      * <code>@ExceptionHandler</code> methods. Creates a response with the
@@ -0,0 +1,29 @@
+package son.arca.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Sends the connections of read-only transactions to a replica and all
+ * other connections to the primary, as chosen by the ReplicaSelector.
+ * <p>
+ * The read-only flag of a transaction is only known once it has begun, so
+ * this DataSource must be wrapped in a LazyConnectionDataSourceProxy, which
+ * fetches the connection on the first statement.
+ *
+ * @author Harrison Mfula
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    private final ReplicaSelector replicaSelector;
+
+    public ReplicaRoutingDataSource(ReplicaSelector replicaSelector) {
+        this.replicaSelector = replicaSelector;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return replicaSelector.select(
+                TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+    }
+}
@@ -0,0 +1,219 @@
+package son.arca.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Chooses the database of each connection of the ReplicaRoutingDataSource.
+ * Connections of read-only transactions go round robin to the replicas
+ * whose lag is at most <code>maxLagMillis</code>, all others to the
+ * primary. If no replica is fresh enough, reads fall back to the primary.
+ * <p>
+ * The lag is measured with a heartbeat: every <code>heartbeatMillis</code>
+ * the current time is written to the ReplicationHeartbeat table of the
+ * primary and read back from each replica. The lag of a replica is the age
+ * of the heartbeat it has, so it includes up to one heartbeat interval. A
+ * replica that cannot be read is unavailable until the next heartbeat.
+ * <p>
+ * Each heartbeat also reads the position of the primary and of every
+ * replica with <code>positionQuery</code>, a count that grows with every
+ * commit. {@link #getPosition()} is never ahead of a replica reads are
+ * routed to: a replica only stays fresh while it has reached the position,
+ * and the position then moves to the lowest replica. Without a fresh
+ * replica reads go to the primary and the position moves to it.
+ *
+ * @author Harrison Mfula
+ */
+public class ReplicaSelector implements PublicMetrics {
+
+    public static final String PRIMARY = "primary";
+
+    /**
+     * The lag reported for a replica that cannot be read.
+     */
+    public static final long UNAVAILABLE = -1;
+
+    private Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final Map<String, DataSource> dataSources = new LinkedHashMap<String, DataSource>();
+    private final JdbcTemplate primary;
+    private final Map<String, JdbcTemplate> replicas = new LinkedHashMap<String, JdbcTemplate>();
+    private final String positionQuery;
+    private final long heartbeatMillis;
+    private final long maxLagMillis;
+
+    private final Map<String, Long> lags = new LinkedHashMap<String, Long>();
+    private volatile List<String> freshReplicas = Collections.emptyList();
+    private volatile long position;
+    private final AtomicInteger next = new AtomicInteger();
+
+    private final AtomicLong primaryConnections = new AtomicLong();
+    private final AtomicLong replicaConnections = new AtomicLong();
+    private final AtomicLong fallbacks = new AtomicLong();
+
+    private ScheduledExecutorService heartbeat;
+
+    /**
+     * @param primary The primary database.
+     * @param replicas The replicas by lookup key.
+     * @param positionQuery Selects the position of a database, a number that
+     *        grows with every commit on the primary.
+     */
+    public ReplicaSelector(DataSource primary, Map<String, DataSource> replicas,
+                           String positionQuery, long heartbeatMillis, long maxLagMillis) {
+        this.dataSources.put(PRIMARY, primary);
+        this.dataSources.putAll(replicas);
+        this.primary = new JdbcTemplate(primary);
+        for (Map.Entry<String, DataSource> replica : replicas.entrySet()) {
+            this.replicas.put(replica.getKey(), new JdbcTemplate(replica.getValue()));
+            this.lags.put(replica.getKey(), UNAVAILABLE);
+        }
+        this.positionQuery = positionQuery;
+        this.heartbeatMillis = heartbeatMillis;
+        this.maxLagMillis = maxLagMillis;
+    }
+
+    @PostConstruct
+    public void start() {
+        heartbeat = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "arca-replica-heartbeat");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        heartbeat.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                refresh();
+            }
+        }, heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        heartbeat.shutdownNow();
+    }
+
+    /**
+     * @param readOnly Whether the connection is for a read-only transaction.
+     * @return The lookup key of the database to connect to.
+     */
+    public String select(boolean readOnly) {
+        if (!readOnly) {
+            primaryConnections.incrementAndGet();
+            return PRIMARY;
+        }
+        List<String> fresh = freshReplicas;
+        if (fresh.isEmpty()) {
+            fallbacks.incrementAndGet();
+            primaryConnections.incrementAndGet();
+            return PRIMARY;
+        }
+        replicaConnections.incrementAndGet();
+        return fresh.get(Math.floorMod(next.getAndIncrement(), fresh.size()));
+    }
+
+    /**
+     * Writes the heartbeat to the primary, measures the lag of every replica
+     * and moves the position.
+     */
+    public synchronized void refresh() {
+        long now = System.currentTimeMillis();
+        Long primaryPosition = null;
+        try {
+            primary.update("UPDATE ReplicationHeartbeat SET beat = ? WHERE id = 1", now);
+            primaryPosition = primary.queryForObject(positionQuery, Long.class);
+        } catch (RuntimeException e) {
+            logger.warn("Could not write the replication heartbeat: {}", e.getMessage());
+        }
+
+        long floor = position;
+        long lowest = Long.MAX_VALUE;
+        List<String> fresh = new ArrayList<String>(replicas.size());
+        for (Map.Entry<String, JdbcTemplate> replica : replicas.entrySet()) {
+            long lag;
+            long applied = UNAVAILABLE;
+            try {
+                Long beat = replica.getValue().queryForObject(
+                        "SELECT beat FROM ReplicationHeartbeat WHERE id = 1", Long.class);
+                applied = replica.getValue().queryForObject(positionQuery, Long.class);
+                lag = Math.max(0, now - beat);
+            } catch (RuntimeException e) {
+                logger.warn("Could not read the replication heartbeat of {}: {}",
+                        replica.getKey(), e.getMessage());
+                lag = UNAVAILABLE;
+            }
+            lags.put(replica.getKey(), lag);
+            if (lag != UNAVAILABLE && lag <= maxLagMillis && applied >= floor) {
+                fresh.add(replica.getKey());
+                lowest = Math.min(lowest, applied);
+            }
+        }
+        // the replicas before the position: a reader of the old position
+        // must only find replicas that have reached it
+        freshReplicas = Collections.unmodifiableList(fresh);
+        if (!fresh.isEmpty()) {
+            position = lowest;
+        } else if (primaryPosition != null) {
+            position = Math.max(floor, primaryPosition);
+        }
+    }
+
+    /**
+     * @return The position every database reads are routed to has reached.
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    /**
+     * @return The primary and the replicas by lookup key.
+     */
+    public Map<String, DataSource> getDataSources() {
+        return Collections.unmodifiableMap(dataSources);
+    }
+
+    /**
+     * @return The replicas reads are sent to.
+     */
+    public List<String> getFreshReplicas() {
+        return freshReplicas;
+    }
+
+    @Override
+    public synchronized Collection<Metric<?>> metrics() {
+        Collection<Metric<?>> metrics = new ArrayList<Metric<?>>();
+        for (Map.Entry<String, Long> lag : lags.entrySet()) {
+            metrics.add(new Metric<Long>("datasource." + lag.getKey() + ".lag",
+                    lag.getValue()));
+        }
+        metrics.add(new Metric<Integer>("datasource.routing.fresh-replicas",
+                freshReplicas.size()));
+        metrics.add(new Metric<Long>("datasource.routing.position", position));
+        metrics.add(new Metric<Long>("datasource.routing.primary", primaryConnections.get()));
+        metrics.add(new Metric<Long>("datasource.routing.replica", replicaConnections.get()));
+        metrics.add(new Metric<Long>("datasource.routing.fallback", fallbacks.get()));
+        return metrics;
+    }
+}
@@ -0,0 +1,56 @@
+package son.arca.event;
+
+import son.arca.model.Cause;
+
+/**
+ * Published by the ArcaServiceBean whenever a Cause is created, updated or
+ * deleted. Listeners that keep derived state (aggregates, caches, push
+ * channels) should consume it with <code>@TransactionalEventListener</code>
+ * so they only observe committed changes.
+ *
+ * @author Harrison Mfula
+ */
+public class CauseChangeEvent {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+
+    private final Type type;
+    private final Long id;
+    private final Cause cause;
+
+    private CauseChangeEvent(Type type, Long id, Cause cause) {
+        this.type = type;
+        this.id = id;
+        this.cause = cause;
+    }
+
+    public static CauseChangeEvent created(Cause cause) {
+        return new CauseChangeEvent(Type.CREATED, cause.getId(), cause.copy());
+    }
+
+    public static CauseChangeEvent updated(Cause cause) {
+        return new CauseChangeEvent(Type.UPDATED, cause.getId(), cause.copy());
+    }
+
+    public static CauseChangeEvent deleted(Long id) {
+        return new CauseChangeEvent(Type.DELETED, id, null);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * @return A detached copy of the Cause as it was written, or null for
+     *         deletions.
+     */
+    public Cause getCause() {
+        return cause;
+    }
+}
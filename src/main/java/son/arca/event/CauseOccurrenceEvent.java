@@ -0,0 +1,36 @@
+package son.arca.event;
+
+/**
+ * Published by the ArcaServiceBean when the frequency of a Cause grows,
+ * carrying the number of new occurrences and when they happened. The
+ * CauseSeriesStore consumes it after commit.
+ *
+ * @author Harrison Mfula
+ */
+public class CauseOccurrenceEvent {
+
+    private final Long causeId;
+    private final long timestamp;
+    private final long occurrences;
+
+    public CauseOccurrenceEvent(Long causeId, long timestamp, long occurrences) {
+        this.causeId = causeId;
+        this.timestamp = timestamp;
+        this.occurrences = occurrences;
+    }
+
+    public Long getCauseId() {
+        return causeId;
+    }
+
+    /**
+     * @return The time of the occurrences in epoch milliseconds.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public long getOccurrences() {
+        return occurrences;
+    }
+}
@@ -0,0 +1,57 @@
+package son.arca.ingest;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Reads the cause name from a column of comma separated lines. A quoted
+ * field may contain commas and doubled quotes; it must not span lines.
+ *
+ * @author Harrison Mfula
+ */
+public class CsvEventParser extends EventParser {
+
+    private final int column;
+
+    /**
+     * @param column The 0-based index of the column holding the cause name.
+     */
+    public CsvEventParser(int column) {
+        this.column = column;
+    }
+
+    @Override
+    protected boolean parseLine(ByteBuffer buffer, int start, int end, NameCounts counts) {
+        int field = 0;
+        int fieldStart = start;
+        boolean quoted = false;
+        for (int i = start; i <= end; i++) {
+            byte b = i < end ? buffer.get(i) : (byte) ',';
+            if (b == '"') {
+                quoted = !quoted;
+            } else if (b == ',' && !quoted) {
+                if (field == column) {
+                    int nameStart = fieldStart;
+                    int nameEnd = i;
+                    if (nameEnd - nameStart >= 2 && buffer.get(nameStart) == '"'
+                            && buffer.get(nameEnd - 1) == '"') {
+                        nameStart++;
+                        nameEnd--;
+                    }
+                    if (nameEnd == nameStart) {
+                        return false;
+                    }
+                    counts.increment(buffer, nameStart, nameEnd);
+                    return true;
+                }
+                field++;
+                fieldStart = i + 1;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String decodeName(byte[] raw) {
+        return super.decodeName(raw).replace("\"\"", "\"");
+    }
+}
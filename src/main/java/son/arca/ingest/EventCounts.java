@@ -0,0 +1,53 @@
+package son.arca.ingest;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * The events counted per cause name in an event file.
+ *
+ * @author Harrison Mfula
+ */
+public class EventCounts {
+
+    private final Map<String, Long> counts;
+    private final long events;
+    private final long malformed;
+    private final long bytes;
+    private final int shards;
+
+    public EventCounts(Map<String, Long> counts, long events, long malformed, long bytes,
+                       int shards) {
+        this.counts = Collections.unmodifiableMap(counts);
+        this.events = events;
+        this.malformed = malformed;
+        this.bytes = bytes;
+        this.shards = shards;
+    }
+
+    /**
+     * @return The number of events per cause name.
+     */
+    public Map<String, Long> getCounts() {
+        return counts;
+    }
+
+    public long getEvents() {
+        return events;
+    }
+
+    /**
+     * @return The number of lines without a cause name.
+     */
+    public long getMalformed() {
+        return malformed;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public int getShards() {
+        return shards;
+    }
+}
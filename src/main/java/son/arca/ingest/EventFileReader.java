@@ -0,0 +1,156 @@
+package son.arca.ingest;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * Counts the events of a file per cause name in parallel. The file is split
+ * into shards at line boundaries; every shard is memory-mapped and parsed
+ * into its own NameCounts on the executor, and the shard counts are merged
+ * by decoded name at the end.
+ *
+ * @author Harrison Mfula
+ */
+public class EventFileReader {
+
+    /**
+     * Shards are kept below the 2 GB a single mapping can cover.
+     */
+    static final long MAX_SHARD_BYTES = 1L << 30;
+
+    private static final int BOUNDARY_BUFFER_SIZE = 8192;
+
+    private final Executor executor;
+    private final int parallelism;
+
+    /**
+     * @param executor Parses the shards.
+     * @param parallelism The number of shards for files below MAX_SHARD_BYTES
+     *                    per shard.
+     */
+    public EventFileReader(Executor executor, int parallelism) {
+        this.executor = executor;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * @param file The event file.
+     * @param parser Parses the lines of the file.
+     * @param header True if the first line of the file is a header.
+     * @return The counts per cause name.
+     * @throws IOException Thrown if the file cannot be read.
+     */
+    public EventCounts read(Path file, final EventParser parser, boolean header)
+            throws IOException {
+        try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            List<Long> boundaries = shardBoundaries(channel, size);
+
+            List<CompletableFuture<NameCounts>> shards =
+                    new ArrayList<CompletableFuture<NameCounts>>();
+            for (int i = 0; i + 1 < boundaries.size(); i++) {
+                final long start = boundaries.get(i);
+                final long end = boundaries.get(i + 1);
+                final boolean skipHeader = header && i == 0;
+                shards.add(CompletableFuture.supplyAsync(new Supplier<NameCounts>() {
+                    @Override
+                    public NameCounts get() {
+                        return parseShard(channel, start, end, parser, skipHeader);
+                    }
+                }, executor));
+            }
+
+            Map<String, Long> counts = new HashMap<String, Long>();
+            long events = 0;
+            long malformed = 0;
+            for (CompletableFuture<NameCounts> shard : shards) {
+                NameCounts shardCounts = join(shard);
+                events += shardCounts.getEvents();
+                malformed += shardCounts.getMalformed();
+                for (int entry = 0; entry < shardCounts.size(); entry++) {
+                    String name = parser.decodeName(shardCounts.name(entry));
+                    Long count = counts.get(name);
+                    counts.put(name, (count == null ? 0 : count) + shardCounts.count(entry));
+                }
+            }
+            return new EventCounts(counts, events, malformed, size, shards.size());
+        }
+    }
+
+    private static NameCounts parseShard(FileChannel channel, long start, long end,
+                                         EventParser parser, boolean skipHeader) {
+        NameCounts counts = new NameCounts();
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start,
+                    end - start);
+            parser.parse(buffer, 0, buffer.limit(), skipHeader, counts);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return counts;
+    }
+
+    /**
+     * @return The start of every shard followed by the size of the file.
+     *         Every shard but the first starts right after a line feed.
+     */
+    private List<Long> shardBoundaries(FileChannel channel, long size) throws IOException {
+        long shardCount = Math.max(parallelism, (size + MAX_SHARD_BYTES - 1) / MAX_SHARD_BYTES);
+        List<Long> boundaries = new ArrayList<Long>();
+        boundaries.add(0L);
+        ByteBuffer buffer = ByteBuffer.allocate(BOUNDARY_BUFFER_SIZE);
+        for (long i = 1; i < shardCount; i++) {
+            long boundary = nextLineStart(channel, size * i / shardCount, size, buffer);
+            if (boundary > boundaries.get(boundaries.size() - 1) && boundary < size) {
+                boundaries.add(boundary);
+            }
+        }
+        if (size > 0) {
+            boundaries.add(size);
+        }
+        return boundaries;
+    }
+
+    private static long nextLineStart(FileChannel channel, long position, long size,
+                                      ByteBuffer buffer) throws IOException {
+        long offset = position;
+        while (offset < size) {
+            buffer.clear();
+            int read = channel.read(buffer, offset);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return offset + i + 1;
+                }
+            }
+            offset += read;
+        }
+        return size;
+    }
+
+    private static NameCounts join(CompletableFuture<NameCounts> shard) throws IOException {
+        try {
+            return shard.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw e;
+        }
+    }
+}
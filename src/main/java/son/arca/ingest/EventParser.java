@@ -0,0 +1,75 @@
+package son.arca.ingest;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Extracts the cause name from each line of an event file. Lines are
+ * separated by LF or CRLF; blank lines are ignored. Parsing works on byte
+ * offsets into the buffer and does not allocate per line.
+ *
+ * @author Harrison Mfula
+ */
+public abstract class EventParser {
+
+    /**
+     * Counts the cause name of every line in <code>[start, end)</code>.
+     *
+     * @param buffer The buffer holding the lines.
+     * @param start The offset of the first line.
+     * @param end The offset after the last line.
+     * @param skipFirstLine True to skip a header line.
+     * @param counts Receives the counts.
+     */
+    public void parse(ByteBuffer buffer, int start, int end, boolean skipFirstLine,
+                      NameCounts counts) {
+        int lineStart = start;
+        boolean skip = skipFirstLine;
+        while (lineStart < end) {
+            int lineEnd = lineStart;
+            while (lineEnd < end && buffer.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            int next = lineEnd + 1;
+            if (lineEnd > lineStart && buffer.get(lineEnd - 1) == '\r') {
+                lineEnd--;
+            }
+
+            if (skip) {
+                skip = false;
+            } else if (!isBlank(buffer, lineStart, lineEnd)
+                    && !parseLine(buffer, lineStart, lineEnd, counts)) {
+                counts.malformed();
+            }
+            lineStart = next;
+        }
+    }
+
+    /**
+     * Decodes a name counted by {@link #parse}.
+     *
+     * @param raw The raw bytes of the name.
+     * @return The cause name.
+     */
+    public String decodeName(byte[] raw) {
+        return new String(raw, StandardCharsets.UTF_8).trim();
+    }
+
+    /**
+     * Counts the cause name of the line in <code>[start, end)</code>.
+     *
+     * @return False if the line has no cause name.
+     */
+    protected abstract boolean parseLine(ByteBuffer buffer, int start, int end,
+                                         NameCounts counts);
+
+    private static boolean isBlank(ByteBuffer buffer, int start, int end) {
+        for (int i = start; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b != ' ' && b != '\t') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,162 @@
+package son.arca.ingest;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Counts events per cause name, keyed by the raw bytes of the name as they
+ * appear in the file. Counting a name that was seen before only hashes and
+ * compares bytes, so it does not allocate; the bytes of a new name are
+ * copied once. Not thread-safe: every shard has its own NameCounts.
+ *
+ * @author Harrison Mfula
+ */
+public final class NameCounts {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private byte[] keys = new byte[1024];
+    private int keysUsed;
+
+    private int[] offsets = new int[INITIAL_CAPACITY];
+    private int[] lengths = new int[INITIAL_CAPACITY];
+    private int[] hashes = new int[INITIAL_CAPACITY];
+    private long[] counts = new long[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * Open addressing table of entry index + 1; 0 marks a free slot.
+     */
+    private int[] table = new int[INITIAL_CAPACITY * 2];
+
+    private long events;
+    private long malformed;
+
+    /**
+     * Counts one event of the name in <code>[start, end)</code> of the buffer.
+     */
+    public void increment(ByteBuffer buffer, int start, int end) {
+        events++;
+        int hash = hash(buffer, start, end);
+        int mask = table.length - 1;
+        int slot = hash & mask;
+        while (true) {
+            int entry = table[slot] - 1;
+            if (entry < 0) {
+                insert(slot, hash, buffer, start, end);
+                return;
+            }
+            if (hashes[entry] == hash && matches(entry, buffer, start, end)) {
+                counts[entry]++;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Counts a line that does not hold a cause name.
+     */
+    public void malformed() {
+        malformed++;
+    }
+
+    /**
+     * @return The number of distinct names.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return The raw bytes of the name of the entry.
+     */
+    public byte[] name(int entry) {
+        return Arrays.copyOfRange(keys, offsets[entry], offsets[entry] + lengths[entry]);
+    }
+
+    public long count(int entry) {
+        return counts[entry];
+    }
+
+    /**
+     * @return The number of events counted.
+     */
+    public long getEvents() {
+        return events;
+    }
+
+    /**
+     * @return The number of lines that did not hold a cause name.
+     */
+    public long getMalformed() {
+        return malformed;
+    }
+
+    private boolean matches(int entry, ByteBuffer buffer, int start, int end) {
+        int length = end - start;
+        if (lengths[entry] != length) {
+            return false;
+        }
+        int offset = offsets[entry];
+        for (int i = 0; i < length; i++) {
+            if (keys[offset + i] != buffer.get(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void insert(int slot, int hash, ByteBuffer buffer, int start, int end) {
+        int length = end - start;
+        if (keysUsed + length > keys.length) {
+            keys = Arrays.copyOf(keys, Math.max(keys.length * 2, keysUsed + length));
+        }
+        for (int i = 0; i < length; i++) {
+            keys[keysUsed + i] = buffer.get(start + i);
+        }
+        if (size == offsets.length) {
+            int capacity = size * 2;
+            offsets = Arrays.copyOf(offsets, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            hashes = Arrays.copyOf(hashes, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+        }
+        offsets[size] = keysUsed;
+        lengths[size] = length;
+        hashes[size] = hash;
+        counts[size] = 1;
+        keysUsed += length;
+        table[slot] = ++size;
+
+        // keep the table at most half full
+        if (size * 2 > table.length) {
+            rehash();
+        }
+    }
+
+    private void rehash() {
+        int[] rehashed = new int[table.length * 2];
+        int mask = rehashed.length - 1;
+        for (int entry = 0; entry < size; entry++) {
+            int slot = hashes[entry] & mask;
+            while (rehashed[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            rehashed[slot] = entry + 1;
+        }
+        table = rehashed;
+    }
+
+    /**
+     * FNV-1a over the bytes.
+     */
+    private static int hash(ByteBuffer buffer, int start, int end) {
+        int hash = 0x811c9dc5;
+        for (int i = start; i < end; i++) {
+            hash ^= buffer.get(i);
+            hash *= 0x01000193;
+        }
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,130 @@
+package son.arca.ingest;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads the cause name from a string field of newline delimited JSON
+ * objects, e.g. <code>{"cell":"A12","cause":"Drop Call Rate"}</code>. The
+ * line is scanned for the quoted field name rather than parsed as a whole,
+ * so the field is expected at the top level of each object.
+ *
+ * @author Harrison Mfula
+ */
+public class NdjsonEventParser extends EventParser {
+
+    private final byte[] key;
+
+    /**
+     * @param field The name of the field holding the cause name.
+     */
+    public NdjsonEventParser(String field) {
+        this.key = ("\"" + field + "\"").getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    protected boolean parseLine(ByteBuffer buffer, int start, int end, NameCounts counts) {
+        int i = indexOfKey(buffer, start, end);
+        if (i < 0) {
+            return false;
+        }
+        i = skipWhitespace(buffer, i + key.length, end);
+        if (i >= end || buffer.get(i) != ':') {
+            return false;
+        }
+        i = skipWhitespace(buffer, i + 1, end);
+        if (i >= end || buffer.get(i) != '"') {
+            return false;
+        }
+
+        int nameStart = i + 1;
+        for (int j = nameStart; j < end; j++) {
+            byte b = buffer.get(j);
+            if (b == '\\') {
+                j++;
+            } else if (b == '"') {
+                if (j == nameStart) {
+                    return false;
+                }
+                counts.increment(buffer, nameStart, j);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String decodeName(byte[] raw) {
+        String name = new String(raw, StandardCharsets.UTF_8);
+        if (name.indexOf('\\') < 0) {
+            return name.trim();
+        }
+
+        StringBuilder decoded = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c != '\\' || i + 1 == name.length()) {
+                decoded.append(c);
+                continue;
+            }
+            char escaped = name.charAt(++i);
+            switch (escaped) {
+                case 'n':
+                    decoded.append('\n');
+                    break;
+                case 't':
+                    decoded.append('\t');
+                    break;
+                case 'r':
+                    decoded.append('\r');
+                    break;
+                case 'b':
+                    decoded.append('\b');
+                    break;
+                case 'f':
+                    decoded.append('\f');
+                    break;
+                case 'u':
+                    if (i + 4 < name.length()) {
+                        try {
+                            decoded.append((char) Integer.parseInt(name.substring(i + 1, i + 5), 16));
+                            i += 4;
+                            break;
+                        } catch (NumberFormatException e) {
+                            // not an escape; keep the text as it is
+                        }
+                    }
+                    decoded.append(escaped);
+                    break;
+                default:
+                    decoded.append(escaped);
+            }
+        }
+        return decoded.toString().trim();
+    }
+
+    private int indexOfKey(ByteBuffer buffer, int start, int end) {
+        int last = end - key.length;
+        for (int i = start; i <= last; i++) {
+            int k = 0;
+            while (k < key.length && buffer.get(i + k) == key[k]) {
+                k++;
+            }
+            if (k == key.length) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int skipWhitespace(ByteBuffer buffer, int i, int end) {
+        while (i < end) {
+            byte b = buffer.get(i);
+            if (b != ' ' && b != '\t') {
+                break;
+            }
+            i++;
+        }
+        return i;
+    }
+}
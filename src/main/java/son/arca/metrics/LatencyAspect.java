@@ -0,0 +1,73 @@
+package son.arca.metrics;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Records the latency of every ArcaService method and of its cache and
+ * repository phases:
+ * <ul>
+ * <li><code>service.{method}</code> for the ArcaService;</li>
+ * <li><code>cache.{class}.get</code> for the cause cache and snapshot;</li>
+ * <li><code>repository.{method}</code> for the ArcaRepository.</li>
+ * </ul>
+ *
+ * @author Harrison Mfula
+ */
+@Aspect
+@Component
+public class LatencyAspect {
+
+    @Autowired
+    private LatencyHistograms latencyHistograms;
+
+    private final ConcurrentMap<Method, LatencyHistograms.Latency> latencies =
+            new ConcurrentHashMap<Method, LatencyHistograms.Latency>();
+
+    @Around("execution(public * son.arca.api.ArcaService+.*(..))")
+    public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+        return proceed(joinPoint, "service.");
+    }
+
+    @Around("execution(public * son.arca.service.CauseCache.get(..))"
+            + " || execution(public * son.arca.service.CauseSnapshotCache.get(..))")
+    public Object timeCache(ProceedingJoinPoint joinPoint) throws Throwable {
+        return proceed(joinPoint, "cache.");
+    }
+
+    @Around("execution(public * son.arca.repository.ArcaRepository+.*(..))")
+    public Object timeRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        return proceed(joinPoint, "repository.");
+    }
+
+    private Object proceed(ProceedingJoinPoint joinPoint, String phase) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        LatencyHistograms.Latency latency = latencies.get(method);
+        if (latency == null) {
+            latency = latencyHistograms.latency(name(phase, method));
+            latencies.putIfAbsent(method, latency);
+        }
+
+        long start = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            latency.recordSince(start);
+        }
+    }
+
+    private static String name(String phase, Method method) {
+        if ("cache.".equals(phase)) {
+            return phase + method.getDeclaringClass().getSimpleName() + "." + method.getName();
+        }
+        return phase + method.getName();
+    }
+}
@@ -0,0 +1,44 @@
+package son.arca.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.actuate.endpoint.AbstractEndpoint;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Actuator endpoint <code>/latency</code> reporting the count, mean,
+ * percentiles and maximum of every latency histogram, in microseconds.
+ *
+ * @author Harrison Mfula
+ */
+@ConfigurationProperties(prefix = "endpoints.latency")
+public class LatencyEndpoint extends AbstractEndpoint<Map<String, Map<String, Object>>> {
+
+    private final LatencyHistograms latencyHistograms;
+
+    public LatencyEndpoint(LatencyHistograms latencyHistograms) {
+        super("latency");
+        this.latencyHistograms = latencyHistograms;
+    }
+
+    @Override
+    public Map<String, Map<String, Object>> invoke() {
+        Map<String, Map<String, Object>> result =
+                new LinkedHashMap<String, Map<String, Object>>();
+        for (Map.Entry<String, Histogram> entry : latencyHistograms.snapshot().entrySet()) {
+            Histogram histogram = entry.getValue();
+            Map<String, Object> values = new LinkedHashMap<String, Object>();
+            values.put("count", histogram.getTotalCount());
+            values.put("mean", histogram.getMean());
+            values.put("p50", histogram.getValueAtPercentile(50.0));
+            values.put("p90", histogram.getValueAtPercentile(90.0));
+            values.put("p99", histogram.getValueAtPercentile(99.0));
+            values.put("p999", histogram.getValueAtPercentile(99.9));
+            values.put("max", histogram.getMaxValue());
+            result.put(entry.getKey(), values);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,101 @@
+package son.arca.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds one HDR latency histogram per name, e.g.
+ * <code>http.ArcaController.getCause</code>, <code>service.findOne</code>,
+ * <code>repository.findOne</code> or <code>serialization.json</code>.
+ * Latencies are recorded in microseconds.
+ * <p>
+ * Callers look a {@link Latency} up once and keep it; recording into it is
+ * wait-free and does not allocate.
+ *
+ * @author Harrison Mfula
+ */
+@Component
+public class LatencyHistograms {
+
+    /**
+     * Longer latencies are recorded as this value.
+     */
+    static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+    /**
+     * Keeps the relative error of the reported values within 1%.
+     */
+    static final int SIGNIFICANT_DIGITS = 2;
+
+    private final ConcurrentMap<String, Latency> latencies =
+            new ConcurrentHashMap<String, Latency>();
+
+    /**
+     * @param name The name of the histogram.
+     * @return The Latency recording into the histogram, created on first use.
+     */
+    public Latency latency(String name) {
+        Latency latency = latencies.get(name);
+        if (latency == null) {
+            Latency created = new Latency();
+            latency = latencies.putIfAbsent(name, created);
+            if (latency == null) {
+                latency = created;
+            }
+        }
+        return latency;
+    }
+
+    /**
+     * @return A copy of every histogram, by name, covering all values
+     *         recorded since startup.
+     */
+    public Map<String, Histogram> snapshot() {
+        Map<String, Histogram> snapshot = new TreeMap<String, Histogram>();
+        for (Map.Entry<String, Latency> entry : latencies.entrySet()) {
+            snapshot.put(entry.getKey(), entry.getValue().snapshot());
+        }
+        return snapshot;
+    }
+
+    /**
+     * Records the latencies of one name.
+     */
+    public static final class Latency {
+
+        private final Recorder recorder =
+                new Recorder(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+
+        private final Histogram total =
+                new Histogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+
+        private Histogram interval;
+
+        Latency() {
+
+        }
+
+        /**
+         * Records the time elapsed since the given start.
+         *
+         * @param startNanos The System.nanoTime() when the timed work started.
+         */
+        public void recordSince(long startNanos) {
+            long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+            recorder.recordValue(Math.max(0, Math.min(micros, HIGHEST_TRACKABLE_MICROS)));
+        }
+
+        synchronized Histogram snapshot() {
+            interval = recorder.getIntervalHistogram(interval);
+            total.add(interval);
+            return total.copy();
+        }
+    }
+}
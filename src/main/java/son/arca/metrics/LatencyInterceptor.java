@@ -0,0 +1,73 @@
+package son.arca.metrics;
+
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Records the latency of every controller endpoint as
+ * <code>http.{controller}.{method}</code>. Requests completed through a
+ * DeferredResult are timed until the result is written, so the start is
+ * kept in a request attribute rather than on the thread; it costs one
+ * StartTime per request.
+ *
+ * @author Harrison Mfula
+ */
+public class LatencyInterceptor extends HandlerInterceptorAdapter {
+
+    private static final String START_ATTRIBUTE = LatencyInterceptor.class.getName() + ".start";
+
+    private final LatencyHistograms latencyHistograms;
+
+    private final ConcurrentMap<Method, LatencyHistograms.Latency> latencies =
+            new ConcurrentHashMap<Method, LatencyHistograms.Latency>();
+
+    public LatencyInterceptor(LatencyHistograms latencyHistograms) {
+        this.latencyHistograms = latencyHistograms;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response,
+                             Object handler) {
+        // the async dispatch of a DeferredResult keeps the original start
+        if (handler instanceof HandlerMethod && request.getAttribute(START_ATTRIBUTE) == null) {
+            request.setAttribute(START_ATTRIBUTE, new StartTime(System.nanoTime()));
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+                                Object handler, Exception ex) {
+        Object start = request.getAttribute(START_ATTRIBUTE);
+        if (!(handler instanceof HandlerMethod) || !(start instanceof StartTime)) {
+            return;
+        }
+
+        Method method = ((HandlerMethod) handler).getMethod();
+        LatencyHistograms.Latency latency = latencies.get(method);
+        if (latency == null) {
+            latency = latencyHistograms.latency("http."
+                    + method.getDeclaringClass().getSimpleName() + "." + method.getName());
+            latencies.putIfAbsent(method, latency);
+        }
+        latency.recordSince(((StartTime) start).nanos);
+    }
+
+    /**
+     * The start of a request in {@link System#nanoTime()}.
+     */
+    private static final class StartTime {
+
+        private final long nanos;
+
+        private StartTime(long nanos) {
+            this.nanos = nanos;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package son.arca.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * A Jackson HttpMessageConverter for a binary format such as Smile or CBOR,
+ * recording the time spent writing response bodies.
+ *
+ * @author Harrison Mfula
+ */
+public class TimedJackson2HttpMessageConverter extends AbstractJackson2HttpMessageConverter {
+
+    private final LatencyHistograms.Latency latency;
+
+    public TimedJackson2HttpMessageConverter(ObjectMapper objectMapper, MediaType mediaType,
+                                             LatencyHistograms.Latency latency) {
+        super(objectMapper, mediaType);
+        this.latency = latency;
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+        long start = System.nanoTime();
+        try {
+            super.writeInternal(object, type, outputMessage);
+        } finally {
+            latency.recordSince(start);
+        }
+    }
+}
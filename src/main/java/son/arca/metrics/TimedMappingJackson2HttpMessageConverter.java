@@ -0,0 +1,37 @@
+package son.arca.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * A MappingJackson2HttpMessageConverter recording the time spent writing
+ * response bodies.
+ *
+ * @author Harrison Mfula
+ */
+public class TimedMappingJackson2HttpMessageConverter extends MappingJackson2HttpMessageConverter {
+
+    private final LatencyHistograms.Latency latency;
+
+    public TimedMappingJackson2HttpMessageConverter(ObjectMapper objectMapper,
+                                                    LatencyHistograms.Latency latency) {
+        super(objectMapper);
+        this.latency = latency;
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+        long start = System.nanoTime();
+        try {
+            super.writeInternal(object, type, outputMessage);
+        } finally {
+            latency.recordSince(start);
+        }
+    }
+}
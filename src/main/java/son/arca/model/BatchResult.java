@@ -0,0 +1,44 @@
+package son.arca.model;
+
+/**
+ * The outcome of one item of a bulk create, update or delete request.
+ *
+ * @author Harrison Mfula
+ */
+public class BatchResult {
+
+    public enum Status {
+        CREATED, UPDATED, DELETED, NOT_FOUND, REJECTED, CONFLICT
+    }
+
+    private final int index;
+    private final Long id;
+    private final Status status;
+    private final String message;
+
+    public BatchResult(int index, Long id, Status status, String message) {
+        this.index = index;
+        this.id = id;
+        this.status = status;
+        this.message = message;
+    }
+
+    /**
+     * @return The position of the item in the request body.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
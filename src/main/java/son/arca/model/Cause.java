@@ -1,8 +1,14 @@
 package son.arca.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
+import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.Version;
 
 /**
  * Model class
@@ -12,13 +18,35 @@ import javax.persistence.Id;
 @Entity
 public class Cause {
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = "cause-sequence")
+    @GenericGenerator(
+            name = "cause-sequence",
+            strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator",
+            parameters = {
+                    @Parameter(name = "sequence_name", value = "cause_seq"),
+                    @Parameter(name = "increment_size", value = "50"),
+                    @Parameter(name = "optimizer", value = "pooled-lo")
+            })
     private Long id;
     private Long frequency;
     private String description;
     private String name;
     private Double total;
 
+    /**
+     * Incremented on every update. An update carrying another version than
+     * the stored one fails with an optimistic locking exception.
+     */
+    @Version
+    private Long version;
+
+    /**
+     * The change sequence of the transaction that last wrote this Cause.
+     * Assigned by the ArcaServiceBean.
+     */
+    @JsonIgnore
+    @Column(name = "change_seq")
+    private Long changeSeq;
 
 
     public Long getFrequency() {
@@ -33,6 +61,22 @@ public class Cause {
     public Cause(){
 
     }
+
+    /**
+     * @return A detached copy of this Cause carrying the same attribute values.
+     */
+    public Cause copy() {
+        Cause copy = new Cause();
+        copy.setId(id);
+        copy.setFrequency(frequency);
+        copy.setDescription(description);
+        copy.setName(name);
+        copy.setTotal(total);
+        copy.setVersion(version);
+        copy.setChangeSeq(changeSeq);
+        return copy;
+    }
+
     public Long getId() {
         return id;
     }
@@ -64,4 +108,20 @@ public class Cause {
     public void setTotal(Double total) {
         this.total = total;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public Long getChangeSeq() {
+        return changeSeq;
+    }
+
+    public void setChangeSeq(Long changeSeq) {
+        this.changeSeq = changeSeq;
+    }
 }
@@ -0,0 +1,43 @@
+package son.arca.model;
+
+import java.util.List;
+
+/**
+ * The causes changed since a high-water mark. A client mirroring the causes
+ * applies them and passes the new high-water mark to its next request.
+ *
+ * @author Harrison Mfula
+ */
+public class CauseChanges {
+
+    private final long highWaterMark;
+    private final List<Cause> changed;
+    private final List<Long> deleted;
+
+    public CauseChanges(long highWaterMark, List<Cause> changed, List<Long> deleted) {
+        this.highWaterMark = highWaterMark;
+        this.changed = changed;
+        this.deleted = deleted;
+    }
+
+    /**
+     * @return The change sequence up to which the changes are complete.
+     */
+    public long getHighWaterMark() {
+        return highWaterMark;
+    }
+
+    /**
+     * @return The causes created or updated, in the order of their changes.
+     */
+    public List<Cause> getChanged() {
+        return changed;
+    }
+
+    /**
+     * @return The ids of the causes deleted.
+     */
+    public List<Long> getDeleted() {
+        return deleted;
+    }
+}
@@ -0,0 +1,34 @@
+package son.arca.model;
+
+/**
+ * The number of occurrences of a cause in a time bucket.
+ *
+ * @author Harrison Mfula
+ */
+public class CauseOccurrence {
+
+    private final Long causeId;
+    private final long start;
+    private final long occurrences;
+
+    public CauseOccurrence(Long causeId, long start, long occurrences) {
+        this.causeId = causeId;
+        this.start = start;
+        this.occurrences = occurrences;
+    }
+
+    public Long getCauseId() {
+        return causeId;
+    }
+
+    /**
+     * @return The start of the bucket in epoch milliseconds.
+     */
+    public long getStart() {
+        return start;
+    }
+
+    public long getOccurrences() {
+        return occurrences;
+    }
+}
@@ -0,0 +1,79 @@
+package son.arca.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * An immutable snapshot of the committed state of a Cause. Instances are
+ * safe to share between threads and are what the cause caches hold. It is
+ * serialized like the Cause it was taken from.
+ *
+ * @author Harrison Mfula
+ */
+public final class CauseView {
+
+    private final Long id;
+    private final Long frequency;
+    private final String description;
+    private final String name;
+    private final Double total;
+    private final Long version;
+    private final Long changeSeq;
+
+    private CauseView(Cause cause) {
+        this.id = cause.getId();
+        this.frequency = cause.getFrequency();
+        this.description = cause.getDescription();
+        this.name = cause.getName();
+        this.total = cause.getTotal();
+        this.version = cause.getVersion();
+        this.changeSeq = cause.getChangeSeq();
+    }
+
+    public static CauseView of(Cause cause) {
+        return new CauseView(cause);
+    }
+
+    /**
+     * @return A new, detached Cause carrying the values of this view.
+     */
+    public Cause toCause() {
+        Cause cause = new Cause();
+        cause.setId(id);
+        cause.setFrequency(frequency);
+        cause.setDescription(description);
+        cause.setName(name);
+        cause.setTotal(total);
+        cause.setVersion(version);
+        cause.setChangeSeq(changeSeq);
+        return cause;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getFrequency() {
+        return frequency;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Double getTotal() {
+        return total;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    @JsonIgnore
+    public Long getChangeSeq() {
+        return changeSeq;
+    }
+}
@@ -0,0 +1,85 @@
+package son.arca.model;
+
+import java.util.Map;
+
+/**
+ * The outcome of the ingestion of an event file.
+ *
+ * @author Harrison Mfula
+ */
+public class IngestionReport {
+
+    private final String file;
+    private final long bytes;
+    private final long events;
+    private final long malformed;
+    private final int shards;
+    private final int causesUpdated;
+    private final Map<String, Long> unmatched;
+    private final long elapsedMillis;
+
+    public IngestionReport(String file, long bytes, long events, long malformed, int shards,
+                           int causesUpdated, Map<String, Long> unmatched,
+                           long elapsedMillis) {
+        this.file = file;
+        this.bytes = bytes;
+        this.events = events;
+        this.malformed = malformed;
+        this.shards = shards;
+        this.causesUpdated = causesUpdated;
+        this.unmatched = unmatched;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public String getFile() {
+        return file;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * @return The number of events counted.
+     */
+    public long getEvents() {
+        return events;
+    }
+
+    /**
+     * @return The number of lines without a cause name.
+     */
+    public long getMalformed() {
+        return malformed;
+    }
+
+    /**
+     * @return The number of shards parsed in parallel.
+     */
+    public int getShards() {
+        return shards;
+    }
+
+    public int getCausesUpdated() {
+        return causesUpdated;
+    }
+
+    /**
+     * @return The events counted per cause name that matched no cause.
+     */
+    public Map<String, Long> getUnmatched() {
+        return unmatched;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * @return The throughput of the whole ingestion, from reading the file
+     *         to writing the frequencies.
+     */
+    public double getEventsPerSecond() {
+        return elapsedMillis == 0 ? events * 1000.0 : events * 1000.0 / elapsedMillis;
+    }
+}
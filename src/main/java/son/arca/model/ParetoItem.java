@@ -0,0 +1,62 @@
+package son.arca.model;
+
+/**
+ * One bar of the Pareto chart: a cause, its frequency, its share of all
+ * occurrences and the cumulative share of all causes ranked up to and
+ * including it.
+ *
+ * @author Harrison Mfula
+ */
+public class ParetoItem {
+
+    private final Long id;
+    private final String name;
+    private final long frequency;
+    private final double share;
+    private final double total;
+    private final Long version;
+
+    public ParetoItem(Long id, String name, long frequency, double share, double total,
+                      Long version) {
+        this.id = id;
+        this.name = name;
+        this.frequency = frequency;
+        this.share = share;
+        this.total = total;
+        this.version = version;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getFrequency() {
+        return frequency;
+    }
+
+    /**
+     * @return The percentage of all occurrences caused by this cause.
+     */
+    public double getShare() {
+        return share;
+    }
+
+    /**
+     * @return The cumulative percentage of all causes ranked up to and
+     *         including this one.
+     */
+    public double getTotal() {
+        return total;
+    }
+
+    /**
+     * @return The version of the cause the item was ranked with.
+     */
+    public Long getVersion() {
+        return version;
+    }
+}
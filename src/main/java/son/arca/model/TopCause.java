@@ -0,0 +1,45 @@
+package son.arca.model;
+
+/**
+ * A cause among the most frequent in a time window, with its estimated
+ * number of occurrences. The estimate is never lower than the exact count
+ * and at most <code>error</code> higher.
+ *
+ * @author Harrison Mfula
+ */
+public class TopCause {
+
+    private final Long id;
+    private final String name;
+    private final long occurrences;
+    private final long error;
+
+    public TopCause(Long id, String name, long occurrences, long error) {
+        this.id = id;
+        this.name = name;
+        this.occurrences = occurrences;
+        this.error = error;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return The estimated occurrences in the window.
+     */
+    public long getOccurrences() {
+        return occurrences;
+    }
+
+    /**
+     * @return How much the estimate may exceed the exact count.
+     */
+    public long getError() {
+        return error;
+    }
+}
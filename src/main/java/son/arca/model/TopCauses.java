@@ -0,0 +1,47 @@
+package son.arca.model;
+
+import java.util.List;
+
+/**
+ * The most frequent causes of a time window, most frequent first.
+ *
+ * @author Harrison Mfula
+ */
+public class TopCauses {
+
+    private final long windowMillis;
+    private final long occurrences;
+    private final long maxError;
+    private final List<TopCause> causes;
+
+    public TopCauses(long windowMillis, long occurrences, long maxError,
+                     List<TopCause> causes) {
+        this.windowMillis = windowMillis;
+        this.occurrences = occurrences;
+        this.maxError = maxError;
+        this.causes = causes;
+    }
+
+    public long getWindowMillis() {
+        return windowMillis;
+    }
+
+    /**
+     * @return The occurrences of all causes in the window.
+     */
+    public long getOccurrences() {
+        return occurrences;
+    }
+
+    /**
+     * @return The bound on the error of every estimate: the occurrences in
+     *         the window divided by the counters per second.
+     */
+    public long getMaxError() {
+        return maxError;
+    }
+
+    public List<TopCause> getCauses() {
+        return causes;
+    }
+}
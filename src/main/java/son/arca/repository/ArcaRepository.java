@@ -1,14 +1,68 @@
 package son.arca.repository;
 
 import son.arca.model.Cause;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
 /**
  * JPA repository
  * @author Harrison Mfula
  * @since 9.2.2016.
  */
 @Repository
-public interface ArcaRepository extends JpaRepository<Cause, Long> {
+public interface ArcaRepository extends JpaRepository<Cause, Long>, ArcaRepositoryCustom {
+
+    /**
+     * Keyset (seek) pagination by primary key. Only the first page of the
+     * supplied Pageable is meaningful; the position is carried by the id of
+     * the last row of the previous page instead of an offset.
+     */
+    List<Cause> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    /**
+     * Streams every Cause in primary key order straight off the JDBC cursor.
+     * Must be consumed inside a transaction and closed by the caller.
+     */
+    @Query("select c from Cause c order by c.id")
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "500"))
+    Stream<Cause> streamAllOrderById();
+
+    List<Cause> findByNameIn(Collection<String> names);
+
+    /**
+     * The query methods below return the first page of the Pageable in its
+     * sort order without counting all matches. They run as scans of the
+     * name and frequency indexes.
+     */
+    List<Cause> findByName(String name, Pageable pageable);
+
+    List<Cause> findByFrequencyGreaterThanEqual(Long minFrequency, Pageable pageable);
+
+    List<Cause> findByNameAndFrequencyGreaterThanEqual(String name, Long minFrequency,
+                                                       Pageable pageable);
+
+    @Query("select c from Cause c")
+    List<Cause> findAllAsList(Pageable pageable);
+
+    /**
+     * @return The sum of the frequencies of all causes.
+     */
+    @Query("select coalesce(sum(c.frequency), 0) from Cause c")
+    long sumFrequency();
+
+    /**
+     * Returns the causes written by the transactions with a change sequence
+     * in <code>(since, before)</code>, in change sequence order.
+     */
+    @Query("select c from Cause c where c.changeSeq > ?1 and c.changeSeq < ?2"
+            + " order by c.changeSeq, c.id")
+    List<Cause> findChanged(long since, long before);
 }
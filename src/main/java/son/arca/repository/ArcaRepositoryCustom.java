@@ -0,0 +1,52 @@
+package son.arca.repository;
+
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bulk operations of the ArcaRepository written against JDBC.
+ *
+ * @author Harrison Mfula
+ */
+public interface ArcaRepositoryCustom {
+
+    /**
+     * Adds <code>deltas[i]</code> to the frequency of every cause named
+     * <code>names[i]</code>, as JDBC batches, and sets their change
+     * sequence. Bypasses the persistence context, which must be flushed
+     * before and cleared after.
+     *
+     * @return The number of causes updated per name.
+     */
+    int[] addFrequencies(List<String> names, List<Long> deltas, long changeSeq);
+
+    /**
+     * Adds <code>deltas[i]</code> to the frequency of the cause with id
+     * <code>ids[i]</code>, as JDBC batches, and sets its change sequence.
+     * Bypasses the persistence context, which must be flushed before and
+     * cleared after.
+     *
+     * @return 1 for each id that was updated, 0 if it does not exist.
+     */
+    int[] addFrequenciesById(List<Long> ids, List<Long> deltas, long changeSeq);
+
+    /**
+     * Returns the given fields of the first <code>top</code> causes in the
+     * given order among those with the given name and a frequency of at
+     * least <code>minFrequency</code>. Only the columns of the fields are
+     * selected.
+     *
+     * @param fields The Cause properties to read: id, name, frequency, total,
+     *        description or version.
+     * @param name The name of the causes, or null for any name.
+     * @param minFrequency The lowest frequency, or null for any frequency.
+     * @param sort The order of the causes.
+     * @param top The number of causes, or zero or less for all of them.
+     * @return The value by property name of each cause, in the order of the
+     *         fields.
+     */
+    List<Map<String, Object>> findFields(List<String> fields, String name, Long minFrequency,
+                                         Sort sort, int top);
+}
@@ -0,0 +1,126 @@
+package son.arca.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import son.arca.model.Cause;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JDBC and Criteria implementation of the ArcaRepositoryCustom operations.
+ * Runs on the connection of the current JPA transaction.
+ *
+ * @author Harrison Mfula
+ */
+public class ArcaRepositoryImpl implements ArcaRepositoryCustom {
+
+    private static final String ADD_FREQUENCY =
+            "UPDATE Cause SET frequency = COALESCE(frequency, 0) + ?, version = version + 1,"
+                    + " change_seq = ? WHERE name = ?";
+
+    private static final String ADD_FREQUENCY_BY_ID =
+            "UPDATE Cause SET frequency = COALESCE(frequency, 0) + ?, version = version + 1,"
+                    + " change_seq = ? WHERE id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+
+    @Override
+    public int[] addFrequencies(List<String> names, List<Long> deltas, long changeSeq) {
+        return addFrequencies(ADD_FREQUENCY, names, deltas, changeSeq);
+    }
+
+    @Override
+    public int[] addFrequenciesById(List<Long> ids, List<Long> deltas, long changeSeq) {
+        return addFrequencies(ADD_FREQUENCY_BY_ID, ids, deltas, changeSeq);
+    }
+
+    @Override
+    public List<Map<String, Object>> findFields(List<String> fields, String name,
+                                                Long minFrequency, Sort sort, int top) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = builder.createTupleQuery();
+        Root<Cause> cause = query.from(Cause.class);
+        List<Selection<?>> selections = new ArrayList<Selection<?>>(fields.size());
+        for (String field : fields) {
+            selections.add(cause.get(field).alias(field));
+        }
+        query.multiselect(selections);
+
+        List<Predicate> predicates = new ArrayList<Predicate>(2);
+        if (name != null) {
+            predicates.add(builder.equal(cause.get("name"), name));
+        }
+        if (minFrequency != null) {
+            predicates.add(builder.greaterThanOrEqualTo(cause.<Long>get("frequency"),
+                    minFrequency));
+        }
+        query.where(predicates.toArray(new Predicate[predicates.size()]));
+        query.orderBy(QueryUtils.toOrders(sort, cause, builder));
+
+        TypedQuery<Tuple> typedQuery = entityManager.createQuery(query);
+        if (top > 0) {
+            typedQuery.setMaxResults(top);
+        }
+
+        List<Tuple> tuples = typedQuery.getResultList();
+        List<Map<String, Object>> rows = new ArrayList<Map<String, Object>>(tuples.size());
+        for (Tuple tuple : tuples) {
+            Map<String, Object> row = new LinkedHashMap<String, Object>(fields.size() * 2);
+            for (String field : fields) {
+                row.put(field, tuple.get(field));
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private int[] addFrequencies(String sql, final List<?> keys, final List<Long> deltas,
+                                 final long changeSeq) {
+        int[] updated = new int[keys.size()];
+        for (int start = 0; start < keys.size(); start += batchSize) {
+            final int first = start;
+            final int size = Math.min(batchSize, keys.size() - start);
+            int[] counts = jdbcTemplate.batchUpdate(sql,
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            ps.setLong(1, deltas.get(first + i));
+                            ps.setLong(2, changeSeq);
+                            ps.setObject(3, keys.get(first + i));
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return size;
+                        }
+                    });
+            System.arraycopy(counts, 0, updated, first, size);
+        }
+        return updated;
+    }
+}
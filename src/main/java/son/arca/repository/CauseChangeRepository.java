@@ -0,0 +1,121 @@
+package son.arca.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JDBC repository of the change sequence of the causes and the tombstones
+ * of deleted causes.
+ *
+ * @author Harrison Mfula
+ */
+@Repository
+public class CauseChangeRepository {
+
+    /**
+     * Selects the number of committed changes of the causes. Also run on
+     * the replicas, to learn which changes they have applied.
+     */
+    public static final String CHANGE_COUNT_QUERY =
+            "SELECT changes FROM CauseChangeCount WHERE id = 1";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * @return The next value of the change sequence. Sequences are not
+     *         transactional: the value is used up even if the transaction
+     *         rolls back.
+     */
+    public long nextChangeSeq() {
+        return jdbcTemplate.queryForObject("CALL NEXT VALUE FOR cause_change_seq",
+                Long.class);
+    }
+
+    /**
+     * Counts the change of the current transaction. The counter row stays
+     * locked until the transaction ends, so the counts follow the order in
+     * which the transactions commit.
+     *
+     * @return The count including the change of the current transaction.
+     */
+    public long incrementChangeCount() {
+        jdbcTemplate.update("UPDATE CauseChangeCount SET changes = changes + 1 WHERE id = 1");
+        return findChangeCount();
+    }
+
+    /**
+     * @return The number of committed changes of the causes, as seen by the
+     *         current transaction.
+     */
+    public long findChangeCount() {
+        return jdbcTemplate.queryForObject(CHANGE_COUNT_QUERY, Long.class);
+    }
+
+    /**
+     * Records the deletion of the causes with the given change sequence.
+     */
+    public void addTombstones(final List<Long> ids, final long changeSeq) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("MERGE INTO CauseTombstone t"
+                        + " USING (VALUES(CAST(? AS BIGINT), CAST(? AS BIGINT)))"
+                        + " AS v(id, change_seq)"
+                        + " ON t.id = v.id"
+                        + " WHEN MATCHED THEN UPDATE SET t.change_seq = v.change_seq"
+                        + " WHEN NOT MATCHED THEN INSERT VALUES v.id, v.change_seq",
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        ps.setLong(1, ids.get(i));
+                        ps.setLong(2, changeSeq);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return ids.size();
+                    }
+                });
+    }
+
+    /**
+     * @return The change sequence by id of the causes deleted with a change
+     *         sequence in <code>(since, before)</code>, in change sequence
+     *         order.
+     */
+    public Map<Long, Long> findTombstones(long since, long before) {
+        final Map<Long, Long> tombstones = new LinkedHashMap<Long, Long>();
+        jdbcTemplate.query("SELECT id, change_seq FROM CauseTombstone"
+                        + " WHERE change_seq > ? AND change_seq < ?"
+                        + " ORDER BY change_seq, id",
+                new RowCallbackHandler() {
+                    @Override
+                    public void processRow(ResultSet rs) throws SQLException {
+                        tombstones.put(rs.getLong(1), rs.getLong(2));
+                    }
+                }, since, before);
+        return tombstones;
+    }
+
+    /**
+     * @return The highest change sequence below <code>before</code> of a
+     *         tombstone, or 0 if there is none.
+     */
+    public long findLastTombstoneSeq(long before) {
+        Long changeSeq = jdbcTemplate.queryForObject(
+                "SELECT MAX(change_seq) FROM CauseTombstone WHERE change_seq < ?",
+                Long.class, before);
+        return changeSeq == null ? 0 : changeSeq;
+    }
+}
@@ -0,0 +1,94 @@
+package son.arca.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import son.arca.model.CauseOccurrence;
+import son.arca.series.Resolution;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * JDBC repository of the cause occurrence buckets. Each Resolution has its
+ * own table keyed by cause id and bucket start.
+ *
+ * @author Harrison Mfula
+ */
+@Repository
+public class CauseOccurrenceRepository {
+
+    private static final RowMapper<CauseOccurrence> ROW_MAPPER = new RowMapper<CauseOccurrence>() {
+        @Override
+        public CauseOccurrence mapRow(ResultSet rs, int rowNum) throws SQLException {
+            return new CauseOccurrence(rs.getLong(1), rs.getLong(2), rs.getLong(3));
+        }
+    };
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Adds the occurrences to their buckets, creating missing buckets.
+     */
+    public void add(Resolution resolution, final List<CauseOccurrence> occurrences) {
+        if (occurrences.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("MERGE INTO " + resolution.getTable() + " t"
+                        + " USING (VALUES(CAST(? AS BIGINT), CAST(? AS BIGINT), CAST(? AS BIGINT)))"
+                        + " AS v(cause_id, bucket_start, occurrences)"
+                        + " ON t.cause_id = v.cause_id AND t.bucket_start = v.bucket_start"
+                        + " WHEN MATCHED THEN UPDATE SET t.occurrences = t.occurrences + v.occurrences"
+                        + " WHEN NOT MATCHED THEN INSERT VALUES v.cause_id, v.bucket_start, v.occurrences",
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        CauseOccurrence occurrence = occurrences.get(i);
+                        ps.setLong(1, occurrence.getCauseId());
+                        ps.setLong(2, occurrence.getStart());
+                        ps.setLong(3, occurrence.getOccurrences());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return occurrences.size();
+                    }
+                });
+    }
+
+    /**
+     * @return The buckets of the cause starting in <code>[from, to)</code>,
+     *         in time order. Empty buckets are not stored.
+     */
+    public List<CauseOccurrence> findByCauseId(Resolution resolution, Long causeId,
+                                               long from, long to) {
+        return jdbcTemplate.query("SELECT cause_id, bucket_start, occurrences FROM "
+                        + resolution.getTable()
+                        + " WHERE cause_id = ? AND bucket_start >= ? AND bucket_start < ?"
+                        + " ORDER BY bucket_start",
+                ROW_MAPPER, causeId, from, to);
+    }
+
+    /**
+     * Deletes the buckets starting before the given time.
+     */
+    public int deleteBefore(Resolution resolution, long before) {
+        return jdbcTemplate.update("DELETE FROM " + resolution.getTable()
+                + " WHERE bucket_start < ?", before);
+    }
+
+    /**
+     * Deletes the buckets of the cause in every resolution.
+     */
+    public void deleteByCauseId(Long causeId) {
+        for (Resolution resolution : Resolution.values()) {
+            jdbcTemplate.update("DELETE FROM " + resolution.getTable()
+                    + " WHERE cause_id = ?", causeId);
+        }
+    }
+}
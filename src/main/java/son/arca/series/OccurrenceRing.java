@@ -0,0 +1,105 @@
+package son.arca.series;
+
+import son.arca.model.CauseOccurrence;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The minute buckets of one cause between two flushes, in a ring indexed by
+ * minute. Occurrences older than the ring, and the counts of slots taken
+ * over by a newer minute, wait in a spill list. The CauseSeriesStore takes
+ * a ring out of use before it writes it, and records new occurrences in a
+ * new one.
+ *
+ * @author Harrison Mfula
+ */
+public class OccurrenceRing {
+
+    private static final long MINUTE = Resolution.MINUTE.getMillis();
+
+    private final Long causeId;
+    private final long[] minutes;
+    private final long[] counts;
+    private final List<CauseOccurrence> spilled = new ArrayList<CauseOccurrence>();
+
+    /**
+     * @param causeId The cause.
+     * @param size The number of minutes kept.
+     */
+    public OccurrenceRing(Long causeId, int size) {
+        this.causeId = causeId;
+        this.minutes = new long[size];
+        this.counts = new long[size];
+        for (int i = 0; i < size; i++) {
+            minutes[i] = Long.MIN_VALUE;
+        }
+    }
+
+    public synchronized void add(long timestamp, long occurrences) {
+        long minute = Resolution.MINUTE.floor(timestamp);
+        int slot = slot(minute);
+        if (minutes[slot] != minute) {
+            if (minute < minutes[slot]) {
+                spilled.add(new CauseOccurrence(causeId, minute, occurrences));
+                return;
+            }
+            spillSlot(slot);
+            minutes[slot] = minute;
+            counts[slot] = 0;
+        }
+        counts[slot] += occurrences;
+    }
+
+    /**
+     * @return The occurrences recorded in the ring, one per minute of a slot
+     *         plus the spilled ones.
+     */
+    public synchronized List<CauseOccurrence> unflushed() {
+        List<CauseOccurrence> unflushed = new ArrayList<CauseOccurrence>(spilled);
+        for (int slot = 0; slot < minutes.length; slot++) {
+            if (counts[slot] > 0) {
+                unflushed.add(new CauseOccurrence(causeId, minutes[slot], counts[slot]));
+            }
+        }
+        return unflushed;
+    }
+
+    /**
+     * Adds the occurrences in <code>[from, to)</code> to the
+     * buckets of the given resolution.
+     */
+    public synchronized void addUnflushed(long from, long to, Resolution resolution,
+                                          Map<Long, Long> buckets) {
+        for (CauseOccurrence occurrence : spilled) {
+            addTo(occurrence.getStart(), occurrence.getOccurrences(), from, to, resolution,
+                    buckets);
+        }
+        for (int slot = 0; slot < minutes.length; slot++) {
+            if (counts[slot] > 0) {
+                addTo(minutes[slot], counts[slot], from, to, resolution, buckets);
+            }
+        }
+    }
+
+    private void spillSlot(int slot) {
+        if (counts[slot] > 0) {
+            spilled.add(new CauseOccurrence(causeId, minutes[slot], counts[slot]));
+        }
+    }
+
+    private int slot(long minute) {
+        return (int) Math.floorMod(minute / MINUTE, (long) minutes.length);
+    }
+
+    private static void addTo(long minute, long occurrences, long from, long to,
+                              Resolution resolution, Map<Long, Long> buckets) {
+        if (minute < from || minute >= to) {
+            return;
+        }
+        long bucket = resolution.floor(minute);
+        Long count = buckets.get(bucket);
+        buckets.put(bucket, (count == null ? 0 : count) + occurrences);
+    }
+}
@@ -0,0 +1,86 @@
+package son.arca.series;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The bucket sizes of the cause occurrence series, each stored in its own
+ * table. Buckets are aligned to UTC.
+ *
+ * @author Harrison Mfula
+ */
+public enum Resolution {
+
+    MINUTE(TimeUnit.MINUTES.toMillis(1), "CauseOccurrenceMinute"),
+    HOUR(TimeUnit.HOURS.toMillis(1), "CauseOccurrenceHour"),
+    DAY(TimeUnit.DAYS.toMillis(1), "CauseOccurrenceDay");
+
+    private final long millis;
+    private final String table;
+
+    Resolution(long millis, String table) {
+        this.millis = millis;
+        this.table = table;
+    }
+
+    public long getMillis() {
+        return millis;
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    /**
+     * @return The start of the bucket holding the timestamp.
+     */
+    public long floor(long timestamp) {
+        return Math.floorDiv(timestamp, millis) * millis;
+    }
+
+    /**
+     * @return The coarsest resolution whose buckets tile a step exactly.
+     */
+    public static Resolution forStep(long stepMillis) {
+        Resolution[] resolutions = values();
+        for (int i = resolutions.length - 1; i >= 0; i--) {
+            if (stepMillis >= resolutions[i].millis && stepMillis % resolutions[i].millis == 0) {
+                return resolutions[i];
+            }
+        }
+        throw new IllegalArgumentException("The step must be a whole number of minutes.");
+    }
+
+    /**
+     * Parses a duration such as <code>30s</code>, <code>5m</code>,
+     * <code>1h</code> or <code>7d</code>, used for series steps and
+     * top-K windows.
+     *
+     * @return The duration in milliseconds.
+     */
+    public static long parseDuration(String step) {
+        if (step == null || step.length() < 2) {
+            throw new IllegalArgumentException("Invalid duration: " + step);
+        }
+        long amount;
+        try {
+            amount = Long.parseLong(step.substring(0, step.length() - 1));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid duration: " + step);
+        }
+        if (amount <= 0) {
+            throw new IllegalArgumentException("Invalid duration: " + step);
+        }
+        switch (step.charAt(step.length() - 1)) {
+            case 's':
+                return TimeUnit.SECONDS.toMillis(amount);
+            case 'm':
+                return TimeUnit.MINUTES.toMillis(amount);
+            case 'h':
+                return TimeUnit.HOURS.toMillis(amount);
+            case 'd':
+                return TimeUnit.DAYS.toMillis(amount);
+            default:
+                throw new IllegalArgumentException("Invalid duration: " + step);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package son.arca.series;
+
+import son.arca.model.TopCause;
+import son.arca.model.TopCauses;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The most frequent causes over a sliding window of up to
+ * <code>windowSeconds</code> seconds. Occurrences are summarized per second
+ * in a SpaceSaving pane of <code>capacity</code> counters, so the memory is
+ * fixed whatever the number of distinct causes; occurrences older than the
+ * window are dropped.
+ * <p>
+ * A query merges the panes of the last seconds. The estimate of a cause is
+ * the sum over the panes of its count, or of the lowest count of panes
+ * without a counter for it. It is never lower than the exact count and
+ * exceeds it by at most the sum of the pane errors, which is at most
+ * <code>N/capacity</code> for <code>N</code> occurrences in the window.
+ *
+ * @author Harrison Mfula
+ */
+public class SlidingTopK {
+
+    private static final long SECOND = 1000;
+
+    private final int capacity;
+    private final long[] seconds;
+    private final SpaceSaving[] panes;
+
+    /**
+     * @param capacity The counters per second.
+     * @param windowSeconds The longest window that can be queried.
+     */
+    public SlidingTopK(int capacity, int windowSeconds) {
+        this.capacity = capacity;
+        this.seconds = new long[windowSeconds];
+        this.panes = new SpaceSaving[windowSeconds];
+        for (int i = 0; i < windowSeconds; i++) {
+            seconds[i] = Long.MIN_VALUE;
+            panes[i] = new SpaceSaving(capacity);
+        }
+    }
+
+    /**
+     * Counts occurrences of a cause.
+     *
+     * @param timestamp When they happened, in epoch milliseconds.
+     */
+    public synchronized void add(long timestamp, Long causeId, long occurrences) {
+        long second = Math.floorDiv(timestamp, SECOND);
+        int slot = (int) Math.floorMod(second, (long) seconds.length);
+        if (seconds[slot] != second) {
+            if (second < seconds[slot]) {
+                // older than the window
+                return;
+            }
+            seconds[slot] = second;
+            panes[slot].clear();
+        }
+        panes[slot].add(causeId, occurrences);
+    }
+
+    /**
+     * Returns the <code>k</code> causes with the highest estimates in the
+     * window ending at <code>now</code>. Names are not set.
+     *
+     * @param windowMillis The length of the window, rounded up to whole
+     *                     seconds; at most the window of the instance.
+     */
+    public synchronized TopCauses top(int k, long windowMillis, long now) {
+        long last = Math.floorDiv(now, SECOND);
+        long first = last - Math.min((windowMillis + SECOND - 1) / SECOND,
+                seconds.length) + 1;
+
+        long total = 0;
+        long minCounts = 0;
+        final Map<Long, long[]> estimates = new HashMap<Long, long[]>();
+        for (int slot = 0; slot < seconds.length; slot++) {
+            if (seconds[slot] < first || seconds[slot] > last) {
+                continue;
+            }
+            SpaceSaving pane = panes[slot];
+            long minCount = pane.minCount();
+            total += pane.getTotal();
+            minCounts += minCount;
+            for (Long causeId : pane.causeIds()) {
+                long[] estimate = estimates.get(causeId);
+                if (estimate == null) {
+                    estimate = new long[2];
+                    estimates.put(causeId, estimate);
+                }
+                estimate[0] += pane.count(causeId) - minCount;
+                estimate[1] += pane.error(causeId) - minCount;
+            }
+        }
+
+        List<Long> causeIds = new ArrayList<Long>(estimates.keySet());
+        Collections.sort(causeIds, new Comparator<Long>() {
+            @Override
+            public int compare(Long a, Long b) {
+                int order = Long.compare(estimates.get(b)[0], estimates.get(a)[0]);
+                return order != 0 ? order : a.compareTo(b);
+            }
+        });
+        List<TopCause> top = new ArrayList<TopCause>(Math.min(k, causeIds.size()));
+        for (Long causeId : causeIds.subList(0, Math.min(k, causeIds.size()))) {
+            long[] estimate = estimates.get(causeId);
+            top.add(new TopCause(causeId, null, estimate[0] + minCounts,
+                    estimate[1] + minCounts));
+        }
+        return new TopCauses((last - first + 1) * SECOND, total, total / capacity, top);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return The longest window that can be queried, in milliseconds.
+     */
+    public long getWindowMillis() {
+        return seconds.length * SECOND;
+    }
+}
@@ -0,0 +1,154 @@
+package son.arca.series;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The SpaceSaving summary of a weighted stream of cause ids: at most
+ * <code>capacity</code> counters, whatever the number of distinct causes.
+ * When a cause without a counter arrives while all counters are taken, it
+ * takes over the counter with the lowest count, keeping that count as its
+ * error.
+ * <p>
+ * For a stream of <code>N</code> occurrences and <code>m</code> counters,
+ * every count is at least the exact count and exceeds it by at most its
+ * error, which is at most the lowest count and at most <code>N/m</code>.
+ * A cause without a counter occurred at most the lowest count times.
+ * <p>
+ * The counters are kept in a binary min-heap on their count, so an add
+ * takes <code>O(log m)</code> and the lowest count is at its root.
+ * <p>
+ * Not thread-safe.
+ *
+ * @author Harrison Mfula
+ */
+public class SpaceSaving {
+
+    private final int capacity;
+    private final Map<Long, Counter> counters;
+    private final Counter[] heap;
+    private long total;
+
+    /**
+     * @param capacity The number of counters.
+     */
+    public SpaceSaving(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The capacity must be positive.");
+        }
+        this.capacity = capacity;
+        this.counters = new HashMap<Long, Counter>(capacity * 2);
+        this.heap = new Counter[capacity];
+    }
+
+    public void add(Long causeId, long occurrences) {
+        total += occurrences;
+        Counter counter = counters.get(causeId);
+        if (counter == null) {
+            int size = counters.size();
+            if (size < capacity) {
+                counter = new Counter(size);
+                heap[size] = counter;
+            } else {
+                counter = heap[0];
+                counters.remove(counter.causeId);
+                counter.error = counter.count;
+            }
+            counter.causeId = causeId;
+            counters.put(causeId, counter);
+        }
+        counter.count += occurrences;
+        siftDown(counter);
+    }
+
+    /**
+     * @return The estimated occurrences of the cause, or 0 if it has no
+     *         counter.
+     */
+    public long count(Long causeId) {
+        Counter counter = counters.get(causeId);
+        return counter == null ? 0 : counter.count;
+    }
+
+    /**
+     * @return How much the count of the cause may exceed its exact count.
+     */
+    public long error(Long causeId) {
+        Counter counter = counters.get(causeId);
+        return counter == null ? 0 : counter.error;
+    }
+
+    /**
+     * @return The most occurrences a cause without a counter may have had:
+     *         the lowest count once all counters are taken, otherwise 0.
+     */
+    public long minCount() {
+        if (counters.size() < capacity) {
+            return 0;
+        }
+        return heap[0].count;
+    }
+
+    /**
+     * @return The causes with a counter.
+     */
+    public Iterable<Long> causeIds() {
+        return counters.keySet();
+    }
+
+    /**
+     * @return The occurrences added.
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public void clear() {
+        counters.clear();
+        Arrays.fill(heap, null);
+        total = 0;
+    }
+
+    /**
+     * Moves a counter whose count grew below its smaller child until the
+     * heap is ordered again. Counts only grow, so it never moves up.
+     */
+    private void siftDown(Counter counter) {
+        int size = counters.size();
+        int index = counter.index;
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && heap[child + 1].count < heap[child].count) {
+                child++;
+            }
+            if (heap[child].count >= counter.count) {
+                break;
+            }
+            heap[index] = heap[child];
+            heap[index].index = index;
+            index = child;
+        }
+        heap[index] = counter;
+        counter.index = index;
+    }
+
+    private static final class Counter {
+
+        private Long causeId;
+        private long count;
+        private long error;
+        private int index;
+
+        private Counter(int index) {
+            this.index = index;
+        }
+    }
+}
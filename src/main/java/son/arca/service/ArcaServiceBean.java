@@ -1,24 +1,48 @@
 package son.arca.service;
 
 
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import son.arca.api.ArcaService;
+import son.arca.api.CauseHandler;
+import son.arca.event.CauseChangeEvent;
+import son.arca.event.CauseOccurrenceEvent;
+import son.arca.model.BatchResult;
 import son.arca.model.Cause;
+import son.arca.model.CauseChanges;
+import son.arca.model.CauseOccurrence;
+import son.arca.model.CauseView;
+import son.arca.model.ParetoItem;
+import son.arca.model.TopCause;
+import son.arca.model.TopCauses;
 import son.arca.repository.ArcaRepository;
+import son.arca.repository.CauseChangeRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.actuate.metrics.CounterService;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.CachePut;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
-import son.arca.util.ArcaConstants;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import javax.persistence.EntityExistsException;
+import javax.persistence.EntityManager;
 import javax.persistence.NoResultException;
+import javax.persistence.PersistenceContext;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * The ArcaServiceBean encapsulates all business behaviors operating on the
@@ -35,6 +59,12 @@ public class ArcaServiceBean implements ArcaService {
 
 
 
+    /**
+     * The Cause properties findFields can return.
+     */
+    private static final List<String> FIELDS =
+            Arrays.asList("id", "name", "frequency", "total", "description", "version");
+
     private Logger logger = LoggerFactory.getLogger(this.getClass());
 
     /**
@@ -49,28 +79,216 @@ public class ArcaServiceBean implements ArcaService {
     @Autowired
     private ArcaRepository arcaServiceRepository;
 
+    /**
+     * Used to detach streamed entities so the persistence context does not
+     * grow with the size of the result set.
+     */
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Publishes CauseChangeEvents to listeners keeping derived state.
+     */
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Keeps the causes ranked by frequency for the Pareto series.
+     */
+    @Autowired
+    private ParetoAggregator paretoAggregator;
+
+    /**
+     * Holds the committed list of all causes for findAll.
+     */
+    @Autowired
+    private CauseSnapshotCache causeSnapshotCache;
+
+    /**
+     * Holds immutable snapshots of committed causes by id.
+     */
+    @Autowired
+    private CauseCache causeCache;
+
+    /**
+     * Keeps the occurrences of the causes over time.
+     */
+    @Autowired
+    private CauseSeriesStore causeSeriesStore;
+
+    /**
+     * Keeps the most frequent causes of the last minutes.
+     */
+    @Autowired
+    private TopCauseTracker topCauseTracker;
+
+    /**
+     * Buffers frequency increments until they are written in batches.
+     */
+    @Autowired
+    private FrequencyIncrementBuffer frequencyIncrementBuffer;
+
+    /**
+     * Counts the committed changes of the causes.
+     */
+    @Autowired
+    private CauseChangeCounter causeChangeCounter;
+
+    /**
+     * Hands out the change sequence of the transactions writing causes.
+     */
+    @Autowired
+    private CauseChangeSequence causeChangeSequence;
+
+    /**
+     * Keeps the tombstones of deleted causes.
+     */
+    @Autowired
+    private CauseChangeRepository causeChangeRepository;
+
+    /**
+     * The number of entities written before the persistence context is
+     * flushed and cleared by the bulk operations. Matches the JDBC batch size.
+     */
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+
     @Override
-    public Collection<Cause> findAll() {
+    public Collection<CauseView> findAll() {
         logger.info("> findAll");
 
         counterService.increment("method.invoked.ArcaServiceBean.findAll");
 
-        Collection<Cause> causes = arcaServiceRepository.findAll();
+        Collection<CauseView> causes = null;
+        if (isWriteTransactionActive()) {
+            causes = viewsOf(arcaServiceRepository.findAll(new Sort("id")));
+        } else {
+            causes = causeSnapshotCache.get();
+        }
+        if (causes == null) {
+            causes = viewsOf(arcaServiceRepository.findAll(new Sort("id")));
+        }
 
         logger.info("< findAll");
         return causes;
     }
 
     @Override
-    @Cacheable(
-            value = ArcaConstants.ARCA_CACHE_NAME,
-            key = "#id")
+    public Collection<Cause> findAll(String name, Long minFrequency, Sort sort, int top) {
+        logger.info("> findAll name:{} minFrequency:{} sort:{} top:{}", name, minFrequency,
+                sort, top);
+
+        counterService.increment("method.invoked.ArcaServiceBean.findAllMatching");
+
+        PageRequest page = new PageRequest(0, top > 0 ? top : Integer.MAX_VALUE, sort);
+        Collection<Cause> causes;
+        if (name != null && minFrequency != null) {
+            causes = arcaServiceRepository.findByNameAndFrequencyGreaterThanEqual(name,
+                    minFrequency, page);
+        } else if (name != null) {
+            causes = arcaServiceRepository.findByName(name, page);
+        } else if (minFrequency != null) {
+            causes = arcaServiceRepository.findByFrequencyGreaterThanEqual(minFrequency, page);
+        } else {
+            causes = arcaServiceRepository.findAllAsList(page);
+        }
+
+        logger.info("< findAll name:{} minFrequency:{} sort:{} top:{}", name, minFrequency,
+                sort, top);
+        return causes;
+    }
+
+    @Override
+    public Collection<Map<String, Object>> findFields(List<String> fields, String name,
+                                                      Long minFrequency, Sort sort, int top) {
+        logger.info("> findFields fields:{} name:{} minFrequency:{} sort:{} top:{}", fields,
+                name, minFrequency, sort, top);
+
+        counterService.increment("method.invoked.ArcaServiceBean.findFields");
+
+        if (fields.isEmpty() || !FIELDS.containsAll(fields)) {
+            throw new IllegalArgumentException("The fields must be some of " + FIELDS + ".");
+        }
+
+        Collection<Map<String, Object>> causes = arcaServiceRepository.findFields(fields,
+                name, minFrequency, sort, top);
+
+        logger.info("< findFields fields:{} name:{} minFrequency:{} sort:{} top:{}", fields,
+                name, minFrequency, sort, top);
+        return causes;
+    }
+
+    @Override
+    public Collection<Cause> findAllAfter(Long afterId, int size) {
+        logger.info("> findAllAfter afterId:{} size:{}", afterId, size);
+
+        counterService.increment("method.invoked.ArcaServiceBean.findAllAfter");
+
+        Collection<Cause> causes = arcaServiceRepository
+                .findByIdGreaterThanOrderByIdAsc(afterId, new PageRequest(0, size));
+
+        logger.info("< findAllAfter afterId:{} size:{}", afterId, size);
+        return causes;
+    }
+
+    @Override
+    @Transactional(
+            propagation = Propagation.REQUIRED,
+            readOnly = true)
+    public void streamAll(CauseHandler handler) throws IOException {
+        logger.info("> streamAll");
+
+        counterService.increment("method.invoked.ArcaServiceBean.streamAll");
+
+        long count = 0;
+        try (Stream<Cause> causes = arcaServiceRepository.streamAllOrderById()) {
+            Iterator<Cause> iterator = causes.iterator();
+            while (iterator.hasNext()) {
+                Cause cause = iterator.next();
+                handler.handle(cause);
+                entityManager.detach(cause);
+                count++;
+            }
+        }
+
+        logger.info("< streamAll count:{}", count);
+    }
+
+    @Override
+    public List<ParetoItem> findPareto(int top) {
+        logger.info("> findPareto top:{}", top);
+
+        counterService.increment("method.invoked.ArcaServiceBean.findPareto");
+
+        List<ParetoItem> items = paretoAggregator.top(top);
+
+        logger.info("< findPareto top:{}", top);
+        return items;
+    }
+
+    @Override
     public Cause findOne(Long id) {
         logger.info("> findOne id:{}", id);
 
         counterService.increment("method.invoked.ArcaServiceBean.findOne");
 
+        boolean cacheable = !isWriteTransactionActive();
+        if (cacheable) {
+            CauseView view = causeCache.get(id);
+            if (view != null) {
+                logger.info("< findOne id:{}", id);
+                return view.toCause();
+            }
+        }
+
+        // a replica that has not applied a commit of this instance may still
+        // hold the row the commit evicted; its read is not cached
+        boolean fillable = cacheable && causeChangeCounter.isReplicaCurrent();
+        long generation = causeCache.generation(id);
         Cause cause = arcaServiceRepository.findOne(id);
+        if (fillable && cause != null) {
+            causeCache.putLoaded(generation, cause);
+        }
 
         logger.info("< findOne id:{}", id);
         return cause;
@@ -80,9 +298,6 @@ public class ArcaServiceBean implements ArcaService {
     @Transactional(
             propagation = Propagation.REQUIRED,
             readOnly = false)
-    @CachePut(
-            value = ArcaConstants.ARCA_CACHE_NAME,
-            key = "#result.id")
     public Cause create(Cause cause) {
         logger.info("> create");
 
@@ -95,7 +310,11 @@ public class ArcaServiceBean implements ArcaService {
                     "The id attribute must be null to persist a new entity.");
         }
 
+        // the version is assigned on insert
+        cause.setVersion(null);
+        cause.setChangeSeq(causeChangeSequence.current());
         Cause savedCause = arcaServiceRepository.save(cause);
+        eventPublisher.publishEvent(CauseChangeEvent.created(savedCause));
 
         logger.info("< create");
         return savedCause;
@@ -105,26 +324,34 @@ public class ArcaServiceBean implements ArcaService {
     @Transactional(
             propagation = Propagation.REQUIRED,
             readOnly = false)
-    @CachePut(
-            value = ArcaConstants.ARCA_CACHE_NAME,
-            key = "#cause.id")
     public Cause update(Cause cause) {
         logger.info("> update id:{}", cause.getId());
 
         counterService.increment("method.invoked.ArcaServiceBean.update");
 
-        Cause causeToUpdate = findOne(cause.getId());
+        Cause causeToUpdate = arcaServiceRepository.findOne(cause.getId());
         if (causeToUpdate == null) {
             logger.error(
                     "Attempted to update a Cause, but the entity does not exist.");
             throw new NoResultException("Requested entity not found.");
         }
+        if (isStale(cause, causeToUpdate)) {
+            logger.error(
+                    "Attempted to update a Cause, but its version is not the stored version.");
+            throw new ObjectOptimisticLockingFailureException(Cause.class, cause.getId());
+        }
 
+        Long previousFrequency = causeToUpdate.getFrequency();
         causeToUpdate.setName(cause.getName());
         causeToUpdate.setFrequency(cause.getFrequency());
         causeToUpdate.setTotal(cause.getTotal());
         causeToUpdate.setDescription(cause.getDescription());
-        Cause updatedCause = arcaServiceRepository.save(causeToUpdate);
+        causeToUpdate.setChangeSeq(causeChangeSequence.current());
+        // the version is incremented on flush; the event must carry it
+        Cause updatedCause = arcaServiceRepository.saveAndFlush(causeToUpdate);
+        eventPublisher.publishEvent(CauseChangeEvent.updated(updatedCause));
+        publishOccurrences(updatedCause.getId(), previousFrequency,
+                updatedCause.getFrequency());
 
         logger.info("< update id:{}", cause.getId());
         return updatedCause;
@@ -134,25 +361,366 @@ public class ArcaServiceBean implements ArcaService {
     @Transactional(
             propagation = Propagation.REQUIRED,
             readOnly = false)
-    @CacheEvict(
-            value = ArcaConstants.ARCA_CACHE_NAME,
-            key = "#id")
     public void delete(Long id) {
         logger.info("> delete id:{}", id);
 
         counterService.increment("method.invoked.ArcaServiceBean.delete");
 
         arcaServiceRepository.delete(id);
+        causeChangeRepository.addTombstones(Collections.singletonList(id),
+                causeChangeSequence.current());
+        eventPublisher.publishEvent(CauseChangeEvent.deleted(id));
 
         logger.info("< delete id:{}", id);
     }
 
     @Override
-    @CacheEvict(
-            value = ArcaConstants.ARCA_CACHE_NAME,
-            allEntries = true)
+    @Transactional(
+            propagation = Propagation.REQUIRED,
+            readOnly = false)
+    public List<BatchResult> createAll(List<Cause> causes) {
+        logger.info("> createAll size:{}", causes.size());
+
+        counterService.increment("method.invoked.ArcaServiceBean.createAll");
+
+        List<BatchResult> results = new ArrayList<BatchResult>(causes.size());
+        int pending = 0;
+        for (int index = 0; index < causes.size(); index++) {
+            Cause cause = causes.get(index);
+            if (cause == null || cause.getId() != null) {
+                results.add(new BatchResult(index, cause == null ? null : cause.getId(),
+                        BatchResult.Status.REJECTED,
+                        "The id attribute must be null to persist a new entity."));
+                continue;
+            }
+
+            cause.setVersion(null);
+            cause.setChangeSeq(causeChangeSequence.current());
+            Cause savedCause = arcaServiceRepository.save(cause);
+            eventPublisher.publishEvent(CauseChangeEvent.created(savedCause));
+            results.add(new BatchResult(index, savedCause.getId(),
+                    BatchResult.Status.CREATED, null));
+
+            if (++pending == batchSize) {
+                flushAndClear();
+                pending = 0;
+            }
+        }
+
+        logger.info("< createAll size:{}", causes.size());
+        return results;
+    }
+
+    @Override
+    @Transactional(
+            propagation = Propagation.REQUIRED,
+            readOnly = false)
+    public List<BatchResult> updateAll(List<Cause> causes) {
+        logger.info("> updateAll size:{}", causes.size());
+
+        counterService.increment("method.invoked.ArcaServiceBean.updateAll");
+
+        List<BatchResult> results = new ArrayList<BatchResult>(causes.size());
+        for (int start = 0; start < causes.size(); start += batchSize) {
+            List<Cause> chunk = causes.subList(start,
+                    Math.min(start + batchSize, causes.size()));
+            Map<Long, Cause> existing = findAllById(idsOf(chunk));
+            List<Cause> updatedCauses = new ArrayList<Cause>(chunk.size());
+
+            for (int offset = 0; offset < chunk.size(); offset++) {
+                int index = start + offset;
+                Cause cause = chunk.get(offset);
+                if (cause == null || cause.getId() == null) {
+                    results.add(new BatchResult(index, null,
+                            BatchResult.Status.REJECTED,
+                            "The id attribute must not be null to update an entity."));
+                    continue;
+                }
+
+                Cause causeToUpdate = existing.get(cause.getId());
+                if (causeToUpdate == null) {
+                    results.add(new BatchResult(index, cause.getId(),
+                            BatchResult.Status.NOT_FOUND,
+                            "Requested entity not found."));
+                    continue;
+                }
+                if (isStale(cause, causeToUpdate)) {
+                    results.add(new BatchResult(index, cause.getId(),
+                            BatchResult.Status.CONFLICT,
+                            "The version attribute is not the stored version."));
+                    continue;
+                }
+
+                Long previousFrequency = causeToUpdate.getFrequency();
+                causeToUpdate.setName(cause.getName());
+                causeToUpdate.setFrequency(cause.getFrequency());
+                causeToUpdate.setTotal(cause.getTotal());
+                causeToUpdate.setDescription(cause.getDescription());
+                causeToUpdate.setChangeSeq(causeChangeSequence.current());
+                updatedCauses.add(causeToUpdate);
+                publishOccurrences(causeToUpdate.getId(), previousFrequency,
+                        causeToUpdate.getFrequency());
+                results.add(new BatchResult(index, cause.getId(),
+                        BatchResult.Status.UPDATED, null));
+            }
+
+            // the versions are incremented on flush; the events must carry them
+            entityManager.flush();
+            for (Cause updatedCause : updatedCauses) {
+                eventPublisher.publishEvent(CauseChangeEvent.updated(updatedCause));
+            }
+            entityManager.clear();
+        }
+
+        logger.info("< updateAll size:{}", causes.size());
+        return results;
+    }
+
+    @Override
+    @Transactional(
+            propagation = Propagation.REQUIRED,
+            readOnly = false)
+    public List<BatchResult> deleteAll(List<Long> ids) {
+        logger.info("> deleteAll size:{}", ids.size());
+
+        counterService.increment("method.invoked.ArcaServiceBean.deleteAll");
+
+        List<BatchResult> results = new ArrayList<BatchResult>(ids.size());
+        for (int start = 0; start < ids.size(); start += batchSize) {
+            List<Long> chunk = ids.subList(start,
+                    Math.min(start + batchSize, ids.size()));
+            Map<Long, Cause> existing = findAllById(chunk);
+            arcaServiceRepository.deleteInBatch(existing.values());
+            causeChangeRepository.addTombstones(new ArrayList<Long>(existing.keySet()),
+                    causeChangeSequence.current());
+
+            for (int offset = 0; offset < chunk.size(); offset++) {
+                int index = start + offset;
+                Long id = chunk.get(offset);
+                if (id == null || existing.remove(id) == null) {
+                    results.add(new BatchResult(index, id,
+                            BatchResult.Status.NOT_FOUND,
+                            "Requested entity not found."));
+                    continue;
+                }
+
+                eventPublisher.publishEvent(CauseChangeEvent.deleted(id));
+                results.add(new BatchResult(index, id,
+                        BatchResult.Status.DELETED, null));
+            }
+
+            flushAndClear();
+        }
+
+        logger.info("< deleteAll size:{}", ids.size());
+        return results;
+    }
+
+    @Override
+    @Transactional(
+            propagation = Propagation.REQUIRED,
+            readOnly = false)
+    public Collection<Cause> addFrequencies(Map<String, Long> deltas) {
+        logger.info("> addFrequencies size:{}", deltas.size());
+
+        counterService.increment("method.invoked.ArcaServiceBean.addFrequencies");
+
+        List<String> names = new ArrayList<String>(deltas.size());
+        List<Long> values = new ArrayList<Long>(deltas.size());
+        for (Map.Entry<String, Long> entry : deltas.entrySet()) {
+            names.add(entry.getKey());
+            values.add(entry.getValue());
+        }
+
+        // the updates bypass the persistence context
+        entityManager.flush();
+        arcaServiceRepository.addFrequencies(names, values, causeChangeSequence.current());
+        entityManager.clear();
+
+        List<Cause> updatedCauses = new ArrayList<Cause>();
+        for (int start = 0; start < names.size(); start += batchSize) {
+            List<String> chunk = names.subList(start,
+                    Math.min(start + batchSize, names.size()));
+            for (Cause cause : arcaServiceRepository.findByNameIn(chunk)) {
+                eventPublisher.publishEvent(CauseChangeEvent.updated(cause));
+                Long delta = deltas.get(cause.getName());
+                publishOccurrences(cause.getId(), 0L, delta);
+                updatedCauses.add(cause);
+            }
+        }
+
+        logger.info("< addFrequencies size:{}", deltas.size());
+        return updatedCauses;
+    }
+
+    @Override
+    public void increment(Long id, long by) {
+        logger.info("> increment id:{} by:{}", id, by);
+
+        counterService.increment("method.invoked.ArcaServiceBean.increment");
+
+        frequencyIncrementBuffer.add(id, by);
+
+        logger.info("< increment id:{} by:{}", id, by);
+    }
+
+    @Override
+    public List<CauseOccurrence> findSeries(Long id, long from, long to, long stepMillis) {
+        logger.info("> findSeries id:{} from:{} to:{} step:{}", id, from, to, stepMillis);
+
+        counterService.increment("method.invoked.ArcaServiceBean.findSeries");
+
+        List<CauseOccurrence> series = null;
+        if (arcaServiceRepository.exists(id)) {
+            series = causeSeriesStore.findSeries(id, from, to, stepMillis);
+        }
+
+        logger.info("< findSeries id:{} from:{} to:{} step:{}", id, from, to, stepMillis);
+        return series;
+    }
+
+    @Override
+    public TopCauses findTop(int k, long windowMillis) {
+        logger.info("> findTop k:{} window:{}", k, windowMillis);
+
+        counterService.increment("method.invoked.ArcaServiceBean.findTop");
+
+        TopCauses top = topCauseTracker.top(k, windowMillis);
+        List<Long> ids = new ArrayList<Long>(top.getCauses().size());
+        for (TopCause cause : top.getCauses()) {
+            ids.add(cause.getId());
+        }
+        Map<Long, Cause> causes = findAllById(ids);
+        List<TopCause> named = new ArrayList<TopCause>(ids.size());
+        for (TopCause cause : top.getCauses()) {
+            Cause existing = causes.get(cause.getId());
+            // deleted causes keep their counters until they age out
+            if (existing != null) {
+                named.add(new TopCause(cause.getId(), existing.getName(),
+                        cause.getOccurrences(), cause.getError()));
+            }
+        }
+
+        logger.info("< findTop k:{} window:{}", k, windowMillis);
+        return new TopCauses(top.getWindowMillis(), top.getOccurrences(),
+                top.getMaxError(), named);
+    }
+
+    @Override
+    @Transactional(
+            propagation = Propagation.REQUIRED,
+            readOnly = false)
+    public CauseChanges findChanges(Long since) {
+        logger.info("> findChanges since:{}", since);
+
+        counterService.increment("method.invoked.ArcaServiceBean.findChanges");
+
+        // not read-only so it runs on the primary; a lagging replica could
+        // miss changes below the high-water mark. Changes at or above the
+        // lowest change sequence in flight are left for the next call.
+        long before = causeChangeSequence.lowestInFlight();
+        long from = since == null ? -1 : since;
+        List<Cause> changed = arcaServiceRepository.findChanged(from, before);
+        long highWaterMark = since == null ? 0 : since;
+        for (Cause cause : changed) {
+            highWaterMark = Math.max(highWaterMark, cause.getChangeSeq());
+        }
+
+        List<Long> deleted = new ArrayList<Long>();
+        if (since != null) {
+            for (Map.Entry<Long, Long> tombstone
+                    : causeChangeRepository.findTombstones(since, before).entrySet()) {
+                deleted.add(tombstone.getKey());
+                highWaterMark = Math.max(highWaterMark, tombstone.getValue());
+            }
+        } else {
+            // a client starting over has no use for the earlier deletions
+            highWaterMark = Math.max(highWaterMark,
+                    causeChangeRepository.findLastTombstoneSeq(before));
+        }
+
+        logger.info("< findChanges since:{}", since);
+        return new CauseChanges(highWaterMark, changed, deleted);
+    }
+
+    @Override
+    public String getCollectionVersion() {
+        return causeChangeCounter.version();
+    }
+
+    @Override
     public void evictCache() {
         logger.info("> evictCache");
+        causeCache.clear();
+        causeSnapshotCache.invalidate();
         logger.info("< evictCache");
     }
-}
\ No newline at end of file
+
+    /**
+     * A transaction that writes must see its own uncommitted changes, which
+     * the caches of committed state do not contain, and must not put them in
+     * those caches.
+     */
+    private boolean isWriteTransactionActive() {
+        return TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    /**
+     * Publishes the growth of a frequency as new occurrences of the cause.
+     */
+    private void publishOccurrences(Long id, Long previousFrequency, Long frequency) {
+        long occurrences = (frequency == null ? 0 : frequency)
+                - (previousFrequency == null ? 0 : previousFrequency);
+        if (occurrences > 0) {
+            eventPublisher.publishEvent(new CauseOccurrenceEvent(id,
+                    System.currentTimeMillis(), occurrences));
+        }
+    }
+
+    /**
+     * @return True if the update carries a version and it is not the version
+     *         of the stored cause.
+     */
+    private boolean isStale(Cause cause, Cause storedCause) {
+        return cause.getVersion() != null
+                && !cause.getVersion().equals(storedCause.getVersion());
+    }
+
+    private List<CauseView> viewsOf(List<Cause> causes) {
+        List<CauseView> views = new ArrayList<CauseView>(causes.size());
+        for (Cause cause : causes) {
+            views.add(CauseView.of(cause));
+        }
+        return views;
+    }
+
+    private List<Long> idsOf(List<Cause> causes) {
+        List<Long> ids = new ArrayList<Long>(causes.size());
+        for (Cause cause : causes) {
+            if (cause != null && cause.getId() != null) {
+                ids.add(cause.getId());
+            }
+        }
+        return ids;
+    }
+
+    private Map<Long, Cause> findAllById(List<Long> ids) {
+        List<Long> lookup = new ArrayList<Long>(ids.size());
+        for (Long id : ids) {
+            if (id != null) {
+                lookup.add(id);
+            }
+        }
+        Map<Long, Cause> causes = new HashMap<Long, Cause>();
+        for (Cause cause : arcaServiceRepository.findAll(lookup)) {
+            causes.put(cause.getId(), cause);
+        }
+        return causes;
+    }
+
+    private void flushAndClear() {
+        entityManager.flush();
+        entityManager.clear();
+    }
+}
@@ -0,0 +1,108 @@
+package son.arca.service;
+
+import com.google.common.util.concurrent.Striped;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import son.arca.event.CauseChangeEvent;
+import son.arca.model.Cause;
+import son.arca.model.CauseView;
+import son.arca.util.ArcaConstants;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Maintains the per-id cause cache. The cache only ever holds immutable
+ * CauseView snapshots of committed state:
+ * <ul>
+ * <li>committed writes evict the entry after commit, rather than put it,
+ * because the listeners of two concurrent commits may run in either order;</li>
+ * <li>a value loaded from the database is only cached if no write has
+ * committed since the load began, so a slow reader cannot overwrite a newer
+ * value with the one it read before the commit.</li>
+ * </ul>
+ * The commits are counted per lock stripe, so a commit only keeps the loads
+ * of the ids sharing its stripe out of the cache.
+ *
+ * @author Harrison Mfula
+ */
+@Component
+public class CauseCache {
+
+    private static final int STRIPES = 64;
+
+    private final Striped<Lock> locks = Striped.lock(STRIPES);
+
+    private final AtomicLongArray generations = new AtomicLongArray(STRIPES);
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    public CauseView get(Long id) {
+        Cache.ValueWrapper wrapper = cache().get(id);
+        return wrapper == null ? null : (CauseView) wrapper.get();
+    }
+
+    /**
+     * @return The write generation of the id to pass to {@link #putLoaded}
+     *         when its value is loaded from the database.
+     */
+    public long generation(Long id) {
+        return generations.get(stripe(id));
+    }
+
+    /**
+     * Caches a Cause loaded from the database, unless a write committed
+     * after the given generation was taken.
+     */
+    public void putLoaded(long loadGeneration, Cause cause) {
+        int stripe = stripe(cause.getId());
+        Lock lock = locks.getAt(stripe);
+        lock.lock();
+        try {
+            if (loadGeneration == generations.get(stripe)) {
+                cache().putIfAbsent(cause.getId(), CauseView.of(cause));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Applies a committed change to the cache.
+     *
+     * @param event The change published by the ArcaServiceBean.
+     */
+    @Order(CauseChangeCounter.CACHE_ORDER)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCauseChange(CauseChangeEvent event) {
+        int stripe = stripe(event.getId());
+        Lock lock = locks.getAt(stripe);
+        lock.lock();
+        try {
+            generations.incrementAndGet(stripe);
+            cache().evict(event.getId());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void clear() {
+        for (int stripe = 0; stripe < STRIPES; stripe++) {
+            generations.incrementAndGet(stripe);
+        }
+        cache().clear();
+    }
+
+    private int stripe(Long id) {
+        return (id.hashCode() & Integer.MAX_VALUE) % STRIPES;
+    }
+
+    private Cache cache() {
+        return cacheManager.getCache(ArcaConstants.ARCA_CACHE_NAME);
+    }
+}
@@ -0,0 +1,356 @@
+package son.arca.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import son.arca.event.CauseChangeEvent;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pushes the committed changes of the causes to Server-Sent Events
+ * subscribers. Each change is serialized once and offered to a bounded
+ * buffer per subscriber; a small pool of sender threads drains the buffers
+ * that have events, so open connections hold no thread while idle.
+ * <p>
+ * A subscriber whose buffer is full is too slow to keep up and is evicted:
+ * its stream is completed and the client reconnects and reloads. So is a
+ * subscriber still being written to <code>arca.stream.send-timeout-millis</code>
+ * after the write started, when its next event is due: its buffer is freed
+ * and its sender thread only finishes the stuck write, which the servlet
+ * container bounds by its own write timeout. Completing and sending are
+ * left to the sender threads, so a slow connection never blocks the thread
+ * committing a change. A comment is sent every
+ * <code>arca.stream.heartbeat-seconds</code> to keep idle connections open
+ * through proxies and to find closed ones.
+ *
+ * @author Harrison Mfula
+ */
+@Component
+public class CauseChangeBroadcaster implements PublicMetrics {
+
+    /**
+     * The name of the events carrying cause changes.
+     */
+    public static final String EVENT_NAME = "cause";
+
+    private Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${arca.stream.buffer-size:256}")
+    private int bufferSize;
+
+    @Value("${arca.stream.max-subscribers:10000}")
+    private int maxSubscribers;
+
+    @Value("${arca.stream.timeout-millis:1800000}")
+    private long timeoutMillis;
+
+    @Value("${arca.stream.heartbeat-seconds:15}")
+    private long heartbeatSeconds;
+
+    @Value("${arca.stream.sender-threads:4}")
+    private int senderThreads;
+
+    @Value("${arca.stream.send-timeout-millis:5000}")
+    private long sendTimeoutMillis;
+
+    private final Set<Subscriber> subscribers =
+            ConcurrentHashMap.<Subscriber>newKeySet();
+
+    private ExecutorService sender;
+
+    private ScheduledExecutorService heartbeat;
+
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        final AtomicInteger threads = new AtomicInteger();
+        sender = Executors.newFixedThreadPool(senderThreads, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable,
+                        "arca-stream-sender-" + threads.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        heartbeat = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "arca-stream-heartbeat");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        heartbeat.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                broadcast(Message.HEARTBEAT);
+            }
+        }, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stops the background threads and completes the open streams.
+     */
+    @PreDestroy
+    public void stop() {
+        heartbeat.shutdownNow();
+        sender.shutdownNow();
+        for (Subscriber subscriber : subscribers) {
+            subscribers.remove(subscriber);
+            subscriber.emitter.complete();
+        }
+    }
+
+    /**
+     * Opens a stream of the cause changes committed from now on.
+     *
+     * @return The stream, or null if <code>arca.stream.max-subscribers</code>
+     *         streams are open.
+     */
+    public SseEmitter subscribe() {
+        if (subscribers.size() >= maxSubscribers) {
+            rejected.incrementAndGet();
+            return null;
+        }
+
+        final Subscriber subscriber = new Subscriber(createEmitter());
+        Runnable remove = new Runnable() {
+            @Override
+            public void run() {
+                subscriber.closed = true;
+                subscribers.remove(subscriber);
+            }
+        };
+        subscriber.emitter.onCompletion(remove);
+        subscriber.emitter.onTimeout(remove);
+        subscribers.add(subscriber);
+        return subscriber.emitter;
+    }
+
+    /**
+     * @return The emitter of a new stream.
+     */
+    SseEmitter createEmitter() {
+        return new SseEmitter(timeoutMillis);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCauseChange(CauseChangeEvent event) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+
+        Map<String, Object> change = new LinkedHashMap<String, Object>();
+        change.put("type", event.getType());
+        change.put("id", event.getId());
+        change.put("cause", event.getCause());
+        String data;
+        try {
+            data = objectMapper.writeValueAsString(change);
+        } catch (JsonProcessingException e) {
+            logger.error("Could not serialize the change of cause " + event.getId(), e);
+            return;
+        }
+        published.incrementAndGet();
+        broadcast(new Message(data));
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        Collection<Metric<?>> metrics = new ArrayList<Metric<?>>();
+        metrics.add(new Metric<Integer>("stream.subscribers", subscribers.size()));
+        metrics.add(new Metric<Long>("stream.published", published.get()));
+        metrics.add(new Metric<Long>("stream.sent", sent.get()));
+        metrics.add(new Metric<Long>("stream.evicted", evicted.get()));
+        metrics.add(new Metric<Long>("stream.rejected", rejected.get()));
+        return metrics;
+    }
+
+    private void broadcast(Message message) {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(message);
+        }
+    }
+
+    /**
+     * An event to send: a cause change, or a heartbeat comment if it has no
+     * data.
+     */
+    private static final class Message {
+
+        private static final Message HEARTBEAT = new Message(null);
+
+        private final String data;
+
+        private Message(String data) {
+            this.data = data;
+        }
+
+        /**
+         * A builder is consumed by sending it, so each subscriber gets its
+         * own.
+         */
+        private SseEmitter.SseEventBuilder toEvent() {
+            return data == null
+                    ? SseEmitter.event().comment("heartbeat")
+                    : SseEmitter.event().name(EVENT_NAME).data(data);
+        }
+    }
+
+    /**
+     * An open stream and its buffer. At most one sender thread drains it at
+     * a time.
+     */
+    private final class Subscriber implements Runnable {
+
+        private final SseEmitter emitter;
+
+        private final BlockingQueue<Message> buffer =
+                new ArrayBlockingQueue<Message>(bufferSize);
+
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private volatile boolean closed;
+
+        private volatile boolean evict;
+
+        private volatile boolean stuck;
+
+        /**
+         * When the write in progress started, or 0.
+         */
+        private volatile long sendStarted;
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        private void offer(Message message) {
+            if (closed) {
+                return;
+            }
+            long started = sendStarted;
+            if (started != 0 && System.nanoTime() - started
+                    > TimeUnit.MILLISECONDS.toNanos(sendTimeoutMillis)) {
+                // the sender thread holds the emitter until the write returns
+                stuck = true;
+                evict = true;
+                subscribers.remove(this);
+                buffer.clear();
+                schedule();
+                return;
+            }
+            if (!buffer.offer(message)) {
+                evict = true;
+                subscribers.remove(this);
+            }
+            schedule();
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    sender.execute(this);
+                } catch (RejectedExecutionException e) {
+                    scheduled.set(false);
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                drain();
+            } finally {
+                scheduled.set(false);
+            }
+            // a message offered after the last poll found the flag still set
+            if (!closed && (evict || !buffer.isEmpty())) {
+                schedule();
+            }
+        }
+
+        private void drain() {
+            if (closed) {
+                return;
+            }
+            if (evict) {
+                close();
+                evicted.incrementAndGet();
+                if (stuck) {
+                    logger.info("Evicted a cause stream subscriber that blocked a write for "
+                            + "over {} ms.", sendTimeoutMillis);
+                } else {
+                    logger.info("Evicted a cause stream subscriber that fell {} events behind.",
+                            bufferSize);
+                }
+                emitter.complete();
+                return;
+            }
+
+            Message message;
+            while (!closed && !evict && (message = buffer.poll()) != null) {
+                sendStarted = System.nanoTime();
+                try {
+                    emitter.send(message.toEvent());
+                } catch (IOException e) {
+                    // the client went away
+                    close();
+                    emitter.completeWithError(e);
+                    return;
+                } catch (IllegalStateException e) {
+                    // the stream timed out or was completed
+                    close();
+                    return;
+                } finally {
+                    sendStarted = 0;
+                }
+                if (message != Message.HEARTBEAT) {
+                    sent.incrementAndGet();
+                }
+            }
+        }
+
+        private void close() {
+            closed = true;
+            subscribers.remove(this);
+            buffer.clear();
+        }
+    }
+}
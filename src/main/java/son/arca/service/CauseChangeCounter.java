@@ -0,0 +1,288 @@
+package son.arca.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import son.arca.datasource.ReplicaSelector;
+import son.arca.repository.CauseChangeRepository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out the version of the whole collection of causes: the number of
+ * committed changes, kept in the CauseChangeCount table. Every transaction
+ * that changes causes increments it just before it commits, on whichever
+ * instance it runs, so the version changes with every change.
+ * <p>
+ * A version is read before the causes it is served with, and the causes
+ * read after it contain at least the changes it counts:
+ * <ul>
+ * <li>without replicas the version is read from the primary;</li>
+ * <li>with replicas it is the position of the ReplicaSelector, which only
+ * routes reads to the replicas that have applied it;</li>
+ * <li>a cache serves the causes only if it holds every change counted up to
+ * the highest version handed out, as tracked by its {@link Watermark}.</li>
+ * </ul>
+ * The counts of the transactions of this instance are reported by the
+ * CauseChangeSequence once the after-commit listeners of the caches, which
+ * run in {@link #CACHE_ORDER}, have applied their changes. A count that
+ * was not reported was committed by another instance, and the caches have
+ * to be reloaded to contain it.
+ *
+ * @author Harrison Mfula
+ */
+@Component
+public class CauseChangeCounter {
+
+    /**
+     * The order of the after-commit listeners of the caches. They run before
+     * the count of the transaction is reported as completed, which the
+     * CauseChangeSequence does last.
+     */
+    public static final int CACHE_ORDER = 0;
+
+    /**
+     * Whether a cache holds the changes counted up to a version.
+     */
+    public enum Coverage {
+        /** The cache holds them. */
+        CURRENT,
+        /** A transaction of this instance is still applying its changes. */
+        PENDING,
+        /** The cache misses changes of another instance or is not loaded. */
+        STALE
+    }
+
+    private static final long NONE = -1;
+
+    @Autowired
+    private CauseChangeRepository causeChangeRepository;
+
+    @Autowired(required = false)
+    private ReplicaSelector replicaSelector;
+
+    private final AtomicLong highestVersion = new AtomicLong();
+
+    /**
+     * The counts of the transactions of this instance between their
+     * increment and their completion, with the number of transactions
+     * holding each: a count rolled back is taken again by the next one.
+     */
+    private final Map<Long, Integer> committing = new HashMap<Long, Integer>();
+
+    /**
+     * The committed counts of this instance that a watermark may still have
+     * to pass.
+     */
+    private final TreeSet<Long> completed = new TreeSet<Long>();
+
+    private long highestCompleted;
+
+    private final List<Watermark> watermarks = new ArrayList<Watermark>();
+
+    /**
+     * @return The version of the collection of causes. The causes read after
+     *         it contain at least the changes it counts.
+     */
+    public String version() {
+        long version = replicaSelector != null ? replicaSelector.getPosition()
+                : causeChangeRepository.findChangeCount();
+        long highest = highestVersion.get();
+        while (version > highest && !highestVersion.compareAndSet(highest, version)) {
+            highest = highestVersion.get();
+        }
+        return Long.toString(version);
+    }
+
+    /**
+     * @return The highest version handed out, which the caches must hold to
+     *         serve the causes.
+     */
+    public long highestVersion() {
+        return highestVersion.get();
+    }
+
+    /**
+     * @return True if the reads routed to the replicas contain every change
+     *         committed or committing on this instance, so their results may
+     *         be cached.
+     */
+    public boolean isReplicaCurrent() {
+        return replicaSelector == null || replicaSelector.getPosition() >= highestLocalCount();
+    }
+
+    /**
+     * @return The highest count committed or committing on this instance.
+     */
+    public synchronized long highestLocalCount() {
+        long highest = highestCompleted;
+        for (Long count : committing.keySet()) {
+            highest = Math.max(highest, count);
+        }
+        return highest;
+    }
+
+    /**
+     * @return A new watermark of a cache, idle until its first load.
+     */
+    public synchronized Watermark watermark() {
+        Watermark watermark = new Watermark();
+        watermarks.add(watermark);
+        return watermark;
+    }
+
+    /**
+     * Called by a transaction of this instance that has incremented the
+     * count and is about to commit.
+     */
+    synchronized void committing(long count) {
+        Integer holders = committing.get(count);
+        committing.put(count, holders == null ? 1 : holders + 1);
+    }
+
+    /**
+     * Called by a transaction of this instance that took the count, after
+     * its after-commit listeners have run.
+     */
+    synchronized void completed(long count, boolean committed) {
+        if (committed) {
+            completed.add(count);
+            highestCompleted = Math.max(highestCompleted, count);
+        }
+        Integer holders = committing.remove(count);
+        if (holders != null && holders > 1) {
+            committing.put(count, holders - 1);
+        }
+        if (committed) {
+            long lowest = Long.MAX_VALUE;
+            for (Watermark watermark : watermarks) {
+                watermark.advance();
+                lowest = Math.min(lowest, watermark.needed());
+            }
+            completed.headSet(lowest, true).clear();
+        }
+    }
+
+    /**
+     * The count up to which a cache holds every change. A cache loaded from
+     * the database starts at the count read before the causes; it then
+     * passes the counts of this instance as their listeners complete, and
+     * stops at the first count of another instance.
+     */
+    public final class Watermark {
+
+        private volatile long covered = NONE;
+
+        private boolean loading;
+
+        private long required;
+
+        private Watermark() {
+        }
+
+        /**
+         * Starts a load. Call it after the cache has started to apply the
+         * changes that complete from now on.
+         *
+         * @return The count the load must reach: the changes of this instance
+         *         up to it may have been missed by the cache.
+         */
+        public long beginLoad() {
+            synchronized (CauseChangeCounter.this) {
+                loading = true;
+                covered = NONE;
+                required = highestLocalCount();
+                return required;
+            }
+        }
+
+        /**
+         * Ends a load.
+         *
+         * @param count The count read before the causes.
+         * @return False if the load missed changes of this instance, read from
+         *         a replica that had not applied them; the cache is then not
+         *         loaded.
+         */
+        public boolean endLoad(long count) {
+            synchronized (CauseChangeCounter.this) {
+                loading = false;
+                if (count < required) {
+                    return false;
+                }
+                covered = count;
+                advance();
+                return true;
+            }
+        }
+
+        /**
+         * Marks the cache as not loaded.
+         */
+        public void reset() {
+            synchronized (CauseChangeCounter.this) {
+                loading = false;
+                covered = NONE;
+            }
+        }
+
+        /**
+         * @return The count up to which the cache holds every change, or -1
+         *         if it is not loaded.
+         */
+        public long covered() {
+            return covered;
+        }
+
+        /**
+         * @return Whether the cache holds the changes counted up to the
+         *         version.
+         */
+        public Coverage check(long version) {
+            if (covered >= version) {
+                return Coverage.CURRENT;
+            }
+            synchronized (CauseChangeCounter.this) {
+                if (loading) {
+                    return Coverage.PENDING;
+                }
+                if (covered == NONE) {
+                    return Coverage.STALE;
+                }
+                if (covered >= version) {
+                    return Coverage.CURRENT;
+                }
+                return committing.containsKey(covered + 1) ? Coverage.PENDING
+                        : Coverage.STALE;
+            }
+        }
+
+        private void advance() {
+            long next = covered;
+            while (next != NONE && completed.contains(next + 1)) {
+                next++;
+            }
+            covered = next;
+        }
+
+        /**
+         * @return The lowest completed count the watermark may still have to
+         *         pass. A watermark stopped at the count of another instance
+         *         passes no more counts until the cache is reloaded.
+         */
+        private long needed() {
+            if (loading) {
+                return required;
+            }
+            if (covered == NONE || (!committing.containsKey(covered + 1)
+                    && completed.higher(covered) != null)) {
+                return Long.MAX_VALUE;
+            }
+            return covered;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package son.arca.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import son.arca.repository.CauseChangeRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.TreeSet;
+
+/**
+ * Hands out the change sequence of the transactions that change causes.
+ * Every cause written by a transaction, and every tombstone of a cause it
+ * deletes, carries the same change sequence, so the changes of a
+ * transaction become visible to a reader of the changes all at once.
+ * <p>
+ * Transactions do not commit in the order of their change sequences. A
+ * reader of the changes must therefore not go past the lowest change
+ * sequence still in flight: it could later commit rows below the high-water
+ * mark the reader has handed out. The in-flight change sequences are only
+ * known to this instance, so all writers of the causes must run in it.
+ * <p>
+ * Just before it commits, each of the transactions also increments the
+ * change count of the CauseChangeCounter, and reports to it once its
+ * after-commit listeners have run.
+ *
+ * @author Harrison Mfula
+ */
+@Component
+public class CauseChangeSequence {
+
+    @Autowired
+    private CauseChangeRepository causeChangeRepository;
+
+    @Autowired
+    private CauseChangeCounter causeChangeCounter;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * The change sequences of the transactions that have not completed. A
+     * change sequence is allocated and added in one step, so one not yet in
+     * the set is higher than every one in it or completed.
+     */
+    private final TreeSet<Long> inFlight = new TreeSet<Long>();
+
+    /**
+     * @return The change sequence of the current transaction, allocated on
+     *         the first call within the transaction.
+     * @throws IllegalStateException if no transaction is active.
+     */
+    public long current() {
+        Long changeSeq = (Long) TransactionSynchronizationManager.getResource(this);
+        if (changeSeq != null) {
+            return changeSeq;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException(
+                    "A change sequence requires an active transaction.");
+        }
+
+        synchronized (inFlight) {
+            changeSeq = causeChangeRepository.nextChangeSeq();
+            inFlight.add(changeSeq);
+        }
+        final Long allocated = changeSeq;
+        TransactionSynchronizationManager.bindResource(this, allocated);
+        TransactionSynchronizationManager.registerSynchronization(
+                new ChangeSynchronization(allocated));
+        return allocated;
+    }
+
+    /**
+     * @return The lowest change sequence in flight, or Long.MAX_VALUE if no
+     *         transaction is changing causes. Every change with a lower
+     *         change sequence is committed or rolled back.
+     */
+    public long lowestInFlight() {
+        synchronized (inFlight) {
+            return inFlight.isEmpty() ? Long.MAX_VALUE : inFlight.first();
+        }
+    }
+
+    /**
+     * Counts the change of a transaction and releases its change sequence.
+     * It runs after all other synchronizations, and so after the
+     * after-commit listeners of the caches: once the CauseChangeCounter
+     * learns that a count has completed, the caches hold its changes.
+     */
+    class ChangeSynchronization extends TransactionSynchronizationAdapter {
+
+        private final Long changeSeq;
+
+        private long count;
+
+        ChangeSynchronization(Long changeSeq) {
+            this.changeSeq = changeSeq;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.LOWEST_PRECEDENCE;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            // write everything else first: the counter row is locked last
+            // and only for the commit
+            entityManager.flush();
+            count = causeChangeRepository.incrementChangeCount();
+            causeChangeCounter.committing(count);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(
+                    CauseChangeSequence.this);
+            synchronized (inFlight) {
+                inFlight.remove(changeSeq);
+            }
+            if (count > 0) {
+                causeChangeCounter.completed(count,
+                        status == TransactionSynchronization.STATUS_COMMITTED);
+            }
+        }
+    }
+}
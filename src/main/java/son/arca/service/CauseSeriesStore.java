@@ -0,0 +1,334 @@
+package son.arca.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
+import son.arca.event.CauseChangeEvent;
+import son.arca.event.CauseOccurrenceEvent;
+import son.arca.model.CauseOccurrence;
+import son.arca.repository.CauseOccurrenceRepository;
+import son.arca.series.OccurrenceRing;
+import son.arca.series.Resolution;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Keeps the occurrences of every cause per minute, hour and day:
+ * <ul>
+ * <li>new occurrences are counted in an in-memory OccurrenceRing of minute
+ * buckets per cause;</li>
+ * <li>every <code>arca.series.flush-seconds</code> a background thread takes
+ * the rings, so new occurrences go to new ones, and adds their counts to
+ * the minute, hour and day tables in one transaction;</li>
+ * <li>minute and hour buckets are purged after their retention; day
+ * buckets are kept.</li>
+ * </ul>
+ * A series query reads the buckets of its time range from the table of the
+ * coarsest resolution that fits its step, plus the unflushed counts. The
+ * rings only hold the occurrences between two flushes; a ring has a slot
+ * per minute of the flush interval and spills older minutes.
+ * <p>
+ * The occurrences of a deleted cause are dropped: its id is remembered for
+ * a flush interval, so occurrence events delivered after the deletion do
+ * not record it again.
+ *
+ * @author Harrison Mfula
+ */
+@Component
+public class CauseSeriesStore {
+
+    /**
+     * The most points a series query may return.
+     */
+    public static final int MAX_POINTS = 10000;
+
+    private Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    @Autowired
+    private CauseOccurrenceRepository causeOccurrenceRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${arca.series.flush-seconds:60}")
+    private long flushSeconds;
+
+    private int ringMinutes;
+
+    @Value("${arca.series.minute-retention-hours:48}")
+    private long minuteRetentionHours;
+
+    @Value("${arca.series.hour-retention-days:90}")
+    private long hourRetentionDays;
+
+    private volatile ConcurrentMap<Long, OccurrenceRing> rings =
+            new ConcurrentHashMap<Long, OccurrenceRing>();
+
+    /**
+     * The deleted causes, with the time of their deletion.
+     */
+    private final ConcurrentMap<Long, Long> deleted = new ConcurrentHashMap<Long, Long>();
+
+    /**
+     * Recording takes the read lock; a flush takes the write lock only to
+     * take the rings, so no occurrence is added to a ring being written,
+     * and a deletion to remove the ring of the cause.
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Queries and deletions take the read and write lock; a flush takes the
+     * write lock until its counts are committed, so no count is seen both in
+     * a ring and in a table, and no count of a deleted cause is written
+     * after its buckets were deleted.
+     */
+    private final ReadWriteLock flushLock = new ReentrantReadWriteLock();
+
+    private ScheduledExecutorService flusher;
+
+    private long lastPurge;
+
+    @PostConstruct
+    public void start() {
+        ringMinutes = (int) (flushSeconds / 60) + 2;
+        flusher = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "arca-series-flusher");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        flusher.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    flush();
+                } catch (RuntimeException e) {
+                    logger.error("Could not flush the cause occurrences", e);
+                }
+            }
+        }, flushSeconds, flushSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stops the background flush and writes what is still in memory.
+     */
+    @PreDestroy
+    public void stop() {
+        flusher.shutdownNow();
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            logger.error("Could not flush the cause occurrences", e);
+        }
+    }
+
+    /**
+     * Counts occurrences of a cause.
+     *
+     * @param causeId The cause.
+     * @param timestamp When they happened, in epoch milliseconds.
+     * @param occurrences How many happened.
+     */
+    public void record(Long causeId, long timestamp, long occurrences) {
+        lock.readLock().lock();
+        try {
+            if (deleted.containsKey(causeId)) {
+                return;
+            }
+            OccurrenceRing ring = rings.get(causeId);
+            if (ring == null) {
+                OccurrenceRing created = new OccurrenceRing(causeId, ringMinutes);
+                ring = rings.putIfAbsent(causeId, created);
+                if (ring == null) {
+                    ring = created;
+                }
+            }
+            ring.add(timestamp, occurrences);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOccurrence(CauseOccurrenceEvent event) {
+        record(event.getCauseId(), event.getTimestamp(), event.getOccurrences());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCauseChange(CauseChangeEvent event) {
+        if (event.getType() != CauseChangeEvent.Type.DELETED) {
+            return;
+        }
+        flushLock.writeLock().lock();
+        try {
+            lock.writeLock().lock();
+            try {
+                deleted.put(event.getId(), System.currentTimeMillis());
+                rings.remove(event.getId());
+            } finally {
+                lock.writeLock().unlock();
+            }
+            causeOccurrenceRepository.deleteByCauseId(event.getId());
+        } finally {
+            flushLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the occurrences of a cause in every step of a time range.
+     *
+     * @param causeId The cause.
+     * @param from The start of the range in epoch milliseconds, rounded down
+     *             to a whole step.
+     * @param to The end of the range in epoch milliseconds, exclusive.
+     * @param stepMillis The width of a point; a whole number of minutes.
+     * @return One CauseOccurrence per step, including empty steps.
+     */
+    public List<CauseOccurrence> findSeries(Long causeId, long from, long to, long stepMillis) {
+        Resolution resolution = Resolution.forStep(stepMillis);
+        long start = Math.floorDiv(from, stepMillis) * stepMillis;
+        long points = to <= start ? 0 : (to - start + stepMillis - 1) / stepMillis;
+        if (points > MAX_POINTS) {
+            throw new IllegalArgumentException("A series has at most " + MAX_POINTS
+                    + " points.");
+        }
+        long end = start + points * stepMillis;
+
+        Map<Long, Long> buckets = new HashMap<Long, Long>();
+        flushLock.readLock().lock();
+        try {
+            for (CauseOccurrence occurrence : causeOccurrenceRepository.findByCauseId(
+                    resolution, causeId, start, end)) {
+                buckets.put(occurrence.getStart(), occurrence.getOccurrences());
+            }
+            OccurrenceRing ring = rings.get(causeId);
+            if (ring != null) {
+                ring.addUnflushed(start, end, resolution, buckets);
+            }
+        } finally {
+            flushLock.readLock().unlock();
+        }
+
+        long[] counts = new long[(int) points];
+        for (Map.Entry<Long, Long> bucket : buckets.entrySet()) {
+            counts[(int) ((bucket.getKey() - start) / stepMillis)] += bucket.getValue();
+        }
+        List<CauseOccurrence> series = new ArrayList<CauseOccurrence>(counts.length);
+        for (int i = 0; i < counts.length; i++) {
+            series.add(new CauseOccurrence(causeId, start + i * stepMillis, counts[i]));
+        }
+        return series;
+    }
+
+    /**
+     * Adds the unflushed occurrences to the minute, hour and day tables and
+     * purges expired buckets. Occurrences are recorded in new rings while
+     * the taken ones are written; if the write fails, their counts are
+     * recorded again for the next flush.
+     */
+    public void flush() {
+        flushLock.writeLock().lock();
+        try {
+            long forgotten = System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(flushSeconds);
+            for (Iterator<Long> deletedAt = deleted.values().iterator(); deletedAt.hasNext(); ) {
+                if (deletedAt.next() < forgotten) {
+                    deletedAt.remove();
+                }
+            }
+
+            Map<Long, OccurrenceRing> taken;
+            lock.writeLock().lock();
+            try {
+                taken = rings;
+                rings = new ConcurrentHashMap<Long, OccurrenceRing>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            final List<CauseOccurrence> minutes = new ArrayList<CauseOccurrence>();
+            for (OccurrenceRing ring : taken.values()) {
+                minutes.addAll(ring.unflushed());
+            }
+            if (!minutes.isEmpty()) {
+                final List<CauseOccurrence> hours = rollup(minutes, Resolution.HOUR);
+                final List<CauseOccurrence> days = rollup(minutes, Resolution.DAY);
+                try {
+                    new TransactionTemplate(transactionManager).execute(
+                            new TransactionCallbackWithoutResult() {
+                                @Override
+                                protected void doInTransactionWithoutResult(
+                                        TransactionStatus status) {
+                                    causeOccurrenceRepository.add(Resolution.MINUTE, minutes);
+                                    causeOccurrenceRepository.add(Resolution.HOUR, hours);
+                                    causeOccurrenceRepository.add(Resolution.DAY, days);
+                                }
+                            });
+                } catch (RuntimeException e) {
+                    for (CauseOccurrence minute : minutes) {
+                        record(minute.getCauseId(), minute.getStart(),
+                                minute.getOccurrences());
+                    }
+                    throw e;
+                }
+                logger.debug("Flushed {} minute buckets.", minutes.size());
+            }
+        } finally {
+            flushLock.writeLock().unlock();
+        }
+        purge();
+    }
+
+    private void purge() {
+        long now = System.currentTimeMillis();
+        if (now - lastPurge < TimeUnit.HOURS.toMillis(1)) {
+            return;
+        }
+        lastPurge = now;
+        causeOccurrenceRepository.deleteBefore(Resolution.MINUTE,
+                now - TimeUnit.HOURS.toMillis(minuteRetentionHours));
+        causeOccurrenceRepository.deleteBefore(Resolution.HOUR,
+                now - TimeUnit.DAYS.toMillis(hourRetentionDays));
+    }
+
+    private static List<CauseOccurrence> rollup(List<CauseOccurrence> minutes,
+                                                Resolution resolution) {
+        Map<List<Long>, Long> buckets = new LinkedHashMap<List<Long>, Long>();
+        for (CauseOccurrence minute : minutes) {
+            List<Long> key = Arrays.asList(minute.getCauseId(),
+                    resolution.floor(minute.getStart()));
+            Long count = buckets.get(key);
+            buckets.put(key, (count == null ? 0 : count) + minute.getOccurrences());
+        }
+        List<CauseOccurrence> rolledUp = new ArrayList<CauseOccurrence>(buckets.size());
+        for (Map.Entry<List<Long>, Long> bucket : buckets.entrySet()) {
+            rolledUp.add(new CauseOccurrence(bucket.getKey().get(0), bucket.getKey().get(1),
+                    bucket.getValue()));
+        }
+        return rolledUp;
+    }
+}
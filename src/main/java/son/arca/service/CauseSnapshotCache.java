@@ -0,0 +1,293 @@
+package son.arca.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import son.arca.event.CauseChangeEvent;
+import son.arca.model.Cause;
+import son.arca.model.CauseView;
+import son.arca.repository.ArcaRepository;
+import son.arca.repository.CauseChangeRepository;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiFunction;
+
+/**
+ * Holds an immutable snapshot of the whole Cause table, ordered by id, for
+ * the read paths that list every cause.
+ *
+ * Readers get the current snapshot without touching the database. Committed
+ * writes are recorded as pending changes; the next reader merges them into a
+ * new snapshot, which is then published for everyone (copy-on-write). Many
+ * writes between two reads therefore cost a single merge.
+ *
+ * The after-commit listeners of concurrent transactions run in any order, so
+ * a change never replaces a newer version of its cause, and the ids of
+ * deleted causes are remembered until the next load so that a late update
+ * cannot bring them back. The snapshot is an unmodifiable list of immutable
+ * CauseViews, handed to every reader as is.
+ *
+ * A snapshot is only served if it holds the changes counted by the highest
+ * collection version handed out, see the CauseChangeCounter. It is loaded
+ * in a read-only transaction, which may run on a replica, together with the
+ * change count the rows contain. A change committed by another instance
+ * makes the next reader load a new snapshot.
+ *
+ * @author Harrison Mfula
+ */
+@Component
+public class CauseSnapshotCache {
+
+    private static final CauseView DELETED = CauseView.of(new Cause());
+
+    private Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    @Autowired
+    private ArcaRepository arcaServiceRepository;
+
+    @Autowired
+    private CauseChangeRepository causeChangeRepository;
+
+    @Autowired
+    private CauseChangeCounter causeChangeCounter;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${arca.snapshot.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * Tables with more rows than this are not held in memory.
+     */
+    @Value("${arca.snapshot.max-size:100000}")
+    private long maxSize;
+
+    private final Object lock = new Object();
+
+    private final ConcurrentMap<Long, CauseView> pending =
+            new ConcurrentHashMap<Long, CauseView>();
+
+    private final Set<Long> deleted = ConcurrentHashMap.<Long>newKeySet();
+
+    private volatile Snapshot snapshot;
+
+    private volatile boolean tracking;
+
+    private CauseChangeCounter.Watermark watermark;
+
+    @PostConstruct
+    public void init() {
+        watermark = causeChangeCounter.watermark();
+    }
+
+    /**
+     * Returns the current snapshot of all causes, loading it on first use.
+     *
+     * @return The unmodifiable list of all causes in id order, or null if
+     *         the snapshot is disabled, the table is too large to hold, or
+     *         the snapshot does not hold the changes of the highest
+     *         collection version yet.
+     */
+    public List<CauseView> get() {
+        if (!enabled) {
+            return null;
+        }
+        long version = causeChangeCounter.highestVersion();
+        Snapshot current = snapshot;
+        if (current == null || current.covered < version || !pending.isEmpty()) {
+            synchronized (lock) {
+                if (snapshot != null && deleted.size() > maxSize) {
+                    // a new load holds no deleted causes to guard against
+                    logger.info("Reloading the snapshot after {} deletions", deleted.size());
+                    clear();
+                } else if (snapshot != null
+                        && watermark.check(version) == CauseChangeCounter.Coverage.STALE) {
+                    logger.info("Reloading the snapshot for version {}", version);
+                    clear();
+                }
+                if (snapshot == null) {
+                    load();
+                } else {
+                    // the changes up to the watermark are pending or merged
+                    long covered = watermark.covered();
+                    snapshot = new Snapshot(merge(snapshot.causes), covered);
+                }
+                current = snapshot;
+            }
+        }
+        return current != null && current.covered >= version ? current.causes : null;
+    }
+
+    /**
+     * Discards the snapshot; the next reader loads a new one.
+     */
+    public void invalidate() {
+        synchronized (lock) {
+            clear();
+        }
+    }
+
+    /**
+     * Records a committed change to be merged into the next snapshot.
+     *
+     * @param event The change published by the ArcaServiceBean.
+     */
+    @Order(CauseChangeCounter.CACHE_ORDER)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCauseChange(CauseChangeEvent event) {
+        if (!tracking) {
+            return;
+        }
+        if (event.getType() == CauseChangeEvent.Type.DELETED) {
+            deleted.add(event.getId());
+            pending.put(event.getId(), DELETED);
+            return;
+        }
+        pending.merge(event.getId(), CauseView.of(event.getCause()),
+                new BiFunction<CauseView, CauseView, CauseView>() {
+                    @Override
+                    public CauseView apply(CauseView recorded, CauseView change) {
+                        return recorded == DELETED || !isNewer(change, recorded)
+                                ? recorded : change;
+                    }
+                });
+    }
+
+    private void clear() {
+        tracking = false;
+        watermark.reset();
+        snapshot = null;
+        pending.clear();
+        deleted.clear();
+    }
+
+    /**
+     * Loads the causes and the change count they contain in one read-only
+     * transaction. The load is discarded if it misses changes of this
+     * instance whose listeners ran before tracking began.
+     */
+    private void load() {
+        logger.info("> load");
+
+        tracking = true;
+        watermark.beginLoad();
+        long count = arcaServiceRepository.count();
+        if (count > maxSize) {
+            logger.warn("Not holding a snapshot of {} causes, the limit is {}", count, maxSize);
+            clear();
+            return;
+        }
+
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        template.setReadOnly(true);
+        Snapshot loaded = template.execute(new TransactionCallback<Snapshot>() {
+            @Override
+            public Snapshot doInTransaction(TransactionStatus status) {
+                long changes = causeChangeRepository.findChangeCount();
+                List<Cause> causes = arcaServiceRepository.findAll(new Sort("id"));
+                List<CauseView> views = new ArrayList<CauseView>(causes.size());
+                for (Cause cause : causes) {
+                    views.add(CauseView.of(cause));
+                }
+                return new Snapshot(Collections.unmodifiableList(views), changes);
+            }
+        });
+        if (!watermark.endLoad(loaded.covered)) {
+            logger.info("Discarding the snapshot of change count {}", loaded.covered);
+            clear();
+            return;
+        }
+        // the changes up to the watermark are pending or loaded
+        long covered = watermark.covered();
+        snapshot = new Snapshot(merge(loaded.causes), covered);
+
+        logger.info("< load count:{}", snapshot.causes.size());
+    }
+
+    /**
+     * Merge-joins the id ordered snapshot with the pending changes taken
+     * out of the pending map.
+     */
+    private List<CauseView> merge(List<CauseView> current) {
+        TreeMap<Long, CauseView> changes = new TreeMap<Long, CauseView>();
+        for (Long id : pending.keySet()) {
+            CauseView change = pending.remove(id);
+            if (change != null) {
+                changes.put(id, deleted.contains(id) ? DELETED : change);
+            }
+        }
+        if (changes.isEmpty()) {
+            return current;
+        }
+
+        List<CauseView> merged = new ArrayList<CauseView>(current.size() + changes.size());
+        Iterator<Map.Entry<Long, CauseView>> iterator = changes.entrySet().iterator();
+        Map.Entry<Long, CauseView> change = iterator.next();
+        for (CauseView cause : current) {
+            while (change != null && change.getKey() < cause.getId()) {
+                add(merged, change.getValue());
+                change = iterator.hasNext() ? iterator.next() : null;
+            }
+            if (change != null && change.getKey().equals(cause.getId())) {
+                CauseView value = change.getValue();
+                add(merged, value == DELETED || isNewer(value, cause) ? value : cause);
+                change = iterator.hasNext() ? iterator.next() : null;
+            } else {
+                merged.add(cause);
+            }
+        }
+        while (change != null) {
+            add(merged, change.getValue());
+            change = iterator.hasNext() ? iterator.next() : null;
+        }
+        return Collections.unmodifiableList(merged);
+    }
+
+    private void add(List<CauseView> causes, CauseView cause) {
+        if (cause != DELETED) {
+            causes.add(cause);
+        }
+    }
+
+    /**
+     * @return True unless the other view carries a higher version.
+     */
+    private boolean isNewer(CauseView view, CauseView other) {
+        return view.getVersion() == null || other.getVersion() == null
+                || view.getVersion() >= other.getVersion();
+    }
+
+    /**
+     * The causes and the change count up to which they hold every change.
+     */
+    private static final class Snapshot {
+        private final List<CauseView> causes;
+        private final long covered;
+
+        private Snapshot(List<CauseView> causes, long covered) {
+            this.causes = causes;
+            this.covered = covered;
+        }
+    }
+}
@@ -8,7 +8,8 @@ import org.slf4j.LoggerFactory;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
-import java.util.concurrent.Future;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * @author Harrison Mfula
@@ -30,7 +31,9 @@ public class EmailServiceBean implements EmailService {
         try {
             Thread.sleep(pause);
         } catch (InterruptedException e) {
-            e.printStackTrace();
+            logger.warn("Interrupted while sending email");
+            Thread.currentThread().interrupt();
+            return success;
         }
 
         logger.info("Processing time was  {} seconds.", pause / 1000);
@@ -42,6 +45,30 @@ public class EmailServiceBean implements EmailService {
         return success;
     }
 
+    @Override
+    public Boolean sendDigest(String recipient, Collection<Cause> causes) {
+
+        logger.info("> sendDigest recipient:{} causes:{}", recipient, causes.size());
+
+        Boolean success = Boolean.FALSE;
+        long pause = 5000;
+        try {
+            Thread.sleep(pause);
+        } catch (InterruptedException e) {
+            logger.warn("Interrupted while sending digest email");
+            Thread.currentThread().interrupt();
+            return success;
+        }
+
+        logger.info("Processing time was  {} seconds.", pause / 1000);
+
+        success = Boolean.TRUE;
+
+        logger.info("< sendDigest recipient:{}", recipient);
+
+        return success;
+    }
+
     @Async
     @Override
     public void sendAsync(Cause cause) {
@@ -58,7 +85,7 @@ public class EmailServiceBean implements EmailService {
 
     @Async
     @Override
-    public Future<Boolean> sendAsyncWithResult(Cause cause) {
+    public CompletableFuture<Boolean> sendAsyncWithResult(Cause cause) {
         logger.info("> sendAsyncWithResult");
         AsyncResponse<Boolean> asyncResponse = new AsyncResponse<Boolean>();
         try{
@@ -0,0 +1,242 @@
+package son.arca.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import son.arca.event.CauseChangeEvent;
+import son.arca.event.CauseOccurrenceEvent;
+import son.arca.model.Cause;
+import son.arca.repository.ArcaRepository;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Write-behind buffer of frequency increments. Increments are added to a
+ * LongAdder per cause, so concurrent increments of the same cause neither
+ * block each other nor lock its row. Every
+ * <code>arca.increment.flush-millis</code> the pending deltas are added to
+ * the frequencies in one transaction of batched updates, and the causes are
+ * published as updated.
+ * <p>
+ * A flush subtracts what it read from each adder, so increments arriving
+ * while it runs wait for the next flush. If the updates fail the deltas are
+ * added back and retried, except on shutdown. Deltas of causes that no
+ * longer exist, and deltas not written on shutdown, are counted as failed.
+ *
+ * @author Harrison Mfula
+ */
+@Component
+public class FrequencyIncrementBuffer implements PublicMetrics {
+
+    private Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    @Autowired
+    private ArcaRepository arcaRepository;
+
+    @Autowired
+    private CauseChangeSequence causeChangeSequence;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${arca.increment.flush-millis:1000}")
+    private long flushMillis;
+
+    private final ConcurrentMap<Long, LongAdder> pending =
+            new ConcurrentHashMap<Long, LongAdder>();
+
+    private ScheduledExecutorService flusher;
+
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong flushed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong failedFlushes = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        flusher = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "arca-increment-flusher");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        flusher.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                flush(true);
+            }
+        }, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the background flush and writes the pending deltas.
+     */
+    @PreDestroy
+    public void stop() {
+        flusher.shutdownNow();
+        flush(false);
+    }
+
+    /**
+     * Adds to the frequency of a cause at the next flush.
+     */
+    public void add(Long causeId, long delta) {
+        addPending(causeId, delta);
+        received.addAndGet(delta);
+    }
+
+    private void addPending(Long causeId, long delta) {
+        LongAdder adder = pending.get(causeId);
+        if (adder == null) {
+            LongAdder created = new LongAdder();
+            adder = pending.putIfAbsent(causeId, created);
+            if (adder == null) {
+                adder = created;
+            }
+        }
+        adder.add(delta);
+    }
+
+    /**
+     * Writes the pending deltas now. Deltas that cannot be written are kept
+     * for the next flush.
+     */
+    public void flush() {
+        flush(true);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCauseChange(CauseChangeEvent event) {
+        if (event.getType() == CauseChangeEvent.Type.DELETED) {
+            LongAdder adder = pending.remove(event.getId());
+            if (adder != null) {
+                failed.addAndGet(adder.sum());
+            }
+        }
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        long waiting = 0;
+        for (LongAdder adder : pending.values()) {
+            waiting += adder.sum();
+        }
+        Collection<Metric<?>> metrics = new ArrayList<Metric<?>>();
+        metrics.add(new Metric<Long>("increment.pending", waiting));
+        metrics.add(new Metric<Long>("increment.received", received.get()));
+        metrics.add(new Metric<Long>("increment.flushed", flushed.get()));
+        metrics.add(new Metric<Long>("increment.failed", failed.get()));
+        metrics.add(new Metric<Long>("increment.flush.count", flushes.get()));
+        metrics.add(new Metric<Long>("increment.flush.failed", failedFlushes.get()));
+        return metrics;
+    }
+
+    private synchronized void flush(boolean retry) {
+        final List<Long> ids = new ArrayList<Long>();
+        final List<Long> deltas = new ArrayList<Long>();
+        for (Map.Entry<Long, LongAdder> entry : pending.entrySet()) {
+            long delta = entry.getValue().sum();
+            if (delta != 0) {
+                entry.getValue().add(-delta);
+                ids.add(entry.getKey());
+                deltas.add(delta);
+            }
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+
+        int[] updated;
+        try {
+            updated = new TransactionTemplate(transactionManager).execute(
+                    new TransactionCallback<int[]>() {
+                        @Override
+                        public int[] doInTransaction(TransactionStatus status) {
+                            return write(ids, deltas);
+                        }
+                    });
+            flushes.incrementAndGet();
+            logger.debug("Flushed the frequency increments of {} causes.", ids.size());
+        } catch (RuntimeException e) {
+            failedFlushes.incrementAndGet();
+            for (int i = 0; i < ids.size(); i++) {
+                if (retry) {
+                    addPending(ids.get(i), deltas.get(i));
+                } else {
+                    failed.addAndGet(deltas.get(i));
+                }
+            }
+            logger.error("Could not flush the frequency increments of " + ids.size()
+                    + " causes.", e);
+            return;
+        }
+
+        for (int i = 0; i < ids.size(); i++) {
+            if (updated[i] == 0) {
+                failed.addAndGet(deltas.get(i));
+            } else {
+                flushed.addAndGet(deltas.get(i));
+            }
+        }
+    }
+
+    private int[] write(List<Long> ids, List<Long> deltas) {
+        // the updates bypass the persistence context
+        entityManager.flush();
+        int[] updated = arcaRepository.addFrequenciesById(ids, deltas,
+                causeChangeSequence.current());
+        entityManager.clear();
+
+        Map<Long, Long> written = new HashMap<Long, Long>();
+        for (int i = 0; i < ids.size(); i++) {
+            if (updated[i] != 0) {
+                written.put(ids.get(i), deltas.get(i));
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        for (Cause cause : arcaRepository.findAll(written.keySet())) {
+            eventPublisher.publishEvent(CauseChangeEvent.updated(cause));
+            long delta = written.get(cause.getId());
+            if (delta > 0) {
+                eventPublisher.publishEvent(new CauseOccurrenceEvent(cause.getId(), now, delta));
+            }
+        }
+        return updated;
+    }
+}
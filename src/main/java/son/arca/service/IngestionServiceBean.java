@@ -0,0 +1,110 @@
+package son.arca.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.metrics.CounterService;
+import org.springframework.boot.actuate.metrics.GaugeService;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+import son.arca.api.ArcaService;
+import son.arca.api.IngestionService;
+import son.arca.ingest.CsvEventParser;
+import son.arca.ingest.EventCounts;
+import son.arca.ingest.EventFileReader;
+import son.arca.ingest.EventParser;
+import son.arca.ingest.NdjsonEventParser;
+import son.arca.model.Cause;
+import son.arca.model.IngestionReport;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The IngestionServiceBean counts the events of a file per cause name with
+ * the EventFileReader and writes the counts through the ArcaService.
+ *
+ * @author Harrison Mfula
+ */
+@Service
+public class IngestionServiceBean implements IngestionService {
+
+    private Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    @Autowired
+    private CounterService counterService;
+
+    @Autowired
+    private GaugeService gaugeService;
+
+    @Autowired
+    private ArcaService arcaService;
+
+    @Autowired
+    @Qualifier("ingestExecutor")
+    private TaskExecutor ingestExecutor;
+
+    @Value("${arca.ingest.parallelism:0}")
+    private int parallelism;
+
+    @Value("${arca.ingest.csv-column:2}")
+    private int csvColumn;
+
+    @Value("${arca.ingest.csv-header:true}")
+    private boolean csvHeader;
+
+    @Value("${arca.ingest.json-field:cause}")
+    private String jsonField;
+
+    private EventFileReader reader;
+
+    @PostConstruct
+    public void init() {
+        reader = new EventFileReader(ingestExecutor,
+                parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    @Override
+    public IngestionReport ingest(Path file, Format format) throws IOException {
+        logger.info("> ingest file:{} format:{}", file, format);
+
+        counterService.increment("method.invoked.IngestionServiceBean.ingest");
+
+        long start = System.currentTimeMillis();
+        EventParser parser = format == Format.CSV
+                ? new CsvEventParser(csvColumn) : new NdjsonEventParser(jsonField);
+        EventCounts counts = reader.read(file, parser,
+                format == Format.CSV && csvHeader);
+
+        Collection<Cause> updated = counts.getCounts().isEmpty()
+                ? Collections.<Cause>emptyList()
+                : arcaService.addFrequencies(counts.getCounts());
+
+        Map<String, Long> unmatched = new TreeMap<String, Long>(counts.getCounts());
+        for (Cause cause : updated) {
+            unmatched.remove(cause.getName());
+        }
+        if (!unmatched.isEmpty()) {
+            logger.warn("{} cause names in {} match no cause: {}", unmatched.size(), file,
+                    unmatched.keySet());
+        }
+
+        IngestionReport report = new IngestionReport(file.getFileName().toString(),
+                counts.getBytes(), counts.getEvents(), counts.getMalformed(),
+                counts.getShards(), updated.size(), new LinkedHashMap<String, Long>(unmatched),
+                System.currentTimeMillis() - start);
+        gaugeService.submit("ingest.events-per-second", report.getEventsPerSecond());
+
+        logger.info("< ingest file:{} events:{} events/s:{}", file, report.getEvents(),
+                Math.round(report.getEventsPerSecond()));
+        return report;
+    }
+}
@@ -0,0 +1,293 @@
+package son.arca.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+import son.arca.api.EmailService;
+import son.arca.api.NotificationService;
+import son.arca.model.Cause;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * The NotificationServiceBean batches Cause notifications in front of the
+ * EmailService. Notifications wait in a bounded queue until the batch window
+ * elapses or the batch is full. The batch is then grouped by recipient,
+ * duplicate causes are merged by id (the latest state wins) and one digest
+ * email is sent per recipient on the email executor.
+ * <p>
+ * Recipients come from API callers, so only the default recipient and the
+ * configured allowed recipients are accepted.
+ *
+ * @author Harrison Mfula
+ */
+@Service
+public class NotificationServiceBean implements NotificationService, PublicMetrics {
+
+    private static final Pattern ADDRESS = Pattern.compile("[^@\\s]+@[^@\\s]+");
+
+    private Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    @Autowired
+    private EmailService emailService;
+
+    @Autowired
+    @Qualifier("emailExecutor")
+    private TaskExecutor emailExecutor;
+
+    @Value("${arca.notification.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${arca.notification.window-millis:2000}")
+    private long windowMillis;
+
+    @Value("${arca.notification.max-batch-size:100}")
+    private int maxBatchSize;
+
+    @Value("${arca.notification.default-recipient:noc@localhost}")
+    private String defaultRecipient;
+
+    @Value("${arca.notification.allowed-recipients:}")
+    private String[] allowedRecipients;
+
+    private Set<String> allowed;
+
+    private BlockingQueue<Notification> queue;
+
+    private Thread dispatcher;
+
+    private volatile boolean running;
+
+    /**
+     * Held shared by enqueue and exclusively by stop, so no notification is
+     * queued once the dispatcher may have drained the queue and exited.
+     */
+    private final ReadWriteLock runningLock = new ReentrantReadWriteLock();
+
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong merged = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong digests = new AtomicLong();
+    private final AtomicLong failedDigests = new AtomicLong();
+    private volatile int lastBatchSize;
+    private volatile int maxObservedBatchSize;
+
+    @PostConstruct
+    public void start() {
+        logger.info("> start");
+
+        allowed = new HashSet<String>();
+        allowed.add(defaultRecipient.trim().toLowerCase(Locale.ROOT));
+        if (allowedRecipients != null) {
+            for (String recipient : allowedRecipients) {
+                if (!recipient.trim().isEmpty()) {
+                    allowed.add(recipient.trim().toLowerCase(Locale.ROOT));
+                }
+            }
+        }
+        queue = new ArrayBlockingQueue<Notification>(queueCapacity);
+        running = true;
+        dispatcher = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                dispatch();
+            }
+        }, "arca-notification-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+
+        logger.info("< start");
+    }
+
+    /**
+     * Stops accepting notifications and sends whatever is still queued.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        logger.info("> stop");
+
+        runningLock.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            runningLock.writeLock().unlock();
+        }
+        dispatcher.interrupt();
+        dispatcher.join(TimeUnit.SECONDS.toMillis(30));
+
+        logger.info("< stop");
+    }
+
+    @Override
+    public boolean enqueue(String recipient, Cause cause) {
+        String to = recipient == null || recipient.isEmpty() ? defaultRecipient : recipient;
+        if (!ADDRESS.matcher(to).matches()) {
+            throw new IllegalArgumentException("Invalid recipient address: " + to);
+        }
+        if (!allowed.contains(to.toLowerCase(Locale.ROOT))) {
+            throw new IllegalArgumentException("Recipient not allowed: " + to);
+        }
+
+        runningLock.readLock().lock();
+        try {
+            if (!running) {
+                dropped.incrementAndGet();
+                return false;
+            }
+            if (!queue.offer(new Notification(to, cause.copy()))) {
+                dropped.incrementAndGet();
+                logger.warn("Notification queue is full, dropped cause id:{}", cause.getId());
+                return false;
+            }
+        } finally {
+            runningLock.readLock().unlock();
+        }
+        received.incrementAndGet();
+        return true;
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        Collection<Metric<?>> metrics = new ArrayList<Metric<?>>();
+        metrics.add(new Metric<Integer>("notification.queue.size", queue.size()));
+        metrics.add(new Metric<Integer>("notification.queue.remaining",
+                queue.remainingCapacity()));
+        metrics.add(new Metric<Long>("notification.received", received.get()));
+        metrics.add(new Metric<Long>("notification.dropped", dropped.get()));
+        metrics.add(new Metric<Long>("notification.merged", merged.get()));
+        metrics.add(new Metric<Long>("notification.batch.count", batches.get()));
+        metrics.add(new Metric<Integer>("notification.batch.last-size", lastBatchSize));
+        metrics.add(new Metric<Integer>("notification.batch.max-size", maxObservedBatchSize));
+        metrics.add(new Metric<Long>("notification.digest.sent", digests.get()));
+        metrics.add(new Metric<Long>("notification.digest.failed", failedDigests.get()));
+        return metrics;
+    }
+
+    private void dispatch() {
+        List<Notification> batch = new ArrayList<Notification>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                if (running) {
+                    collect(batch);
+                } else {
+                    queue.drainTo(batch, maxBatchSize);
+                }
+            } catch (InterruptedException e) {
+                logger.info("Notification dispatcher interrupted, draining the queue");
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Waits for the first notification, then collects more until the batch
+     * window has elapsed or the batch is full.
+     */
+    private void collect(List<Notification> batch) throws InterruptedException {
+        Notification first = queue.poll(1, TimeUnit.SECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        while (batch.size() < maxBatchSize) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return;
+            }
+            Notification next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void flush(List<Notification> batch) {
+        batches.incrementAndGet();
+        lastBatchSize = batch.size();
+        maxObservedBatchSize = Math.max(maxObservedBatchSize, batch.size());
+
+        Map<String, Map<Long, Cause>> byRecipient = new LinkedHashMap<String, Map<Long, Cause>>();
+        for (Notification notification : batch) {
+            Map<Long, Cause> causes = byRecipient.get(notification.recipient);
+            if (causes == null) {
+                causes = new LinkedHashMap<Long, Cause>();
+                byRecipient.put(notification.recipient, causes);
+            }
+            if (causes.put(notification.cause.getId(), notification.cause) != null) {
+                merged.incrementAndGet();
+            }
+        }
+
+        for (Map.Entry<String, Map<Long, Cause>> entry : byRecipient.entrySet()) {
+            final String recipient = entry.getKey();
+            final List<Cause> causes = new ArrayList<Cause>(entry.getValue().values());
+            try {
+                emailExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        sendDigest(recipient, causes);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                failedDigests.incrementAndGet();
+                logger.error("Email executor rejected the digest for {} with {} causes",
+                        recipient, causes.size());
+            }
+        }
+
+        logger.info("- flushed batch size:{} recipients:{}", batch.size(), byRecipient.size());
+    }
+
+    private void sendDigest(String recipient, List<Cause> causes) {
+        try {
+            if (Boolean.TRUE.equals(emailService.sendDigest(recipient, causes))) {
+                digests.incrementAndGet();
+            } else {
+                failedDigests.incrementAndGet();
+            }
+        } catch (Exception ex) {
+            failedDigests.incrementAndGet();
+            logger.warn("Exception caught during sending of digest email", ex);
+        }
+    }
+
+    private static final class Notification {
+        private final String recipient;
+        private final Cause cause;
+
+        private Notification(String recipient, Cause cause) {
+            this.recipient = recipient;
+            this.cause = cause;
+        }
+    }
+}
@@ -0,0 +1,365 @@
+package son.arca.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import son.arca.event.CauseChangeEvent;
+import son.arca.model.Cause;
+import son.arca.model.ParetoItem;
+import son.arca.repository.ArcaRepository;
+import son.arca.repository.CauseChangeRepository;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Keeps all causes ranked by frequency so the Pareto series can be served
+ * without re-reading or re-sorting the Cause table.
+ *
+ * The ranking is a balanced tree ordered by descending frequency, so each
+ * committed create, update or delete costs O(log n). The cumulative shares
+ * are derived while the first N entries are walked, which keeps them exact
+ * and consistent with the grand total at the time of the read.
+ *
+ * The after-commit listeners of concurrent transactions run in any order, so
+ * a change never replaces a newer version of its cause, and the ids of
+ * deleted causes are remembered until the next load so that a late update
+ * cannot bring them back.
+ *
+ * The ranking is only served if it holds the changes counted by the highest
+ * collection version handed out, see the CauseChangeCounter; otherwise the
+ * series is read from the database. A change committed by another instance
+ * makes the next reader load the ranking again.
+ *
+ * @author Harrison Mfula
+ */
+@Component
+public class ParetoAggregator {
+
+    private static final int LOAD_PAGE_SIZE = 1000;
+
+    private static final Comparator<Entry> RANKING = new Comparator<Entry>() {
+        @Override
+        public int compare(Entry a, Entry b) {
+            int result = Long.compare(b.frequency, a.frequency);
+            return result != 0 ? result : Long.compare(a.id, b.id);
+        }
+    };
+
+    private Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final TreeSet<Entry> ranking = new TreeSet<Entry>(RANKING);
+
+    private final Map<Long, Entry> entries = new HashMap<Long, Entry>();
+
+    private final Set<Long> deleted = new HashSet<Long>();
+
+    private long totalFrequency;
+
+    @Autowired
+    private ArcaRepository arcaServiceRepository;
+
+    @Autowired
+    private CauseChangeRepository causeChangeRepository;
+
+    @Autowired
+    private CauseChangeCounter causeChangeCounter;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final Object loadLock = new Object();
+
+    private CauseChangeCounter.Watermark watermark;
+
+    @PostConstruct
+    public void init() {
+        watermark = causeChangeCounter.watermark();
+    }
+
+    /**
+     * Loads the ranking from the data store once the application context is
+     * ready. The table is read page by page in id order and each page is
+     * ranked as it is read, so changes committed meanwhile are kept unless
+     * the page holds a newer version of the cause. The pages and the change
+     * count they contain are read in one read-only transaction.
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    public void load() {
+        logger.info("> load");
+
+        synchronized (loadLock) {
+            lock.writeLock().lock();
+            try {
+                clear();
+                watermark.beginLoad();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            TransactionTemplate template = new TransactionTemplate(transactionManager);
+            template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            template.setReadOnly(true);
+            long changes = template.execute(new TransactionCallback<Long>() {
+                @Override
+                public Long doInTransaction(TransactionStatus status) {
+                    long changes = causeChangeRepository.findChangeCount();
+                    long afterId = 0;
+                    List<Cause> page;
+                    do {
+                        page = arcaServiceRepository.findByIdGreaterThanOrderByIdAsc(afterId,
+                                new PageRequest(0, LOAD_PAGE_SIZE));
+                        if (!page.isEmpty()) {
+                            merge(page);
+                            afterId = page.get(page.size() - 1).getId();
+                        }
+                    } while (page.size() == LOAD_PAGE_SIZE);
+                    return changes;
+                }
+            });
+
+            lock.writeLock().lock();
+            try {
+                if (!watermark.endLoad(changes)) {
+                    logger.info("Discarding the ranking of change count {}", changes);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        logger.info("< load");
+    }
+
+    /**
+     * Replaces the whole ranking with the given causes.
+     *
+     * @param causes The causes to rank.
+     */
+    public void reset(Collection<Cause> causes) {
+        clear();
+        merge(causes);
+    }
+
+    /**
+     * Applies a committed change to the ranking. An update older than the
+     * ranked version of its cause, or of a deleted cause, is ignored.
+     *
+     * @param event The change published by the ArcaServiceBean.
+     */
+    @Order(CauseChangeCounter.CACHE_ORDER)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCauseChange(CauseChangeEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (event.getType() == CauseChangeEvent.Type.DELETED) {
+                deleted.add(event.getId());
+                remove(event.getId());
+            } else if (!deleted.contains(event.getId()) && !isOlder(event.getCause())) {
+                put(event.getCause());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the Pareto series for the highest ranked causes, holding the
+     * changes counted by the highest collection version handed out.
+     *
+     * @param top The number of causes to return, or zero or less for all.
+     * @return The causes in descending frequency order with their share and
+     *         cumulative share of all occurrences.
+     */
+    public List<ParetoItem> top(int top) {
+        long version = causeChangeCounter.highestVersion();
+        if (hasTooManyDeleted() || watermark.check(version) == CauseChangeCounter.Coverage.STALE) {
+            synchronized (loadLock) {
+                if (hasTooManyDeleted()) {
+                    // a new load holds no deleted causes to guard against
+                    logger.info("Reloading the ranking after {} deletions", deleted.size());
+                    load();
+                } else if (watermark.check(version) == CauseChangeCounter.Coverage.STALE) {
+                    logger.info("Reloading the ranking for version {}", version);
+                    load();
+                }
+            }
+        }
+
+        lock.readLock().lock();
+        try {
+            if (watermark.check(version) == CauseChangeCounter.Coverage.CURRENT) {
+                return ranked(top);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return find(top);
+    }
+
+    /**
+     * Returns the Pareto series of the ranking as it is, whatever changes it
+     * holds.
+     *
+     * @param top The number of causes to return, or zero or less for all.
+     * @return The causes in descending frequency order with their share and
+     *         cumulative share of all occurrences.
+     */
+    public List<ParetoItem> ranked(int top) {
+        lock.readLock().lock();
+        try {
+            int size = top > 0 ? Math.min(top, ranking.size()) : ranking.size();
+            List<ParetoItem> items = new ArrayList<ParetoItem>(size);
+            long running = 0;
+            Iterator<Entry> iterator = ranking.iterator();
+            while (items.size() < size) {
+                Entry entry = iterator.next();
+                running += entry.frequency;
+                items.add(new ParetoItem(entry.id, entry.name, entry.frequency,
+                        percentage(entry.frequency, totalFrequency),
+                        percentage(running, totalFrequency), entry.version));
+            }
+            return items;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Reads the Pareto series from the data store, for when the ranking does
+     * not hold the changes of the version yet. The highest causes and the
+     * grand total are read in one read-only transaction.
+     */
+    private List<ParetoItem> find(final int top) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        return template.execute(new TransactionCallback<List<ParetoItem>>() {
+            @Override
+            public List<ParetoItem> doInTransaction(TransactionStatus status) {
+                long total = arcaServiceRepository.sumFrequency();
+                List<Cause> causes = arcaServiceRepository.findAllAsList(new PageRequest(0,
+                        top > 0 ? top : Integer.MAX_VALUE,
+                        new Sort(Sort.Direction.DESC, "frequency").and(new Sort("id"))));
+                List<ParetoItem> items = new ArrayList<ParetoItem>(causes.size());
+                long running = 0;
+                for (Cause cause : causes) {
+                    long frequency = cause.getFrequency() == null ? 0 : cause.getFrequency();
+                    running += frequency;
+                    items.add(new ParetoItem(cause.getId(), cause.getName(), frequency,
+                            percentage(frequency, total), percentage(running, total),
+                            cause.getVersion()));
+                }
+                return items;
+            }
+        });
+    }
+
+    private void clear() {
+        lock.writeLock().lock();
+        try {
+            ranking.clear();
+            entries.clear();
+            deleted.clear();
+            totalFrequency = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ranks causes read from the data store, unless they were deleted or
+     * updated since.
+     */
+    private void merge(Collection<Cause> causes) {
+        lock.writeLock().lock();
+        try {
+            for (Cause cause : causes) {
+                if (!deleted.contains(cause.getId()) && !isOlder(cause)) {
+                    put(cause);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The deleted ids are kept until the next load; once there are more of
+     * them than ranked causes, reloading is cheaper than keeping them.
+     */
+    private boolean hasTooManyDeleted() {
+        lock.readLock().lock();
+        try {
+            return deleted.size() > Math.max(entries.size(), LOAD_PAGE_SIZE);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private double percentage(long frequency, long total) {
+        return total == 0 ? 0.0 : frequency * 100.0 / total;
+    }
+
+    private boolean isOlder(Cause cause) {
+        Entry entry = entries.get(cause.getId());
+        return entry != null && entry.version != null && cause.getVersion() != null
+                && cause.getVersion() < entry.version;
+    }
+
+    private void put(Cause cause) {
+        remove(cause.getId());
+        long frequency = cause.getFrequency() == null ? 0 : cause.getFrequency();
+        Entry entry = new Entry(cause.getId(), cause.getName(), frequency,
+                cause.getVersion());
+        entries.put(entry.id, entry);
+        ranking.add(entry);
+        totalFrequency += frequency;
+    }
+
+    private void remove(Long id) {
+        Entry previous = entries.remove(id);
+        if (previous != null) {
+            ranking.remove(previous);
+            totalFrequency -= previous.frequency;
+        }
+    }
+
+    private static final class Entry {
+        private final long id;
+        private final String name;
+        private final long frequency;
+        private final Long version;
+
+        private Entry(long id, String name, long frequency, Long version) {
+            this.id = id;
+            this.name = name;
+            this.frequency = frequency;
+            this.version = version;
+        }
+    }
+}
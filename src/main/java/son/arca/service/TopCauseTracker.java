@@ -0,0 +1,59 @@
+package son.arca.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import son.arca.event.CauseOccurrenceEvent;
+import son.arca.model.TopCauses;
+import son.arca.series.SlidingTopK;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * Tracks the most frequent causes over the last
+ * <code>arca.top.window-seconds</code> seconds from the committed
+ * CauseOccurrenceEvents, in <code>arca.top.capacity</code> counters per
+ * second. See SlidingTopK for the error bounds.
+ *
+ * @author Harrison Mfula
+ */
+@Component
+public class TopCauseTracker {
+
+    @Value("${arca.top.capacity:100}")
+    private int capacity;
+
+    @Value("${arca.top.window-seconds:900}")
+    private int windowSeconds;
+
+    private SlidingTopK topK;
+
+    @PostConstruct
+    public void init() {
+        topK = new SlidingTopK(capacity, windowSeconds);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOccurrence(CauseOccurrenceEvent event) {
+        topK.add(event.getTimestamp(), event.getCauseId(), event.getOccurrences());
+    }
+
+    /**
+     * @param k The number of causes, at most the counters per second.
+     * @param windowMillis The length of the window ending now, at most
+     *                     <code>arca.top.window-seconds</code>.
+     * @return The k causes with the highest estimates. Names are not set.
+     * @throws IllegalArgumentException if k or the window are out of range.
+     */
+    public TopCauses top(int k, long windowMillis) {
+        if (k < 1 || k > topK.getCapacity()) {
+            throw new IllegalArgumentException("k must be between 1 and "
+                    + topK.getCapacity() + ".");
+        }
+        if (windowMillis < 1 || windowMillis > topK.getWindowMillis()) {
+            throw new IllegalArgumentException("The window must be at most "
+                    + topK.getWindowMillis() + " ms.");
+        }
+        return topK.top(k, windowMillis, System.currentTimeMillis());
+    }
+}
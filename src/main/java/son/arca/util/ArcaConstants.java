@@ -6,4 +6,9 @@ package son.arca.util;
  */
 public class ArcaConstants {
     public static final String ARCA_CACHE_NAME = "arca-cache";
+
+    /**
+     * Upper bound for the size of a single keyset page of causes.
+     */
+    public static final int MAX_PAGE_SIZE = 1000;
 }
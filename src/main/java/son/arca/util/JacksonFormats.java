@@ -0,0 +1,110 @@
+package son.arca.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The representations of the cause API: JSON and the binary Jackson formats
+ * Smile and CBOR. The binary formats encode the same data model with fewer
+ * bytes and less CPU, and are meant for service-to-service traffic.
+ * <p>
+ * The ObjectMappers of the binary formats are configured like the JSON
+ * ObjectMapper, so all representations carry the same properties.
+ *
+ * @author Harrison Mfula
+ */
+@Component
+public class JacksonFormats {
+
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+
+    public static final MediaType APPLICATION_SMILE = MediaType.valueOf(APPLICATION_SMILE_VALUE);
+
+    public static final String APPLICATION_CBOR_VALUE = "application/cbor";
+
+    public static final MediaType APPLICATION_CBOR = MediaType.valueOf(APPLICATION_CBOR_VALUE);
+
+    /**
+     * The supported media types in order of preference.
+     */
+    public static final List<MediaType> MEDIA_TYPES = Collections.unmodifiableList(
+            Arrays.asList(MediaType.APPLICATION_JSON, APPLICATION_SMILE, APPLICATION_CBOR));
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Jackson2ObjectMapperBuilder objectMapperBuilder;
+
+    private ObjectMapper smileObjectMapper;
+
+    private ObjectMapper cborObjectMapper;
+
+    @PostConstruct
+    public void init() {
+        smileObjectMapper = new ObjectMapper(new SmileFactory());
+        objectMapperBuilder.configure(smileObjectMapper);
+        cborObjectMapper = new ObjectMapper(new CBORFactory());
+        objectMapperBuilder.configure(cborObjectMapper);
+    }
+
+    public ObjectMapper getSmileObjectMapper() {
+        return smileObjectMapper;
+    }
+
+    public ObjectMapper getCborObjectMapper() {
+        return cborObjectMapper;
+    }
+
+    /**
+     * @return The ObjectMapper of one of the MEDIA_TYPES.
+     */
+    public ObjectMapper getObjectMapper(MediaType mediaType) {
+        if (APPLICATION_SMILE.isCompatibleWith(mediaType)) {
+            return smileObjectMapper;
+        }
+        if (APPLICATION_CBOR.isCompatibleWith(mediaType)) {
+            return cborObjectMapper;
+        }
+        return objectMapper;
+    }
+
+    /**
+     * Chooses the representation of a response for an Accept header, for
+     * responses written without the message converters.
+     *
+     * @param accept The Accept header, or null.
+     * @return The most acceptable of the MEDIA_TYPES, or JSON if none is
+     *         acceptable or the header cannot be parsed.
+     */
+    public static MediaType negotiate(String accept) {
+        if (accept == null) {
+            return MediaType.APPLICATION_JSON;
+        }
+        List<MediaType> accepted;
+        try {
+            accepted = MediaType.parseMediaTypes(accept);
+        } catch (IllegalArgumentException e) {
+            return MediaType.APPLICATION_JSON;
+        }
+        MediaType.sortBySpecificityAndQuality(accepted);
+        for (MediaType acceptable : accepted) {
+            for (MediaType mediaType : MEDIA_TYPES) {
+                if (acceptable.includes(mediaType)) {
+                    return mediaType;
+                }
+            }
+        }
+        return MediaType.APPLICATION_JSON;
+    }
+}
@@ -1,17 +1,19 @@
 --INSERT  INTO  Cause(name,frequency,total,description) VALUES ('Drop Call Rate',45,2.5,'Excessive drops');
 --INSERT  INTO  Cause(name, frequency, total,description) VALUES ('Call Setup Success Rate',10,5.8,'Test description ');
-INSERT  INTO  Cause(name,frequency,total,description) VALUES ('Drop Call Rate',287,41.5,'Test description')
-INSERT  INTO  Cause(name,frequency,total,description) VALUES ('Call Setup Success Rate',155,64.0,'Test description')
-INSERT  INTO  Cause(name,frequency,total,description) VALUES ('E-RAB Setup Failure',111,80.0,'Test description')
-INSERT  INTO  Cause(name,frequency,total,description) VALUES ('I-RAT HO failure',42,86.1,'Test description')
-INSERT  INTO  Cause(name,frequency,total,description) VALUES ('Session Setup Problems',23,89.4,'Test description')
-INSERT  INTO  Cause(name,frequency,total,description) VALUES ('Internet',17,91.9,'Test description')
-INSERT  INTO  Cause(name,frequency,total,description) VALUES ('Radio Resource Failure',16,94.2,'Test description')
-INSERT  INTO  Cause(name,frequency,total,description) VALUES ('Poor Antenna Tilt',10,95.7,'Test description')
-INSERT  INTO  Cause(name,frequency,total,description) VALUES ('Coverage Holes',9,97.0,'Test description')
-INSERT  INTO  Cause(name,frequency,total,description) VALUES ('Overshooting Cells',6,97.8,'Test description')
-INSERT  INTO  Cause(name,frequency,total,description) VALUES ('Capacity Issues',5,98.6,'Test description')
-INSERT  INTO  Cause(name,frequency,total,description) VALUES ('Too High Load ',4,99.1,'Test description')
-INSERT  INTO  Cause(name,frequency,total,description) VALUES ('Ping Pong Handovers',2,99.4,'Test description')
-INSERT  INTO  Cause(name,frequency,total,description) VALUES ('Too Early Handovers',1,99.6,'Test description')
-INSERT  INTO  Cause(name,frequency,total,description) VALUES ('other',3,100.0,'Test description')
\ No newline at end of file
+INSERT  INTO  Cause(id,name,frequency,total,description) VALUES (1,'Drop Call Rate',287,41.5,'Test description')
+INSERT  INTO  Cause(id,name,frequency,total,description) VALUES (2,'Call Setup Success Rate',155,64.0,'Test description')
+INSERT  INTO  Cause(id,name,frequency,total,description) VALUES (3,'E-RAB Setup Failure',111,80.0,'Test description')
+INSERT  INTO  Cause(id,name,frequency,total,description) VALUES (4,'I-RAT HO failure',42,86.1,'Test description')
+INSERT  INTO  Cause(id,name,frequency,total,description) VALUES (5,'Session Setup Problems',23,89.4,'Test description')
+INSERT  INTO  Cause(id,name,frequency,total,description) VALUES (6,'Internet',17,91.9,'Test description')
+INSERT  INTO  Cause(id,name,frequency,total,description) VALUES (7,'Radio Resource Failure',16,94.2,'Test description')
+INSERT  INTO  Cause(id,name,frequency,total,description) VALUES (8,'Poor Antenna Tilt',10,95.7,'Test description')
+INSERT  INTO  Cause(id,name,frequency,total,description) VALUES (9,'Coverage Holes',9,97.0,'Test description')
+INSERT  INTO  Cause(id,name,frequency,total,description) VALUES (10,'Overshooting Cells',6,97.8,'Test description')
+INSERT  INTO  Cause(id,name,frequency,total,description) VALUES (11,'Capacity Issues',5,98.6,'Test description')
+INSERT  INTO  Cause(id,name,frequency,total,description) VALUES (12,'Too High Load ',4,99.1,'Test description')
+INSERT  INTO  Cause(id,name,frequency,total,description) VALUES (13,'Ping Pong Handovers',2,99.4,'Test description')
+INSERT  INTO  Cause(id,name,frequency,total,description) VALUES (14,'Too Early Handovers',1,99.6,'Test description')
+INSERT  INTO  Cause(id,name,frequency,total,description) VALUES (15,'other',3,100.0,'Test description')
+INSERT  INTO  ReplicationHeartbeat(id,beat) VALUES (1,0)
+INSERT  INTO  CauseChangeCount(id,changes) VALUES (1,0)
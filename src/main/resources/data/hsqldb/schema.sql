@@ -1,10 +1,92 @@
+DROP TABLE CauseOccurrenceMinute IF EXISTS;
+DROP TABLE CauseOccurrenceHour IF EXISTS;
+DROP TABLE CauseOccurrenceDay IF EXISTS;
+DROP TABLE ReplicationHeartbeat IF EXISTS;
+DROP TABLE CauseChangeCount IF EXISTS;
+DROP TABLE CauseTombstone IF EXISTS;
 DROP TABLE Cause IF EXISTS;
+DROP SEQUENCE cause_seq IF EXISTS;
+DROP SEQUENCE cause_change_seq IF EXISTS;
+
+-- Ids are handed out by Hibernate in blocks of 50 (pooled-lo) so inserts can
+-- be sent as JDBC batches. The sequence starts after the rows in data.sql.
+CREATE SEQUENCE cause_seq AS BIGINT START WITH 16 INCREMENT BY 50;
+
+-- Numbers the transactions that change causes. The rows in data.sql have
+-- change sequence 0.
+CREATE SEQUENCE cause_change_seq AS BIGINT START WITH 1;
 
 CREATE  TABLE Cause(
-id BIGINT GENERATED BY DEFAULT  AS IDENTITY  (START WITH  1, INCREMENT BY 1) NOT  NULL ,
+id BIGINT NOT  NULL ,
 name VARCHAR (100) NOT NULL ,
 frequency BIGINT,
 total DOUBLE ,
 description VARCHAR (100),
+-- incremented by every update, including the bulk frequency updates
+version BIGINT DEFAULT 0 NOT NULL ,
+-- the change sequence of the transaction that last wrote the row
+change_seq BIGINT DEFAULT 0 NOT NULL ,
+PRIMARY  KEY (id)
+);
+
+-- Lookups by name, with or without a lowest frequency, and the ingestion
+-- updates by name.
+CREATE INDEX cause_name_frequency_idx ON Cause (name, frequency);
+
+-- Frequency ranges and top-N by frequency.
+CREATE INDEX cause_frequency_idx ON Cause (frequency);
+
+-- The causes changed since a change sequence.
+CREATE INDEX cause_change_seq_idx ON Cause (change_seq);
+
+-- The number of committed transactions that changed causes, the version of
+-- the whole collection. Each of them increments it just before it commits,
+-- so the row lock puts the counts in commit order. A replica that has the
+-- count n has applied every change counted up to n.
+CREATE  TABLE CauseChangeCount(
+id INT NOT NULL ,
+changes BIGINT NOT NULL ,
+PRIMARY  KEY (id)
+);
+
+-- The ids of deleted causes and the change sequence of the deleting
+-- transaction, so clients mirroring the causes learn about deletions.
+CREATE  TABLE CauseTombstone(
+id BIGINT NOT NULL ,
+change_seq BIGINT NOT NULL ,
+PRIMARY  KEY (id)
+);
+
+CREATE INDEX cause_tombstone_change_seq_idx ON CauseTombstone (change_seq);
+
+-- Occurrences of a cause per time bucket, one table per resolution. The
+-- primary key lets a series query read only the buckets of its time range.
+-- bucket_start is the start of the bucket in epoch milliseconds (UTC).
+CREATE  TABLE CauseOccurrenceMinute(
+cause_id BIGINT NOT NULL ,
+bucket_start BIGINT NOT NULL ,
+occurrences BIGINT NOT NULL ,
+PRIMARY  KEY (cause_id, bucket_start)
+);
+
+CREATE  TABLE CauseOccurrenceHour(
+cause_id BIGINT NOT NULL ,
+bucket_start BIGINT NOT NULL ,
+occurrences BIGINT NOT NULL ,
+PRIMARY  KEY (cause_id, bucket_start)
+);
+
+CREATE  TABLE CauseOccurrenceDay(
+cause_id BIGINT NOT NULL ,
+bucket_start BIGINT NOT NULL ,
+occurrences BIGINT NOT NULL ,
+PRIMARY  KEY (cause_id, bucket_start)
+);
+
+-- Written to the primary and read from the replicas to measure their lag
+-- when read-only transactions are routed to replicas.
+CREATE  TABLE ReplicationHeartbeat(
+id INT NOT NULL ,
+beat BIGINT NOT NULL ,
 PRIMARY  KEY (id)
-);
\ No newline at end of file
+);
@@ -2,6 +2,12 @@ package son.arca.api;
 
 import son.arca.ws.AbstractControllerTest;
 import son.arca.model.Cause;
+import son.arca.series.Resolution;
+import son.arca.event.CauseChangeEvent;
+import son.arca.service.CauseChangeBroadcaster;
+import son.arca.service.CauseSeriesStore;
+import son.arca.service.FrequencyIncrementBuffer;
+import son.arca.util.JacksonFormats;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -9,8 +15,14 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
 /**
  * Unit tests for the ArcaController using Spring MVC Mocks.
  * <p/>
@@ -28,6 +40,18 @@ public class ArcaControllerTest extends AbstractControllerTest {
     @Autowired
     private ArcaService arcaService;
 
+    @Autowired
+    private CauseSeriesStore causeSeriesStore;
+
+    @Autowired
+    private FrequencyIncrementBuffer frequencyIncrementBuffer;
+
+    @Autowired
+    private CauseChangeBroadcaster causeChangeBroadcaster;
+
+    @Autowired
+    private JacksonFormats jacksonFormats;
+
     @Before
     public void setUp() {
         super.setUp();
@@ -51,6 +75,230 @@ public class ArcaControllerTest extends AbstractControllerTest {
                 content.trim().length() > 0);
     }
 
+    @Test
+    public void testGetCausesPage() throws Exception {
+
+        String uri = "/api/causes";
+
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.get(uri)
+                .param("size", "5")
+                .accept(MediaType.APPLICATION_JSON)).andReturn();
+
+        String content = result.getResponse().getContentAsString();
+        int status = result.getResponse().getStatus();
+
+        Assert.assertEquals("failure - expected HTTP status", 200, status);
+
+        Cause[] page = super.mapFromJson(content, Cause[].class);
+
+        Assert.assertEquals("failure - expected page size", 5, page.length);
+        Assert.assertNotNull("failure - expected next page link",
+                result.getResponse().getHeader("Link"));
+    }
+
+    @Test
+    public void testGetCausesFiltered() throws Exception {
+
+        String uri = "/api/causes?minFrequency={minFrequency}&sort={sort}&top={top}";
+
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.get(uri, 10, "name,asc", 3)
+                .accept(MediaType.APPLICATION_JSON)).andReturn();
+
+        String content = result.getResponse().getContentAsString();
+        int status = result.getResponse().getStatus();
+
+        Assert.assertEquals("failure - expected HTTP status 200", 200, status);
+
+        Cause[] causes = super.mapFromJson(content, Cause[].class);
+        Assert.assertEquals("failure - expected top causes", 3, causes.length);
+        Assert.assertEquals("failure - expected causes sorted by name",
+                "Call Setup Success Rate", causes[0].getName());
+        for (Cause cause : causes) {
+            Assert.assertTrue("failure - expected frequency of at least 10",
+                    cause.getFrequency() >= 10);
+        }
+
+        result = mvc.perform(MockMvcRequestBuilders.get(uri, 10, "description", 3)
+                .accept(MediaType.APPLICATION_JSON)).andReturn();
+
+        Assert.assertEquals("failure - expected HTTP status 400", 400,
+                result.getResponse().getStatus());
+
+    }
+
+    @Test
+    public void testGetCausesFields() throws Exception {
+
+        String uri = "/api/causes";
+
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.get(uri)
+                .accept(MediaType.APPLICATION_JSON)).andReturn();
+        String full = result.getResponse().getContentAsString();
+
+        result = mvc.perform(MockMvcRequestBuilders.get(uri)
+                .param("fields", "name,frequency,total")
+                .accept(MediaType.APPLICATION_JSON)).andReturn();
+
+        String content = result.getResponse().getContentAsString();
+        int status = result.getResponse().getStatus();
+
+        Assert.assertEquals("failure - expected HTTP status 200", 200, status);
+        Map<?, ?>[] causes = super.mapFromJson(content, Map[].class);
+        Assert.assertEquals("failure - expected list size", 15, causes.length);
+        Assert.assertEquals("failure - expected only the fields",
+                Arrays.asList("name", "frequency", "total"),
+                new ArrayList<Object>(causes[0].keySet()));
+        Assert.assertTrue("failure - expected a smaller payload",
+                content.length() < full.length());
+
+        result = mvc.perform(MockMvcRequestBuilders.get(uri)
+                .param("fields", "name,secret")
+                .accept(MediaType.APPLICATION_JSON)).andReturn();
+
+        Assert.assertEquals("failure - expected HTTP status 400", 400,
+                result.getResponse().getStatus());
+
+        result = mvc.perform(MockMvcRequestBuilders.get(uri)
+                .param("fields", "name").param("size", "5")
+                .accept(MediaType.APPLICATION_JSON)).andReturn();
+
+        Assert.assertEquals("failure - expected HTTP status 400", 400,
+                result.getResponse().getStatus());
+
+    }
+
+    @Test
+    public void testStreamCauses() throws Exception {
+
+        String uri = "/api/causes";
+
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.get(uri)
+                .param("stream", "true")
+                .accept(MediaType.APPLICATION_JSON)).andReturn();
+
+        String content = result.getResponse().getContentAsString();
+        int status = result.getResponse().getStatus();
+
+        Assert.assertEquals("failure - expected HTTP status", 200, status);
+
+        Cause[] causes = super.mapFromJson(content, Cause[].class);
+
+        Assert.assertEquals("failure - expected streamed size", 15,
+                causes.length);
+    }
+
+    @Test
+    public void testGetCausesSmile() throws Exception {
+
+        String uri = "/api/causes";
+
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.get(uri)
+                .accept(JacksonFormats.APPLICATION_SMILE)).andReturn();
+
+        byte[] content = result.getResponse().getContentAsByteArray();
+        int status = result.getResponse().getStatus();
+
+        Assert.assertEquals("failure - expected HTTP status", 200, status);
+        Assert.assertEquals("failure - expected Smile content type",
+                JacksonFormats.APPLICATION_SMILE,
+                MediaType.valueOf(result.getResponse().getContentType()));
+
+        Cause[] causes = jacksonFormats.getSmileObjectMapper()
+                .readValue(content, Cause[].class);
+
+        Assert.assertEquals("failure - expected list size", 15, causes.length);
+        Assert.assertEquals("failure - expected the cause names", "Internet",
+                causes[5].getName());
+    }
+
+    @Test
+    public void testGetCauseRepresentationETags() throws Exception {
+
+        String uri = "/api/causes/{id}";
+        Long id = new Long(1);
+
+        MvcResult json = mvc.perform(MockMvcRequestBuilders.get(uri, id)
+                .accept(MediaType.APPLICATION_JSON)).andReturn();
+        MvcResult smile = mvc.perform(MockMvcRequestBuilders.get(uri, id)
+                .accept(JacksonFormats.APPLICATION_SMILE)).andReturn();
+
+        Assert.assertEquals("failure - expected Vary: Accept", "Accept",
+                smile.getResponse().getHeader("Vary"));
+        Assert.assertNotEquals("failure - expected an ETag per representation",
+                json.getResponse().getHeader("ETag"), smile.getResponse().getHeader("ETag"));
+
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.get(uri, id)
+                .header("If-None-Match", json.getResponse().getHeader("ETag"))
+                .accept(JacksonFormats.APPLICATION_CBOR)).andReturn();
+
+        Assert.assertEquals("failure - expected HTTP status 200", 200,
+                result.getResponse().getStatus());
+        Assert.assertEquals("failure - expected CBOR content type",
+                JacksonFormats.APPLICATION_CBOR,
+                MediaType.valueOf(result.getResponse().getContentType()));
+
+        result = mvc.perform(MockMvcRequestBuilders.get("/api/causes")
+                .accept(JacksonFormats.APPLICATION_SMILE)).andReturn();
+
+        Assert.assertEquals("failure - expected Vary: Accept", "Accept",
+                result.getResponse().getHeader("Vary"));
+        Assert.assertTrue("failure - expected the Smile collection ETag",
+                result.getResponse().getHeader("ETag").endsWith("-smile\""));
+
+    }
+
+    @Test
+    public void testStreamCausesCbor() throws Exception {
+
+        String uri = "/api/causes";
+
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.get(uri)
+                .param("stream", "true")
+                .accept(JacksonFormats.APPLICATION_CBOR)).andReturn();
+
+        byte[] content = result.getResponse().getContentAsByteArray();
+        int status = result.getResponse().getStatus();
+
+        Assert.assertEquals("failure - expected HTTP status", 200, status);
+        Assert.assertEquals("failure - expected CBOR content type",
+                JacksonFormats.APPLICATION_CBOR,
+                MediaType.valueOf(result.getResponse().getContentType()));
+
+        Cause[] causes = jacksonFormats.getCborObjectMapper()
+                .readValue(content, Cause[].class);
+
+        Assert.assertEquals("failure - expected streamed size", 15,
+                causes.length);
+    }
+
+    @Test
+    public void testCreateCausesCbor() throws Exception {
+
+        String uri = "/api/causes/batch";
+        Cause first = new Cause();
+        first.setName("cbor 1");
+        Cause second = new Cause();
+        second.setName("cbor 2");
+        byte[] input = jacksonFormats.getCborObjectMapper()
+                .writeValueAsBytes(Arrays.asList(first, second));
+
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.post(uri)
+                .contentType(JacksonFormats.APPLICATION_CBOR)
+                .accept(JacksonFormats.APPLICATION_CBOR).content(input)).andReturn();
+
+        byte[] content = result.getResponse().getContentAsByteArray();
+        int status = result.getResponse().getStatus();
+
+        Assert.assertEquals("failure - expected HTTP status", 200, status);
+
+        List<?> results = jacksonFormats.getCborObjectMapper()
+                .readValue(content, List.class);
+
+        Assert.assertEquals("failure - expected a result per cause", 2, results.size());
+        Assert.assertEquals("failure - expected created", "CREATED",
+                ((Map<?, ?>) results.get(1)).get("status"));
+    }
+
     @Test
     public void testGetCause() throws Exception {
 
@@ -88,6 +336,98 @@ public class ArcaControllerTest extends AbstractControllerTest {
 
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testGetCauseSeries() throws Exception {
+
+        String uri = "/api/causes/{id}/series?from={from}&to={to}&step={step}";
+        Long id = new Long(2);
+        long from = Resolution.DAY.floor(1000000000000L);
+        causeSeriesStore.record(id, from + 61 * 60000L, 4);
+
+        MvcResult result = mvc.perform(MockMvcRequestBuilders
+                .get(uri, id, from, from + 3 * 3600000L, "1h")
+                .accept(MediaType.APPLICATION_JSON)).andReturn();
+
+        String content = result.getResponse().getContentAsString();
+        int status = result.getResponse().getStatus();
+
+        Assert.assertEquals("failure - expected HTTP status 200", 200, status);
+
+        Map<String, Object>[] series = super.mapFromJson(content, Map[].class);
+        Assert.assertEquals("failure - expected a point per hour", 3, series.length);
+        Assert.assertEquals("failure - expected occurrences", 4,
+                ((Number) series[1].get("occurrences")).intValue());
+
+        result = mvc.perform(MockMvcRequestBuilders.get(uri, id, from, from, "90s")
+                .accept(MediaType.APPLICATION_JSON)).andReturn();
+
+        Assert.assertEquals("failure - expected HTTP status 400", 400,
+                result.getResponse().getStatus());
+
+        result = mvc.perform(MockMvcRequestBuilders.get(uri, Long.MAX_VALUE, from, from, "1m")
+                .accept(MediaType.APPLICATION_JSON)).andReturn();
+
+        Assert.assertEquals("failure - expected HTTP status 404", 404,
+                result.getResponse().getStatus());
+
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testGetTopCauses() throws Exception {
+
+        String uri = "/api/causes/top?k={k}&window={window}";
+
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.get(uri, 5, "1m")
+                .accept(MediaType.APPLICATION_JSON)).andReturn();
+
+        String content = result.getResponse().getContentAsString();
+        int status = result.getResponse().getStatus();
+
+        Assert.assertEquals("failure - expected HTTP status 200", 200, status);
+        Map<String, Object> top = super.mapFromJson(content, Map.class);
+        Assert.assertEquals("failure - expected window", 60000,
+                ((Number) top.get("windowMillis")).intValue());
+
+        result = mvc.perform(MockMvcRequestBuilders.get(uri, 5, "1y")
+                .accept(MediaType.APPLICATION_JSON)).andReturn();
+
+        Assert.assertEquals("failure - expected HTTP status 400", 400,
+                result.getResponse().getStatus());
+
+    }
+
+    @Test
+    public void testIncrementCause() throws Exception {
+
+        String uri = "/api/causes/{id}/increment?by={by}";
+        Long id = new Long(1);
+        Long frequency = arcaService.findOne(id).getFrequency();
+
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.post(uri, id, 3))
+                .andReturn();
+
+        Assert.assertEquals("failure - expected HTTP status 202", 202,
+                result.getResponse().getStatus());
+
+        frequencyIncrementBuffer.flush();
+        Assert.assertEquals("failure - expected frequency incremented",
+                Long.valueOf(frequency + 3), arcaService.findOne(id).getFrequency());
+
+        result = mvc.perform(MockMvcRequestBuilders.post(uri, id, 0)).andReturn();
+
+        Assert.assertEquals("failure - expected HTTP status 400", 400,
+                result.getResponse().getStatus());
+
+        result = mvc.perform(MockMvcRequestBuilders.post(uri, Long.MAX_VALUE, 1))
+                .andReturn();
+
+        Assert.assertEquals("failure - expected HTTP status 404", 404,
+                result.getResponse().getStatus());
+
+    }
+
     @Test
     public void testCreateCause() throws Exception {
 
@@ -121,6 +461,36 @@ public class ArcaControllerTest extends AbstractControllerTest {
 
     }
 
+    @Test
+    public void testCreateCauses() throws Exception {
+
+        String uri = "/api/causes/batch";
+        Cause first = new Cause();
+        first.setName("first");
+        Cause second = new Cause();
+        second.setName("second");
+        String inputJson = super.mapToJson(Arrays.asList(first, second));
+
+        MvcResult result = mvc
+                .perform(MockMvcRequestBuilders.post(uri)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON).content(inputJson))
+                .andReturn();
+
+        String content = result.getResponse().getContentAsString();
+        int status = result.getResponse().getStatus();
+
+        Assert.assertEquals("failure - expected HTTP status 200", 200, status);
+
+        Map<?, ?>[] results = super.mapFromJson(content, Map[].class);
+
+        Assert.assertEquals("failure - expected result per item", 2,
+                results.length);
+        Assert.assertEquals("failure - expected CREATED", "CREATED",
+                results[1].get("status"));
+
+    }
+
     @Test
     public void testUpdateCause() throws Exception {
 
@@ -156,6 +526,189 @@ public class ArcaControllerTest extends AbstractControllerTest {
 
     }
 
+    @Test
+    public void testUpdateCauseConflict() throws Exception {
+
+        String uri = "/api/causes/{id}";
+        Long id = new Long(1);
+        Cause cause = arcaService.findOne(id).copy();
+        cause.setVersion(cause.getVersion() + 1);
+        String inputJson = super.mapToJson(cause);
+
+        MvcResult result = mvc
+                .perform(MockMvcRequestBuilders.put(uri, id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON).content(inputJson))
+                .andReturn();
+
+        Assert.assertEquals("failure - expected HTTP status 409", 409,
+                result.getResponse().getStatus());
+
+        cause.setVersion(null);
+        inputJson = super.mapToJson(cause);
+
+        result = mvc
+                .perform(MockMvcRequestBuilders.put(uri, id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("If-Match", "\"99\"")
+                        .accept(MediaType.APPLICATION_JSON).content(inputJson))
+                .andReturn();
+
+        Assert.assertEquals("failure - expected HTTP status 412", 412,
+                result.getResponse().getStatus());
+
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void testUpdateCauseFromList() throws Exception {
+
+        String uri = "/api/causes/{id}";
+        Long id = new Long(3);
+        Cause cause = findInList(id);
+        String description = cause.getDescription();
+        cause.setDescription(description + " test");
+
+        MvcResult result = mvc
+                .perform(MockMvcRequestBuilders.put(uri, id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .content(super.mapToJson(cause)))
+                .andReturn();
+
+        Assert.assertEquals("failure - expected HTTP status 200", 200,
+                result.getResponse().getStatus());
+
+        Cause listedCause = findInList(id);
+
+        Assert.assertEquals("failure - expected the updated version in the list",
+                arcaService.findOne(id).getVersion(), listedCause.getVersion());
+
+        listedCause.setDescription(description);
+
+        result = mvc
+                .perform(MockMvcRequestBuilders.put(uri, id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .content(super.mapToJson(listedCause)))
+                .andReturn();
+
+        Assert.assertEquals("failure - expected HTTP status 200", 200,
+                result.getResponse().getStatus());
+
+    }
+
+    @Test
+    public void testGetCauseNotModified() throws Exception {
+
+        String uri = "/api/causes/{id}";
+        Long id = new Long(1);
+
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.get(uri, id)
+                .accept(MediaType.APPLICATION_JSON)).andReturn();
+
+        String eTag = result.getResponse().getHeader("ETag");
+        Assert.assertEquals("failure - expected ETag of the version",
+                "\"" + arcaService.findOne(id).getVersion() + "\"", eTag);
+
+        result = mvc.perform(MockMvcRequestBuilders.get(uri, id)
+                .header("If-None-Match", eTag)
+                .accept(MediaType.APPLICATION_JSON)).andReturn();
+
+        Assert.assertEquals("failure - expected HTTP status 304", 304,
+                result.getResponse().getStatus());
+        Assert.assertTrue("failure - expected HTTP response body to be empty",
+                result.getResponse().getContentAsString().isEmpty());
+
+    }
+
+    @Test
+    public void testGetCausesNotModified() throws Exception {
+
+        String uri = "/api/causes";
+
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.get(uri)
+                .accept(MediaType.APPLICATION_JSON)).andReturn();
+
+        String eTag = result.getResponse().getHeader("ETag");
+        Assert.assertNotNull("failure - expected ETag", eTag);
+
+        result = mvc.perform(MockMvcRequestBuilders.get(uri)
+                .header("If-None-Match", eTag)
+                .accept(MediaType.APPLICATION_JSON)).andReturn();
+
+        Assert.assertEquals("failure - expected HTTP status 304", 304,
+                result.getResponse().getStatus());
+        Assert.assertTrue("failure - expected HTTP response body to be empty",
+                result.getResponse().getContentAsString().isEmpty());
+
+        result = mvc.perform(MockMvcRequestBuilders.get(uri)
+                .header("If-None-Match", "\"stale\"")
+                .accept(MediaType.APPLICATION_JSON)).andReturn();
+
+        Assert.assertEquals("failure - expected HTTP status 200", 200,
+                result.getResponse().getStatus());
+
+    }
+
+    @Test
+    public void testGetCauseChanges() throws Exception {
+
+        String uri = "/api/causes/changes";
+
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.get(uri)
+                .accept(MediaType.APPLICATION_JSON)).andReturn();
+
+        String content = result.getResponse().getContentAsString();
+        int status = result.getResponse().getStatus();
+
+        Assert.assertEquals("failure - expected HTTP status 200", 200, status);
+        Map<?, ?> changes = super.mapFromJson(content, Map.class);
+        Assert.assertEquals("failure - expected all causes", 15,
+                ((List<?>) changes.get("changed")).size());
+        Assert.assertTrue("failure - expected a high-water mark",
+                changes.get("highWaterMark") instanceof Number);
+
+        result = mvc.perform(MockMvcRequestBuilders.get(uri).param("since", "-1")
+                .accept(MediaType.APPLICATION_JSON)).andReturn();
+
+        Assert.assertEquals("failure - expected HTTP status 400", 400,
+                result.getResponse().getStatus());
+
+    }
+
+    @Test
+    public void testStreamCauseChanges() throws Exception {
+
+        String uri = "/api/causes/stream";
+
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.get(uri)
+                .accept(MediaType.valueOf("text/event-stream"))).andReturn();
+
+        Assert.assertTrue("failure - expected an open stream",
+                result.getRequest().isAsyncStarted());
+
+        // the broadcaster listens after commit, which a test transaction
+        // never reaches
+        Cause cause = arcaService.findOne(1L);
+        causeChangeBroadcaster.onCauseChange(CauseChangeEvent.updated(cause));
+
+        String content = result.getResponse().getContentAsString();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!content.contains("event:cause") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            content = result.getResponse().getContentAsString();
+        }
+
+        Assert.assertTrue("failure - expected the cause event",
+                content.contains("event:cause"));
+        Assert.assertTrue("failure - expected the change type",
+                content.contains("\"type\":\"UPDATED\""));
+        Assert.assertTrue("failure - expected the cause",
+                content.contains("\"name\":\"" + cause.getName() + "\""));
+
+    }
+
     @Test
     public void testDeleteCause() throws Exception {
 
@@ -179,4 +732,42 @@ public class ArcaControllerTest extends AbstractControllerTest {
 
     }
 
-}
\ No newline at end of file
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testGetLatency() throws Exception {
+
+        mvc.perform(MockMvcRequestBuilders.get("/api/causes/{id}", new Long(1))
+                .accept(MediaType.APPLICATION_JSON)).andReturn();
+
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.get("/latency")
+                .accept(MediaType.APPLICATION_JSON)).andReturn();
+
+        String content = result.getResponse().getContentAsString();
+        int status = result.getResponse().getStatus();
+
+        Assert.assertEquals("failure - expected HTTP status 200", 200, status);
+
+        Map<String, Map<String, Object>> latencies = super.mapFromJson(content, Map.class);
+
+        for (String name : Arrays.asList("http.ArcaController.getCause",
+                "service.findOne", "repository.findOne", "serialization.json")) {
+            Assert.assertTrue("failure - expected histogram " + name,
+                    latencies.containsKey(name));
+            Assert.assertTrue("failure - expected recorded values for " + name,
+                    ((Number) latencies.get(name).get("count")).longValue() > 0);
+        }
+
+    }
+
+    private Cause findInList(Long id) throws Exception {
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.get("/api/causes")
+                .accept(MediaType.APPLICATION_JSON)).andReturn();
+        for (Cause cause : super.mapFromJson(
+                result.getResponse().getContentAsString(), Cause[].class)) {
+            if (id.equals(cause.getId())) {
+                return cause;
+            }
+        }
+        return null;
+    }
+}
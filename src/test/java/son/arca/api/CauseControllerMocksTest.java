@@ -2,6 +2,7 @@ package son.arca.api;
 
 import son.arca.ws.AbstractControllerTest;
 import son.arca.model.Cause;
+import son.arca.model.CauseView;
 import son.arca.controller.ArcaController;
 import org.junit.Assert;
 import org.junit.Before;
@@ -9,15 +10,23 @@ import org.junit.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockAsyncContext;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
 
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.*;
 
 /**
@@ -47,6 +56,12 @@ public class CauseControllerMocksTest extends AbstractControllerTest {
     @Mock
     private EmailService emailService;
 
+    /**
+     * A mocked NotificationService
+     */
+    @Mock
+    private NotificationService notificationService;
+
     /**
      * A ArcaController instance with <code>@Mock</code> components injected
      * into it.
@@ -70,7 +85,7 @@ public class CauseControllerMocksTest extends AbstractControllerTest {
     public void testGetCauses() throws Exception {
 
         // Create some test data
-        Collection<Cause> list = getEntityListStubData();
+        Collection<CauseView> list = getEntityListStubData();
 
         // Stub the ArcaService.findAll method return value
         when(arcaService.findAll()).thenReturn(list);
@@ -268,9 +283,244 @@ public class CauseControllerMocksTest extends AbstractControllerTest {
 
     }
 
-    private Collection<Cause> getEntityListStubData() {
-        Collection<Cause> list = new ArrayList<Cause>();
-        list.add(getEntityStubData());
+    @Test
+    public void testSendCauseWait() throws Exception {
+
+        // Create some test data
+        Long id = new Long(1);
+        Cause entity = getEntityStubData();
+
+        // Stub the ArcaService.findOne and EmailService.sendAsyncWithResult
+        // method return values; the email completes when the test says so
+        CompletableFuture<Boolean> emailSent = new CompletableFuture<Boolean>();
+        when(arcaService.findOne(id)).thenReturn(entity);
+        when(emailService.sendAsyncWithResult(any(Cause.class))).thenReturn(emailSent);
+
+        // Perform the behavior being tested
+        String uri = "/api/causes/{id}/send";
+
+        MvcResult asyncResult = mvc.perform(MockMvcRequestBuilders.post(uri, id)
+                .param("wait", "true")
+                .accept(MediaType.APPLICATION_JSON)).andReturn();
+
+        // Verify the request thread was released before the email completed
+        Assert.assertTrue("failure - expected asynchronous processing",
+                asyncResult.getRequest().isAsyncStarted());
+        Assert.assertFalse("failure - expected no response before the email",
+                asyncResult.getResponse().isCommitted());
+
+        emailSent.complete(Boolean.TRUE);
+
+        MvcResult result = mvc.perform(
+                MockMvcRequestBuilders.asyncDispatch(asyncResult)).andReturn();
+
+        // Extract the response status and body
+        String content = result.getResponse().getContentAsString();
+        int status = result.getResponse().getStatus();
+
+        // Verify the EmailService.sendAsyncWithResult method was invoked once
+        verify(emailService, times(1)).sendAsyncWithResult(any(Cause.class));
+
+        // Perform standard JUnit assertions on the test results
+        Assert.assertEquals("failure - expected HTTP status 200", 200, status);
+        Assert.assertTrue(
+                "failure - expected HTTP response body to have a value",
+                content.trim().length() > 0);
+    }
+
+    @Test
+    public void testSendCauseWaitTimeout() throws Exception {
+
+        // Create some test data
+        Long id = new Long(1);
+        Cause entity = getEntityStubData();
+
+        // Stub the ArcaService.findOne and EmailService.sendAsyncWithResult
+        // method return values; the email never completes
+        when(arcaService.findOne(id)).thenReturn(entity);
+        when(emailService.sendAsyncWithResult(any(Cause.class)))
+                .thenReturn(new CompletableFuture<Boolean>());
+        ReflectionTestUtils.setField(arcaController, "sendTimeout", 1000L);
+        ReflectionTestUtils.setField(arcaController, "sendTimeoutStatus",
+                HttpStatus.ACCEPTED);
+
+        // Perform the behavior being tested
+        String uri = "/api/causes/{id}/send";
+
+        MvcResult asyncResult = mvc.perform(MockMvcRequestBuilders.post(uri, id)
+                .param("wait", "true")
+                .accept(MediaType.APPLICATION_JSON)).andReturn();
+
+        Assert.assertTrue("failure - expected asynchronous processing",
+                asyncResult.getRequest().isAsyncStarted());
+
+        // Time out the request as the servlet container would
+        MockAsyncContext asyncContext =
+                (MockAsyncContext) asyncResult.getRequest().getAsyncContext();
+        for (AsyncListener listener : asyncContext.getListeners()) {
+            listener.onTimeout(new AsyncEvent(asyncContext));
+        }
+
+        MvcResult result = mvc.perform(
+                MockMvcRequestBuilders.asyncDispatch(asyncResult)).andReturn();
+
+        // Extract the response status and body
+        String content = result.getResponse().getContentAsString();
+        int status = result.getResponse().getStatus();
+
+        // Perform standard JUnit assertions on the test results
+        Assert.assertEquals("failure - expected HTTP status 202", 202, status);
+        Assert.assertTrue(
+                "failure - expected HTTP response body to have a value",
+                content.trim().length() > 0);
+    }
+
+    @Test
+    public void testSendCauseNotFound() throws Exception {
+
+        // Create some test data
+        Long id = Long.MAX_VALUE;
+
+        // Stub the ArcaService.findOne method return value
+        when(arcaService.findOne(id)).thenReturn(null);
+
+        // Perform the behavior being tested
+        String uri = "/api/causes/{id}/send";
+
+        MvcResult asyncResult = mvc.perform(MockMvcRequestBuilders.post(uri, id)
+                .accept(MediaType.APPLICATION_JSON)).andReturn();
+        MvcResult result = mvc.perform(
+                MockMvcRequestBuilders.asyncDispatch(asyncResult)).andReturn();
+
+        // Extract the response status
+        int status = result.getResponse().getStatus();
+
+        // Verify no notification was queued
+        verify(notificationService, never()).enqueue(anyString(), any(Cause.class));
+
+        // Perform standard JUnit assertions on the test results
+        Assert.assertEquals("failure - expected HTTP status 404", 404, status);
+    }
+
+    @Test
+    public void testSendCauseQueued() throws Exception {
+
+        // Create some test data
+        Long id = new Long(1);
+        Cause entity = getEntityStubData();
+
+        // Stub the ArcaService.findOne and NotificationService.enqueue method
+        // return values
+        when(arcaService.findOne(id)).thenReturn(entity);
+        when(notificationService.enqueue(anyString(), any(Cause.class)))
+                .thenReturn(true);
+
+        // Perform the behavior being tested
+        String uri = "/api/causes/{id}/send";
+
+        MvcResult asyncResult = mvc.perform(MockMvcRequestBuilders.post(uri, id)
+                .param("to", "noc@example.com")
+                .accept(MediaType.APPLICATION_JSON)).andReturn();
+        MvcResult result = mvc.perform(
+                MockMvcRequestBuilders.asyncDispatch(asyncResult)).andReturn();
+
+        // Extract the response status
+        int status = result.getResponse().getStatus();
+
+        // Verify the notification was queued and no email was sent directly
+        verify(notificationService, times(1)).enqueue("noc@example.com", entity);
+        verify(emailService, never()).sendAsync(any(Cause.class));
+
+        // Perform standard JUnit assertions on the test results
+        Assert.assertEquals("failure - expected HTTP status 200", 200, status);
+    }
+
+    @Test
+    public void testSendCauseQueueFull() throws Exception {
+
+        // Create some test data
+        Long id = new Long(1);
+        Cause entity = getEntityStubData();
+
+        // Stub the NotificationService.enqueue method to report a full queue
+        when(arcaService.findOne(id)).thenReturn(entity);
+        when(notificationService.enqueue(anyString(), any(Cause.class)))
+                .thenReturn(false);
+
+        // Perform the behavior being tested
+        String uri = "/api/causes/{id}/send";
+
+        MvcResult asyncResult = mvc.perform(MockMvcRequestBuilders.post(uri, id)
+                .param("to", "noc@example.com")
+                .accept(MediaType.APPLICATION_JSON)).andReturn();
+        MvcResult result = mvc.perform(
+                MockMvcRequestBuilders.asyncDispatch(asyncResult)).andReturn();
+
+        // Extract the response status
+        int status = result.getResponse().getStatus();
+
+        // Perform standard JUnit assertions on the test results
+        Assert.assertEquals("failure - expected HTTP status 503", 503, status);
+    }
+
+    @Test
+    public void testSendCauseRecipientNotAllowed() throws Exception {
+
+        // Create some test data
+        Long id = new Long(1);
+        Cause entity = getEntityStubData();
+
+        // Stub the NotificationService.enqueue method to reject the recipient
+        when(arcaService.findOne(id)).thenReturn(entity);
+        when(notificationService.enqueue(anyString(), any(Cause.class)))
+                .thenThrow(new IllegalArgumentException("test"));
+
+        // Perform the behavior being tested
+        String uri = "/api/causes/{id}/send";
+
+        MvcResult asyncResult = mvc.perform(MockMvcRequestBuilders.post(uri, id)
+                .param("to", "someone@example.org")
+                .accept(MediaType.APPLICATION_JSON)).andReturn();
+        MvcResult result = mvc.perform(
+                MockMvcRequestBuilders.asyncDispatch(asyncResult)).andReturn();
+
+        // Extract the response status
+        int status = result.getResponse().getStatus();
+
+        // Perform standard JUnit assertions on the test results
+        Assert.assertEquals("failure - expected HTTP status 400", 400, status);
+    }
+
+    @Test
+    public void testSendCauseRejected() throws Exception {
+
+        // Create some test data
+        Long id = new Long(1);
+        Cause entity = getEntityStubData();
+
+        // Stub the EmailService.sendAsyncWithResult method to report a
+        // saturated executor
+        when(arcaService.findOne(id)).thenReturn(entity);
+        when(emailService.sendAsyncWithResult(any(Cause.class)))
+                .thenThrow(new TaskRejectedException("test"));
+
+        // Perform the behavior being tested
+        String uri = "/api/causes/{id}/send";
+
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.post(uri, id)
+                .param("wait", "true")
+                .accept(MediaType.APPLICATION_JSON)).andReturn();
+
+        // Extract the response status
+        int status = result.getResponse().getStatus();
+
+        // Perform standard JUnit assertions on the test results
+        Assert.assertEquals("failure - expected HTTP status 503", 503, status);
+    }
+
+    private Collection<CauseView> getEntityListStubData() {
+        Collection<CauseView> list = new ArrayList<CauseView>();
+        list.add(CauseView.of(getEntityStubData()));
         return list;
     }
 
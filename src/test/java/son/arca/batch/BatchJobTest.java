@@ -0,0 +1,193 @@
+package son.arca.batch;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.scheduling.support.PeriodicTrigger;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Unit tests for the overlap policies and metrics of the BatchJob.
+ *
+ * @author Harrison Mfula
+ */
+public class BatchJobTest {
+
+    private ExecutorService executor;
+
+    private CountDownLatch release;
+
+    private AtomicInteger started;
+
+    private AtomicInteger maxRunning;
+
+    private AtomicInteger running;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newCachedThreadPool();
+        release = new CountDownLatch(1);
+        started = new AtomicInteger();
+        maxRunning = new AtomicInteger();
+        running = new AtomicInteger();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testSkip() throws Exception {
+
+        BatchJob job = job(OverlapPolicy.SKIP);
+
+        job.run();
+        awaitStarted(1);
+        job.run();
+        job.run();
+        release.countDown();
+        awaitRuns(job, 1);
+
+        Assert.assertEquals("failure - expected one run", 1, started.get());
+        Assert.assertEquals("failure - expected missed firings", 2L,
+                metric(job, "missed"));
+
+    }
+
+    @Test
+    public void testQueue() throws Exception {
+
+        BatchJob job = job(OverlapPolicy.QUEUE);
+
+        job.run();
+        awaitStarted(1);
+        job.run();
+        job.run();
+        release.countDown();
+        awaitRuns(job, 2);
+
+        Assert.assertEquals("failure - expected the queued run", 2, started.get());
+        Assert.assertEquals("failure - expected runs never to overlap", 1,
+                maxRunning.get());
+        Assert.assertEquals("failure - expected the merged firing missed", 1L,
+                metric(job, "missed"));
+
+    }
+
+    @Test
+    public void testConcurrent() throws Exception {
+
+        BatchJob job = job(OverlapPolicy.CONCURRENT);
+
+        job.run();
+        job.run();
+        awaitStarted(2);
+        release.countDown();
+        awaitRuns(job, 2);
+
+        Assert.assertEquals("failure - expected overlapping runs", 2,
+                maxRunning.get());
+        Assert.assertEquals("failure - expected no missed firings", 0L,
+                metric(job, "missed"));
+
+    }
+
+    @Test
+    public void testFailedRun() throws Exception {
+
+        BatchJob job = new BatchJob("failing", new PeriodicTrigger(1000),
+                OverlapPolicy.SKIP, executor, new Runnable() {
+                    @Override
+                    public void run() {
+                        throw new IllegalStateException("failure");
+                    }
+                });
+
+        job.run();
+        awaitRuns(job, 1);
+        job.run();
+        awaitRuns(job, 2);
+
+        Assert.assertEquals("failure - expected failed runs counted", 2L,
+                metric(job, "failed"));
+        Assert.assertEquals("failure - expected no run in progress", 0L,
+                metric(job, "running"));
+
+    }
+
+    @Test
+    public void testQueueAfterError() throws Exception {
+
+        final AtomicInteger calls = new AtomicInteger();
+        BatchJob job = new BatchJob("erroring", new PeriodicTrigger(1000),
+                OverlapPolicy.QUEUE, executor, new Runnable() {
+                    @Override
+                    public void run() {
+                        if (calls.incrementAndGet() == 1) {
+                            throw new Error("failure");
+                        }
+                    }
+                });
+
+        job.run();
+        awaitRuns(job, 1);
+        job.run();
+        awaitRuns(job, 2);
+
+        Assert.assertEquals("failure - expected a run after the error", 2, calls.get());
+        Assert.assertEquals("failure - expected no run in progress", 0L,
+                metric(job, "running"));
+
+    }
+
+    private BatchJob job(OverlapPolicy policy) {
+        return new BatchJob("test", new PeriodicTrigger(1000), policy, executor,
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        started.incrementAndGet();
+                        int now = running.incrementAndGet();
+                        maxRunning.set(Math.max(maxRunning.get(), now));
+                        try {
+                            release.await(10, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        } finally {
+                            running.decrementAndGet();
+                        }
+                    }
+                });
+    }
+
+    private void awaitStarted(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (started.get() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private void awaitRuns(BatchJob job, long count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while ((metric(job, "runs") < count || metric(job, "running") > 0)
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static long metric(BatchJob job, String name) {
+        for (Metric<?> metric : job.metrics()) {
+            if (metric.getName().equals("batch.job." + job.getName() + "." + name)) {
+                return metric.getValue().longValue();
+            }
+        }
+        throw new IllegalArgumentException(name);
+    }
+}
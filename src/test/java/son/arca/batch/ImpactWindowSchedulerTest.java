@@ -0,0 +1,242 @@
+package son.arca.batch;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Unit tests for the per-cell impact windows of the ImpactWindowScheduler.
+ *
+ * @author Harrison Mfula
+ */
+public class ImpactWindowSchedulerTest {
+
+    private ExecutorService executor;
+
+    private ScheduledExecutorService timer;
+
+    private ImpactWindowScheduler scheduler;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+        timer = Executors.newSingleThreadScheduledExecutor();
+        scheduler = new ImpactWindowScheduler(executor, timer);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+        timer.shutdownNow();
+    }
+
+    @Test
+    public void testDisjointCellsRunInParallel() throws Exception {
+
+        final CyclicBarrier barrier = new CyclicBarrier(4);
+        List<CompletableFuture<Void>> futures = new ArrayList<CompletableFuture<Void>>();
+        for (int i = 0; i < 4; i++) {
+            futures.add(scheduler.submit(action("cell-" + i, 0, 1000, new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        // only passes if all four actions run at the same time
+                        barrier.await(5, TimeUnit.SECONDS);
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            })));
+        }
+
+        for (CompletableFuture<Void> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        Assert.assertEquals("failure - expected all actions completed", 4L,
+                scheduler.getCompleted());
+
+    }
+
+    @Test
+    public void testImpactWindowRespected() throws Exception {
+
+        final long[] times = new long[2];
+        CompletableFuture<Void> first = scheduler.submit(action("cell-1", 0, 200,
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        times[0] = System.nanoTime();
+                    }
+                }));
+        CompletableFuture<Void> second = scheduler.submit(action("cell-1", 0, 200,
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        times[1] = System.nanoTime();
+                    }
+                }));
+
+        first.get(10, TimeUnit.SECONDS);
+        second.get(10, TimeUnit.SECONDS);
+
+        Assert.assertTrue("failure - expected the impact window to pass",
+                TimeUnit.NANOSECONDS.toMillis(times[1] - times[0]) >= 200);
+
+    }
+
+    @Test
+    public void testOverlappingClustersDoNotRunTogether() throws Exception {
+
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        Runnable work = new Runnable() {
+            @Override
+            public void run() {
+                int now = running.incrementAndGet();
+                maxRunning.set(Math.max(maxRunning.get(), now));
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    running.decrementAndGet();
+                }
+            }
+        };
+
+        CompletableFuture<Void> first = scheduler.submit(new SonAction("a-b",
+                new HashSet<String>(Arrays.asList("a", "b")), 0, 0, work));
+        CompletableFuture<Void> second = scheduler.submit(new SonAction("b-c",
+                new HashSet<String>(Arrays.asList("b", "c")), 0, 0, work));
+
+        first.get(10, TimeUnit.SECONDS);
+        second.get(10, TimeUnit.SECONDS);
+
+        Assert.assertEquals("failure - expected the shared cell to serialize the actions",
+                1, maxRunning.get());
+
+    }
+
+    @Test
+    public void testWaitingActionsRunByPriority() throws Exception {
+
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<String> order = Collections.synchronizedList(new ArrayList<String>());
+
+        CompletableFuture<Void> blocker = scheduler.submit(action("cell-1", 0, 0,
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            release.await(5, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                }));
+        CompletableFuture<Void> low = scheduler.submit(action("cell-1", 1, 0,
+                record(order, "low")));
+        CompletableFuture<Void> high = scheduler.submit(action("cell-1", 9, 0,
+                record(order, "high")));
+
+        Assert.assertEquals("failure - expected the conflicting actions to wait", 2,
+                scheduler.getWaiting());
+
+        release.countDown();
+        blocker.get(10, TimeUnit.SECONDS);
+        low.get(10, TimeUnit.SECONDS);
+        high.get(10, TimeUnit.SECONDS);
+
+        Assert.assertEquals("failure - expected the higher priority first",
+                Arrays.asList("high", "low"), order);
+
+    }
+
+    @Test
+    public void testWaitingActionReservesItsCells() throws Exception {
+
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<String> order = Collections.synchronizedList(new ArrayList<String>());
+
+        CompletableFuture<Void> blocker = scheduler.submit(action("a", 0, 0,
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            release.await(5, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                }));
+        CompletableFuture<Void> high = scheduler.submit(new SonAction("a-b",
+                new HashSet<String>(Arrays.asList("a", "b")), 9, 0,
+                record(order, "high")));
+        CompletableFuture<Void> low = scheduler.submit(action("b", 1, 0,
+                record(order, "low")));
+
+        Assert.assertEquals("failure - expected the free cell reserved for the higher priority",
+                2, scheduler.getWaiting());
+
+        release.countDown();
+        blocker.get(10, TimeUnit.SECONDS);
+        high.get(10, TimeUnit.SECONDS);
+        low.get(10, TimeUnit.SECONDS);
+
+        Assert.assertEquals("failure - expected the higher priority first",
+                Arrays.asList("high", "low"), order);
+
+    }
+
+    @Test
+    public void testFailedAction() throws Exception {
+
+        CompletableFuture<Void> future = scheduler.submit(action("cell-1", 0, 0,
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        throw new IllegalStateException("failure");
+                    }
+                }));
+        CompletableFuture<Void> next = scheduler.submit(action("cell-1", 0, 0,
+                record(new ArrayList<String>(), "next")));
+
+        next.get(10, TimeUnit.SECONDS);
+
+        Assert.assertTrue("failure - expected failed future",
+                future.isCompletedExceptionally());
+        Assert.assertEquals("failure - expected failure counted", 1L,
+                scheduler.getFailed());
+
+    }
+
+    private static SonAction action(String cell, int priority, long impactMillis,
+                                    Runnable work) {
+        return new SonAction(cell, Collections.singleton(cell), priority, impactMillis,
+                work);
+    }
+
+    private static Runnable record(final List<String> order, final String name) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                order.add(name);
+            }
+        };
+    }
+}
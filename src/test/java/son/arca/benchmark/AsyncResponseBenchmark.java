@@ -0,0 +1,65 @@
+package son.arca.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import son.arca.util.AsyncResponse;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of AsyncResponse.get, for an already completed response and for
+ * one completed by another thread.
+ *
+ * @author Harrison Mfula
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class AsyncResponseBenchmark {
+
+    private ExecutorService executor;
+
+    private AsyncResponse<Boolean> completed;
+
+    @Setup
+    public void setUp() {
+        executor = Executors.newSingleThreadExecutor();
+        completed = new AsyncResponse<Boolean>(Boolean.TRUE);
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public Boolean getCompleted() throws Exception {
+        return completed.get();
+    }
+
+    @Benchmark
+    public Boolean getCompletedByOtherThread() throws Exception {
+        final AsyncResponse<Boolean> response = new AsyncResponse<Boolean>();
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                response.completed(Boolean.TRUE);
+            }
+        });
+        return response.get();
+    }
+}
@@ -0,0 +1,76 @@
+package son.arca.benchmark;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import son.arca.Application;
+import son.arca.api.ArcaService;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Starts the application without the web tier against the embedded HSQLDB
+ * database, seeded with a given number of causes, for the benchmarks.
+ *
+ * @author Harrison Mfula
+ */
+final class BenchmarkApplication {
+
+    /**
+     * Rows inserted by data.sql.
+     */
+    static final int INITIAL_ROWS = 15;
+
+    private static final int SEED_BATCH_SIZE = 10000;
+
+    private BenchmarkApplication() {
+
+    }
+
+    /**
+     * @param rows The number of causes the Cause table holds once started.
+     * @param properties Additional properties, e.g. "arca.snapshot.enabled=false".
+     */
+    static ConfigurableApplicationContext start(int rows, String... properties) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(Application.class)
+                .web(false)
+                .properties("logging.level.son.arca=WARN", "logging.level.org=WARN",
+                        "spring.jmx.enabled=false")
+                .properties(properties)
+                // keeps the batch jobs from running alongside the benchmarks
+                .run("--spring.profiles.active=benchmark");
+        seed(context.getBean(JdbcTemplate.class), rows);
+        // the snapshot and cache were loaded before seeding
+        context.getBean(ArcaService.class).evictCache();
+        return context;
+    }
+
+    private static void seed(JdbcTemplate jdbcTemplate, final int rows) {
+        for (int from = INITIAL_ROWS + 1; from <= rows; from += SEED_BATCH_SIZE) {
+            final int first = from;
+            final int size = Math.min(SEED_BATCH_SIZE, rows - from + 1);
+            jdbcTemplate.batchUpdate(
+                    "INSERT INTO Cause(id,name,frequency,total,description) VALUES (?,?,?,?,?)",
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            long id = first + i;
+                            ps.setLong(1, id);
+                            ps.setString(2, "Cause " + id);
+                            ps.setLong(3, id % 100);
+                            ps.setDouble(4, 0);
+                            ps.setString(5, "Seeded cause " + id);
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return size;
+                        }
+                    });
+        }
+        // keep the ids handed out by the sequence clear of the seeded rows
+        jdbcTemplate.execute("ALTER SEQUENCE cause_seq RESTART WITH " + (Math.max(rows, INITIAL_ROWS) + 1));
+    }
+}
@@ -0,0 +1,92 @@
+package son.arca.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ConfigurableApplicationContext;
+import son.arca.api.ArcaService;
+import son.arca.model.Cause;
+import son.arca.util.ArcaConstants;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the cause lookups and writes of the ArcaServiceBean.
+ *
+ * @author Harrison Mfula
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class CauseServiceBenchmark {
+
+    private static final Long HIT_ID = 1L;
+
+    private ConfigurableApplicationContext context;
+
+    private ArcaService service;
+
+    private Cache cache;
+
+    private Cause cause;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start(10000);
+        service = context.getBean(ArcaService.class);
+        cache = context.getBean(CacheManager.class).getCache(ArcaConstants.ARCA_CACHE_NAME);
+        service.findOne(HIT_ID);
+        cause = service.findOne(2L);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Cause findOneHit() {
+        return service.findOne(HIT_ID);
+    }
+
+    @Benchmark
+    public Cause findOneMiss() {
+        Long id = Long.valueOf(ThreadLocalRandom.current().nextInt(1, 10001));
+        cache.evict(id);
+        return service.findOne(id);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public Cause create() {
+        Cause entity = new Cause();
+        entity.setName("benchmark");
+        entity.setFrequency(1L);
+        return service.create(entity);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public Cause update() {
+        cause.setFrequency(cause.getFrequency() + 1);
+        // the next update must carry the version this one stored
+        cause = service.update(cause);
+        return cause;
+    }
+}
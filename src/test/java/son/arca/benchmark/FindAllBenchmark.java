@@ -0,0 +1,58 @@
+package son.arca.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import son.arca.api.ArcaService;
+import son.arca.model.CauseView;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of ArcaServiceBean.findAll over a seeded table. Tables larger
+ * than arca.snapshot.max-size are read from the database on every call.
+ *
+ * @author Harrison Mfula
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class FindAllBenchmark {
+
+    @Param({"10000", "1000000"})
+    int rows;
+
+    private ConfigurableApplicationContext context;
+
+    private ArcaService service;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start(rows);
+        service = context.getBean(ArcaService.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Collection<CauseView> findAll() {
+        return service.findAll();
+    }
+}
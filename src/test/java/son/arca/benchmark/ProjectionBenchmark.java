@@ -0,0 +1,79 @@
+package son.arca.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Sort;
+import son.arca.api.ArcaService;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the Pareto use case of GET /api/causes: reading and
+ * serializing every column of the causes by descending frequency against
+ * only the name, frequency and total fields. The payload size of each is
+ * printed by the setup.
+ *
+ * @author Harrison Mfula
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class ProjectionBenchmark {
+
+    private static final List<String> PARETO_FIELDS = Arrays.asList("name", "frequency", "total");
+
+    private static final Sort BY_FREQUENCY =
+            new Sort(Sort.Direction.DESC, "frequency").and(new Sort("id"));
+
+    @Param({"10000", "100000"})
+    int rows;
+
+    private ConfigurableApplicationContext context;
+
+    private ArcaService service;
+
+    private ObjectMapper objectMapper;
+
+    @Setup
+    public void setUp() throws Exception {
+        context = BenchmarkApplication.start(rows);
+        service = context.getBean(ArcaService.class);
+        objectMapper = context.getBean(ObjectMapper.class);
+        System.out.println("all columns of " + rows + " causes: "
+                + allColumns().length + " bytes, Pareto fields: "
+                + paretoFields().length + " bytes");
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] allColumns() throws Exception {
+        return objectMapper.writeValueAsBytes(service.findAll(null, null, BY_FREQUENCY, 0));
+    }
+
+    @Benchmark
+    public byte[] paretoFields() throws Exception {
+        return objectMapper.writeValueAsBytes(
+                service.findFields(PARETO_FIELDS, null, null, BY_FREQUENCY, 0));
+    }
+}
@@ -0,0 +1,87 @@
+package son.arca.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import son.arca.model.Cause;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the Jackson serialization of the findAll result in JSON and
+ * the binary Smile and CBOR formats. The payload size of each format is
+ * printed by the setup.
+ *
+ * @author Harrison Mfula
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"15", "10000"})
+    int size;
+
+    @Param({"json", "smile", "cbor"})
+    String format;
+
+    private ObjectWriter writer;
+
+    private ObjectReader reader;
+
+    private Collection<Cause> causes;
+
+    private byte[] payload;
+
+    @Setup
+    public void setUp() throws Exception {
+        ObjectMapper mapper = "smile".equals(format) ? new ObjectMapper(new SmileFactory())
+                : "cbor".equals(format) ? new ObjectMapper(new CBORFactory())
+                : new ObjectMapper();
+        writer = mapper.writer();
+        reader = mapper.readerFor(Cause[].class);
+        List<Cause> list = new ArrayList<Cause>(size);
+        for (long id = 1; id <= size; id++) {
+            Cause cause = new Cause();
+            cause.setId(id);
+            cause.setName("Cause " + id);
+            cause.setFrequency(id % 100);
+            cause.setTotal(0.0);
+            cause.setDescription("Seeded cause " + id);
+            list.add(cause);
+        }
+        causes = list;
+        payload = writer.writeValueAsBytes(causes);
+        System.out.println(format + " payload of " + size + " causes: "
+                + payload.length + " bytes");
+    }
+
+    @Benchmark
+    public byte[] writeCauses() throws Exception {
+        return writer.writeValueAsBytes(causes);
+    }
+
+    @Benchmark
+    public Cause[] readCauses() throws Exception {
+        return reader.readValue(payload);
+    }
+}
@@ -0,0 +1,209 @@
+package son.arca.datasource;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.DatabasePopulatorUtils;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.context.TestPropertySource;
+import son.arca.api.ArcaService;
+import son.arca.api.CauseHandler;
+import son.arca.model.Cause;
+import son.arca.ws.AbstractTest;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Unit test methods for the routing of read-only transactions to replicas,
+ * on two in-memory HSQLDB databases. The replica is loaded with the same
+ * scripts as the primary; replication is simulated by writing its
+ * heartbeat.
+ *
+ * @author Harrison Mfula
+ */
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:hsqldb:mem:arca-primary",
+        "spring.datasource.username=sa",
+        "spring.jmx.enabled=false",
+        "arca.datasource.routing.enabled=true",
+        "arca.datasource.routing.replicas=jdbc:hsqldb:mem:arca-replica",
+        "arca.datasource.routing.max-lag-millis=5000",
+        "arca.datasource.routing.heartbeat-millis=3600000"})
+public class ReplicaRoutingTest extends AbstractTest {
+
+    private static final String REPLICA_NAME = "Drop Call Rate (replica)";
+
+    @Autowired
+    private ArcaService service;
+
+    @Autowired
+    private ReplicaSelector replicaSelector;
+
+    private JdbcTemplate primary;
+
+    private JdbcTemplate replica;
+
+    @Before
+    public void setUp() {
+        DataSource replicaDataSource = new DriverManagerDataSource(
+                "jdbc:hsqldb:mem:arca-replica", "sa", "");
+        ResourceDatabasePopulator populator = new ResourceDatabasePopulator(
+                new ClassPathResource("data/hsqldb/schema.sql"),
+                new ClassPathResource("data/hsqldb/data.sql"));
+        DatabasePopulatorUtils.execute(populator, replicaDataSource);
+        replica = new JdbcTemplate(replicaDataSource);
+        replica.update("UPDATE Cause SET name = ? WHERE id = 1", REPLICA_NAME);
+        primary = new JdbcTemplate(replicaSelector.getDataSources().get(ReplicaSelector.PRIMARY));
+
+        replicateHeartbeat(0);
+    }
+
+    @Test
+    public void testReadOnlyTransactionUsesReplica() {
+
+        Assert.assertEquals("failure - expected fresh replica", 1,
+                replicaSelector.getFreshReplicas().size());
+        Assert.assertEquals("failure - expected cause read from the replica", REPLICA_NAME,
+                nameOfFirstCause());
+
+    }
+
+    @Test
+    public void testWriteUsesPrimary() {
+
+        Cause cause = new Cause();
+        cause.setName("routing test");
+        cause.setFrequency(1L);
+        Cause createdCause = service.create(cause);
+        try {
+            Assert.assertEquals("failure - expected cause written to the primary",
+                    Integer.valueOf(1), primary.queryForObject(
+                            "SELECT COUNT(*) FROM Cause WHERE id = ?", Integer.class,
+                            createdCause.getId()));
+            Assert.assertEquals("failure - expected cause not written to the replica",
+                    Integer.valueOf(0), replica.queryForObject(
+                            "SELECT COUNT(*) FROM Cause WHERE id = ?", Integer.class,
+                            createdCause.getId()));
+        } finally {
+            service.delete(createdCause.getId());
+        }
+
+    }
+
+    @Test
+    public void testLaggingReplicaFallsBackToPrimary() {
+
+        replicateHeartbeat(60000);
+
+        Assert.assertTrue("failure - expected no fresh replica",
+                replicaSelector.getFreshReplicas().isEmpty());
+        Assert.assertEquals("failure - expected cause read from the primary",
+                "Drop Call Rate", nameOfFirstCause());
+
+    }
+
+    @Test
+    public void testCacheFilledFromCurrentReplica() {
+
+        service.evictCache();
+
+        Assert.assertEquals("failure - expected cause read from the replica",
+                REPLICA_NAME, service.findOne(1L).getName());
+        replica.update("UPDATE Cause SET name = ? WHERE id = 1", "later");
+        Assert.assertEquals("failure - expected the cached cause",
+                REPLICA_NAME, service.findOne(1L).getName());
+
+    }
+
+    @Test
+    public void testCacheNotFilledFromReplicaBehind() {
+
+        Cause cause = new Cause();
+        cause.setName("routing test");
+        cause.setFrequency(1L);
+        service.delete(service.create(cause).getId());
+        service.evictCache();
+
+        Assert.assertEquals("failure - expected cause read from the replica",
+                REPLICA_NAME, service.findOne(1L).getName());
+        replica.update("UPDATE Cause SET name = ? WHERE id = 1", "later");
+        Assert.assertEquals("failure - expected the cause not cached",
+                "later", service.findOne(1L).getName());
+
+    }
+
+    @Test
+    public void testCollectionReadFromReplica() {
+
+        String version = service.getCollectionVersion();
+        Collection<Cause> causes = service.findAllAfter(0L, 1);
+
+        Assert.assertEquals("failure - expected the position of the replica",
+                Long.toString(replicaSelector.getPosition()), version);
+        Assert.assertEquals("failure - expected causes read from the replica",
+                REPLICA_NAME, causes.iterator().next().getName());
+
+    }
+
+    @Test
+    public void testReplicaBehindPositionFallsBackToPrimary() {
+
+        primary.update("UPDATE CauseChangeCount SET changes = changes + 1 WHERE id = 1");
+        replicateHeartbeat(60000, 0);
+        long position = replicaSelector.getPosition();
+        replicateHeartbeat(0, 1);
+
+        Assert.assertTrue("failure - expected no fresh replica",
+                replicaSelector.getFreshReplicas().isEmpty());
+        Assert.assertEquals("failure - expected the position kept", position,
+                replicaSelector.getPosition());
+        Assert.assertEquals("failure - expected cause read from the primary",
+                "Drop Call Rate", nameOfFirstCause());
+
+    }
+
+    private void replicateHeartbeat(long lagMillis) {
+        replicateHeartbeat(lagMillis, 0);
+    }
+
+    /**
+     * Writes the heartbeat to the primary and copies it and the change count
+     * to the replica as if the replica were <code>lagMillis</code> and
+     * <code>changesBehind</code> changes behind.
+     */
+    private void replicateHeartbeat(long lagMillis, long changesBehind) {
+        replicaSelector.refresh();
+        Long beat = primary.queryForObject(
+                "SELECT beat FROM ReplicationHeartbeat WHERE id = 1", Long.class);
+        Long changes = primary.queryForObject(
+                "SELECT changes FROM CauseChangeCount WHERE id = 1", Long.class);
+        replica.update("UPDATE ReplicationHeartbeat SET beat = ? WHERE id = 1",
+                beat - lagMillis);
+        replica.update("UPDATE CauseChangeCount SET changes = ? WHERE id = 1",
+                changes - changesBehind);
+        replicaSelector.refresh();
+    }
+
+    private String nameOfFirstCause() {
+        final List<String> names = new ArrayList<String>();
+        try {
+            service.streamAll(new CauseHandler() {
+                @Override
+                public void handle(Cause cause) {
+                    names.add(cause.getName());
+                }
+            });
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return names.get(0);
+    }
+}
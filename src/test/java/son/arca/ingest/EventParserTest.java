@@ -0,0 +1,152 @@
+package son.arca.ingest;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Unit tests for the event file parsers, NameCounts and EventFileReader.
+ *
+ * @author Harrison Mfula
+ */
+public class EventParserTest {
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testCsv() {
+
+        String csv = "timestamp,cell,cause\r\n"
+                + "1,A1,Drop Call Rate\r\n"
+                + "2,A2,\"Drop Call Rate\"\n"
+                + "\n"
+                + "3,A3,\"Handover, \"\"inter-RAT\"\"\"\n"
+                + "4,A4\n"
+                + "5,A5,";
+
+        Map<String, Long> counts = parse(new CsvEventParser(2), csv, true);
+
+        Assert.assertEquals("failure - expected quoted and unquoted names merged",
+                Long.valueOf(2), counts.get("Drop Call Rate"));
+        Assert.assertEquals("failure - expected quoted comma and quotes",
+                Long.valueOf(1), counts.get("Handover, \"inter-RAT\""));
+        Assert.assertEquals("failure - expected malformed lines", Long.valueOf(2),
+                counts.get(MALFORMED));
+        Assert.assertEquals("failure - expected events", Long.valueOf(3),
+                counts.get(EVENTS));
+
+    }
+
+    @Test
+    public void testNdjson() {
+
+        String ndjson = "{\"cell\":\"A1\",\"cause\":\"Drop Call Rate\"}\n"
+                + "{\"cause\" : \"Drop Call Rate\", \"cell\":\"A2\"}\r\n"
+                + "{\"cell\":\"A3\",\"cause\":\"Say \\\"hi\\\" \\u00e9\"}\n"
+                + "{\"cell\":\"A4\"}\n"
+                + "{\"cell\":\"A5\",\"cause\":null}\n";
+
+        Map<String, Long> counts = parse(new NdjsonEventParser("cause"), ndjson, false);
+
+        Assert.assertEquals("failure - expected names counted", Long.valueOf(2),
+                counts.get("Drop Call Rate"));
+        Assert.assertEquals("failure - expected escapes decoded", Long.valueOf(1),
+                counts.get("Say \"hi\" \u00e9"));
+        Assert.assertEquals("failure - expected malformed lines", Long.valueOf(2),
+                counts.get(MALFORMED));
+
+    }
+
+    @Test
+    public void testNameCountsGrows() {
+
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            csv.append(i).append(",cell,cause-").append(i % 500).append('\n');
+        }
+
+        Map<String, Long> counts = parse(new CsvEventParser(2), csv.toString(), false);
+
+        Assert.assertEquals("failure - expected distinct names", 502, counts.size());
+        for (int i = 0; i < 500; i++) {
+            Assert.assertEquals("failure - expected count of cause-" + i, Long.valueOf(2),
+                    counts.get("cause-" + i));
+        }
+
+    }
+
+    @Test
+    public void testReadShards() throws Exception {
+
+        Path file = Files.createTempFile("events", ".csv");
+        try {
+            StringBuilder csv = new StringBuilder("timestamp,cell,cause\n");
+            for (int i = 0; i < 10000; i++) {
+                csv.append(i).append(",cell-").append(i).append(",cause-")
+                        .append(i % 7).append('\n');
+            }
+            Files.write(file, csv.toString().getBytes(StandardCharsets.UTF_8));
+
+            EventCounts counts = new EventFileReader(executor, 4)
+                    .read(file, new CsvEventParser(2), true);
+
+            Assert.assertEquals("failure - expected shards", 4, counts.getShards());
+            Assert.assertEquals("failure - expected every event once", 10000,
+                    counts.getEvents());
+            Assert.assertEquals("failure - expected no malformed lines", 0,
+                    counts.getMalformed());
+            long total = 0;
+            for (int i = 0; i < 7; i++) {
+                long expected = 10000 / 7 + (i < 10000 % 7 ? 1 : 0);
+                Assert.assertEquals("failure - expected count of cause-" + i,
+                        Long.valueOf(expected), counts.getCounts().get("cause-" + i));
+                total += expected;
+            }
+            Assert.assertEquals("failure - expected merged total", 10000, total);
+        } finally {
+            Files.delete(file);
+        }
+
+    }
+
+    private static final String EVENTS = "<events>";
+
+    private static final String MALFORMED = "<malformed>";
+
+    private static Map<String, Long> parse(EventParser parser, String content,
+                                           boolean header) {
+        ByteBuffer buffer = ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8));
+        NameCounts nameCounts = new NameCounts();
+        parser.parse(buffer, 0, buffer.limit(), header, nameCounts);
+
+        Map<String, Long> counts = new HashMap<String, Long>();
+        for (int entry = 0; entry < nameCounts.size(); entry++) {
+            String name = parser.decodeName(nameCounts.name(entry));
+            Long count = counts.get(name);
+            counts.put(name, (count == null ? 0 : count) + nameCounts.count(entry));
+        }
+        counts.put(EVENTS, nameCounts.getEvents());
+        counts.put(MALFORMED, nameCounts.getMalformed());
+        return counts;
+    }
+}
@@ -0,0 +1,73 @@
+package son.arca.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for the LatencyHistograms.
+ *
+ * @author Harrison Mfula
+ */
+public class LatencyHistogramsTest {
+
+    private LatencyHistograms latencyHistograms;
+
+    @Before
+    public void setUp() {
+        latencyHistograms = new LatencyHistograms();
+    }
+
+    @Test
+    public void testLatency() {
+
+        Assert.assertSame("failure - expected the same latency per name",
+                latencyHistograms.latency("service.findOne"),
+                latencyHistograms.latency("service.findOne"));
+
+    }
+
+    @Test
+    public void testSnapshot() {
+
+        LatencyHistograms.Latency latency = latencyHistograms.latency("service.findOne");
+        for (int i = 0; i < 99; i++) {
+            latency.recordSince(System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        latency.recordSince(System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(100));
+
+        Histogram histogram = latencyHistograms.snapshot().get("service.findOne");
+
+        Assert.assertEquals("failure - expected count", 100, histogram.getTotalCount());
+        Assert.assertTrue("failure - expected p50 of about 1ms",
+                histogram.getValueAtPercentile(50.0) >= 1000
+                        && histogram.getValueAtPercentile(50.0) < 1200);
+        Assert.assertTrue("failure - expected max of about 100ms",
+                histogram.getMaxValue() >= 100000);
+
+        latency.recordSince(System.nanoTime());
+
+        Assert.assertEquals("failure - expected snapshots to accumulate", 101,
+                latencyHistograms.snapshot().get("service.findOne").getTotalCount());
+
+    }
+
+    @Test
+    public void testRecordSinceClamped() {
+
+        LatencyHistograms.Latency latency = latencyHistograms.latency("http.slow");
+        latency.recordSince(System.nanoTime() - TimeUnit.HOURS.toNanos(1));
+
+        Histogram histogram = latencyHistograms.snapshot().get("http.slow");
+
+        Assert.assertEquals("failure - expected the value recorded", 1,
+                histogram.getTotalCount());
+        Assert.assertTrue("failure - expected clamped to the highest trackable value",
+                histogram.getMaxValue() <= histogram.highestEquivalentValue(
+                        LatencyHistograms.HIGHEST_TRACKABLE_MICROS));
+
+    }
+}
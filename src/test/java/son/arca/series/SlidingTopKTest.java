@@ -0,0 +1,156 @@
+package son.arca.series;
+
+import org.junit.Assert;
+import org.junit.Test;
+import son.arca.model.TopCause;
+import son.arca.model.TopCauses;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Unit test methods for the SpaceSaving and SlidingTopK summaries, checked
+ * against exact counts.
+ *
+ * @author Harrison Mfula
+ */
+public class SlidingTopKTest {
+
+    private static final int CAPACITY = 50;
+
+    private static final long NOW = 1000000000000L;
+
+    @Test
+    public void testSpaceSavingBounds() {
+
+        SpaceSaving summary = new SpaceSaving(CAPACITY);
+        Map<Long, Long> exact = new HashMap<Long, Long>();
+        Random random = new Random(17);
+        for (int i = 0; i < 100000; i++) {
+            Long causeId = skewedId(random);
+            long occurrences = 1 + random.nextInt(3);
+            summary.add(causeId, occurrences);
+            add(exact, causeId, occurrences);
+        }
+
+        long bound = summary.getTotal() / CAPACITY;
+        Assert.assertTrue("failure - expected lowest count within N/m",
+                summary.minCount() <= bound);
+        long lowest = Long.MAX_VALUE;
+        for (Long causeId : summary.causeIds()) {
+            lowest = Math.min(lowest, summary.count(causeId));
+        }
+        Assert.assertEquals("failure - expected the lowest count of the counters", lowest,
+                summary.minCount());
+        for (Map.Entry<Long, Long> entry : exact.entrySet()) {
+            long count = summary.count(entry.getKey());
+            if (count == 0) {
+                Assert.assertTrue("failure - expected uncounted cause below the lowest count",
+                        entry.getValue() <= summary.minCount());
+                continue;
+            }
+            Assert.assertTrue("failure - expected no underestimate",
+                    count >= entry.getValue());
+            Assert.assertTrue("failure - expected overestimate within the error",
+                    count - entry.getValue() <= summary.error(entry.getKey()));
+            Assert.assertTrue("failure - expected error within N/m",
+                    summary.error(entry.getKey()) <= bound);
+        }
+
+    }
+
+    @Test
+    public void testTopAgainstExactCounts() {
+
+        SlidingTopK topK = new SlidingTopK(CAPACITY, 60);
+        Map<Long, Long> exact = new HashMap<Long, Long>();
+        Random random = new Random(42);
+        // 90 seconds of events; the last 30 whole seconds are in the window
+        for (int i = 0; i < 90000; i++) {
+            long timestamp = NOW - 90000 + i + 1;
+            Long causeId = skewedId(random);
+            long occurrences = 1 + random.nextInt(3);
+            topK.add(timestamp, causeId, occurrences);
+            if (timestamp / 1000 > NOW / 1000 - 30) {
+                add(exact, causeId, occurrences);
+            }
+        }
+
+        TopCauses top = topK.top(10, 30000, NOW);
+
+        long total = 0;
+        for (Long occurrences : exact.values()) {
+            total += occurrences;
+        }
+        Assert.assertEquals("failure - expected window", 30000, top.getWindowMillis());
+        Assert.assertEquals("failure - expected occurrences in the window", total,
+                top.getOccurrences());
+        Assert.assertEquals("failure - expected N/m bound", total / CAPACITY,
+                top.getMaxError());
+        Assert.assertEquals("failure - expected k causes", 10, top.getCauses().size());
+
+        for (TopCause cause : top.getCauses()) {
+            long count = exact.get(cause.getId());
+            Assert.assertTrue("failure - expected no underestimate",
+                    cause.getOccurrences() >= count);
+            Assert.assertTrue("failure - expected overestimate within the error",
+                    cause.getOccurrences() - count <= cause.getError());
+            Assert.assertTrue("failure - expected error within N/m",
+                    cause.getError() <= top.getMaxError());
+        }
+
+        List<Long> exactTop = exactTop(exact, 3);
+        for (int i = 0; i < exactTop.size(); i++) {
+            Assert.assertEquals("failure - expected the exact heavy hitters first",
+                    exactTop.get(i), top.getCauses().get(i).getId());
+        }
+
+    }
+
+    @Test
+    public void testTopDropsExpiredOccurrences() {
+
+        SlidingTopK topK = new SlidingTopK(CAPACITY, 60);
+        topK.add(NOW - 120000, 1L, 100);
+        topK.add(NOW - 10000, 2L, 5);
+        topK.add(NOW - 120000, 3L, 100);
+
+        TopCauses top = topK.top(10, 60000, NOW);
+
+        Assert.assertEquals("failure - expected occurrences in the window", 5,
+                top.getOccurrences());
+        Assert.assertEquals("failure - expected one cause", 1, top.getCauses().size());
+        Assert.assertEquals("failure - expected exact count", 5,
+                top.getCauses().get(0).getOccurrences());
+
+    }
+
+    /**
+     * A few causes are much more frequent than the long tail of others.
+     */
+    private static Long skewedId(Random random) {
+        double r = random.nextDouble();
+        return (long) (10000 * r * r * r * r);
+    }
+
+    private static void add(Map<Long, Long> counts, Long causeId, long occurrences) {
+        Long count = counts.get(causeId);
+        counts.put(causeId, (count == null ? 0 : count) + occurrences);
+    }
+
+    private static List<Long> exactTop(final Map<Long, Long> exact, int k) {
+        List<Long> causeIds = new ArrayList<Long>(exact.keySet());
+        Collections.sort(causeIds, new Comparator<Long>() {
+            @Override
+            public int compare(Long a, Long b) {
+                return Long.compare(exact.get(b), exact.get(a));
+            }
+        });
+        return causeIds.subList(0, k);
+    }
+}
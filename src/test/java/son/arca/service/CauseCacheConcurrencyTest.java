@@ -0,0 +1,183 @@
+package son.arca.service;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
+import son.arca.api.ArcaService;
+import son.arca.model.Cause;
+import son.arca.util.ArcaConstants;
+import son.arca.ws.AbstractTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stress test for the per-id cause cache. Readers must only ever see
+ * committed, internally consistent causes while writers update the same row.
+ *
+ * @author Harrison Mfula
+ */
+public class CauseCacheConcurrencyTest extends AbstractTest {
+
+    private static final Long ID = 1L;
+
+    private static final int WRITERS = 4;
+
+    private static final int UPDATES = 50;
+
+    private static final int READERS = 8;
+
+    private static final int READS = 1000;
+
+    @Autowired
+    private ArcaService service;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Cause original;
+
+    @Before
+    public void setUp() {
+        service.evictCache();
+        original = service.findOne(ID);
+        // updates without a version overwrite whatever version is stored
+        original.setVersion(null);
+    }
+
+    @After
+    public void tearDown() {
+        service.update(original);
+        service.evictCache();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testReadersSeeCommittedValues() throws Exception {
+
+        com.google.common.cache.Cache<Object, Object> nativeCache =
+                (com.google.common.cache.Cache<Object, Object>) cacheManager
+                        .getCache(ArcaConstants.ARCA_CACHE_NAME).getNativeCache();
+        long hits = nativeCache.stats().hitCount();
+        long misses = nativeCache.stats().missCount();
+
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS + READERS + 1);
+        List<Future<Void>> futures = new ArrayList<Future<Void>>();
+        try {
+            for (int w = 0; w < WRITERS; w++) {
+                final int writer = w;
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        for (int i = 1; i <= UPDATES; i++) {
+                            long n = writer * UPDATES + i;
+                            Cause cause = original.copy();
+                            cause.setName("stress-" + n);
+                            cause.setFrequency(n);
+                            updateRetryingConflicts(cause);
+                        }
+                        return null;
+                    }
+                }));
+            }
+            futures.add(executor.submit(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    TransactionTemplate template = new TransactionTemplate(transactionManager);
+                    for (int i = 0; i < UPDATES; i++) {
+                        try {
+                            template.execute(new TransactionCallbackWithoutResult() {
+                                @Override
+                                protected void doInTransactionWithoutResult(
+                                        TransactionStatus status) {
+                                    Cause cause = original.copy();
+                                    cause.setName("stress--1");
+                                    cause.setFrequency(-1L);
+                                    status.setRollbackOnly();
+                                    service.update(cause);
+                                }
+                            });
+                        } catch (OptimisticLockingFailureException e) {
+                            // the update is flushed, so it can conflict too
+                        }
+                    }
+                    return null;
+                }
+            }));
+            for (int r = 0; r < READERS; r++) {
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        for (int i = 0; i < READS; i++) {
+                            Cause cause = service.findOne(ID);
+                            assertConsistent(cause);
+                            // Changing a returned Cause must not affect other readers
+                            cause.setName("reader");
+                            cause.setFrequency(-2L);
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertConsistent(service.findOne(ID));
+
+        long hitCount = nativeCache.stats().hitCount() - hits;
+        long missCount = nativeCache.stats().missCount() - misses;
+        Assert.assertTrue("failure - expected reads mostly served from cache",
+                hitCount > missCount);
+
+    }
+
+    /**
+     * Concurrent updates of the same row fail the version check of all but
+     * one of them.
+     */
+    private void updateRetryingConflicts(Cause cause) {
+        while (true) {
+            try {
+                service.update(cause);
+                return;
+            } catch (OptimisticLockingFailureException e) {
+                // another writer committed first
+            }
+        }
+    }
+
+    private void assertConsistent(Cause cause) {
+        Assert.assertNotNull("failure - expected not null", cause);
+        Assert.assertNotEquals("failure - saw an uncommitted value",
+                Long.valueOf(-1L), cause.getFrequency());
+        if (cause.getName().startsWith("stress-")) {
+            Assert.assertEquals("failure - saw a torn value",
+                    "stress-" + cause.getFrequency(), cause.getName());
+        } else {
+            Assert.assertEquals("failure - saw a torn value",
+                    original.getName(), cause.getName());
+            Assert.assertEquals("failure - saw a torn value",
+                    original.getFrequency(), cause.getFrequency());
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package son.arca.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import son.arca.event.CauseChangeEvent;
+import son.arca.model.Cause;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for the eviction of slow subscribers by the
+ * CauseChangeBroadcaster.
+ *
+ * @author Harrison Mfula
+ */
+public class CauseChangeBroadcasterTest {
+
+    private final CountDownLatch sending = new CountDownLatch(1);
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private final CountDownLatch completed = new CountDownLatch(1);
+
+    private CauseChangeBroadcaster broadcaster;
+
+    @Before
+    public void setUp() {
+        broadcaster = new CauseChangeBroadcaster() {
+            @Override
+            SseEmitter createEmitter() {
+                return new SseEmitter() {
+                    @Override
+                    public void send(SseEventBuilder builder) {
+                        // a client that stops reading
+                        sending.countDown();
+                        try {
+                            release.await(10, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+
+                    @Override
+                    public void complete() {
+                        completed.countDown();
+                    }
+                };
+            }
+        };
+        ReflectionTestUtils.setField(broadcaster, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(broadcaster, "bufferSize", 16);
+        ReflectionTestUtils.setField(broadcaster, "maxSubscribers", 10);
+        ReflectionTestUtils.setField(broadcaster, "timeoutMillis", 60000L);
+        ReflectionTestUtils.setField(broadcaster, "heartbeatSeconds", 3600L);
+        ReflectionTestUtils.setField(broadcaster, "senderThreads", 1);
+        ReflectionTestUtils.setField(broadcaster, "sendTimeoutMillis", 100L);
+        broadcaster.start();
+    }
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        broadcaster.stop();
+    }
+
+    @Test
+    public void testSlowConsumerEvicted() throws Exception {
+
+        broadcaster.subscribe();
+        broadcaster.onCauseChange(CauseChangeEvent.updated(cause()));
+        Assert.assertTrue("failure - expected a write in progress",
+                sending.await(5, TimeUnit.SECONDS));
+
+        Thread.sleep(200);
+        broadcaster.onCauseChange(CauseChangeEvent.updated(cause()));
+
+        Assert.assertEquals("failure - expected the blocked subscriber removed", 0,
+                metric("stream.subscribers").intValue());
+        Assert.assertEquals("failure - expected the eviction to wait for the write", 0,
+                metric("stream.evicted").longValue());
+
+        release.countDown();
+
+        Assert.assertTrue("failure - expected the stream completed",
+                completed.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals("failure - expected the eviction counted", 1,
+                metric("stream.evicted").longValue());
+        Assert.assertEquals("failure - expected only the first change sent", 1,
+                metric("stream.sent").longValue());
+
+    }
+
+    private Number metric(String name) {
+        for (Metric<?> metric : broadcaster.metrics()) {
+            if (metric.getName().equals(name)) {
+                return metric.getValue();
+            }
+        }
+        return null;
+    }
+
+    private static Cause cause() {
+        Cause cause = new Cause();
+        cause.setId(1L);
+        cause.setName("slow");
+        return cause;
+    }
+}
@@ -0,0 +1,128 @@
+package son.arca.service;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import son.arca.api.ArcaService;
+import son.arca.model.Cause;
+import son.arca.model.CauseView;
+import son.arca.ws.AbstractTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Unit test methods for the CauseChangeCounter and the watermarks of the
+ * caches.
+ *
+ * @author Harrison Mfula
+ */
+public class CauseChangeCounterTest extends AbstractTest {
+
+    @Autowired
+    private ArcaService service;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void testCountCompletedAfterCacheListeners() {
+
+        final List<TransactionSynchronization> synchronizations =
+                new ArrayList<TransactionSynchronization>();
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.execute(new TransactionCallbackWithoutResult() {
+            @Override
+            protected void doInTransactionWithoutResult(TransactionStatus status) {
+                Cause cause = service.findOne(1L);
+                cause.setDescription("ordering");
+                service.update(cause);
+                synchronizations.addAll(TransactionSynchronizationManager.getSynchronizations());
+                status.setRollbackOnly();
+            }
+        });
+
+        Assert.assertTrue("failure - expected the listeners of the caches",
+                synchronizations.size() > 1);
+        Assert.assertTrue("failure - expected the count completed last",
+                synchronizations.get(synchronizations.size() - 1)
+                        instanceof CauseChangeSequence.ChangeSynchronization);
+
+    }
+
+    @Test
+    public void testChangeOfAnotherInstance() {
+
+        String version = service.getCollectionVersion();
+        service.findAll();
+        service.findPareto(0);
+
+        // as written through another instance
+        jdbcTemplate.update("UPDATE Cause SET name = ?, frequency = ? WHERE id = 15",
+                "remote", 1000L);
+        jdbcTemplate.update("UPDATE CauseChangeCount SET changes = changes + 1 WHERE id = 1");
+        try {
+            Assert.assertNotEquals("failure - expected a new version", version,
+                    service.getCollectionVersion());
+
+            List<CauseView> causes = new ArrayList<CauseView>(service.findAll());
+            Assert.assertEquals("failure - expected the remote change in the list", "remote",
+                    causes.get(causes.size() - 1).getName());
+            Assert.assertEquals("failure - expected the remote change in the series", "remote",
+                    service.findPareto(1).get(0).getName());
+        } finally {
+            jdbcTemplate.update("UPDATE Cause SET name = ?, frequency = ? WHERE id = 15",
+                    "other", 3L);
+            jdbcTemplate.update(
+                    "UPDATE CauseChangeCount SET changes = changes + 1 WHERE id = 1");
+        }
+
+    }
+
+    @Test
+    public void testWatermark() {
+
+        CauseChangeCounter counter = new CauseChangeCounter();
+        CauseChangeCounter.Watermark watermark = counter.watermark();
+
+        Assert.assertEquals("failure - expected an idle watermark stale",
+                CauseChangeCounter.Coverage.STALE, watermark.check(0));
+
+        Assert.assertEquals("failure - expected no local count", 0, watermark.beginLoad());
+        Assert.assertTrue("failure - expected the load kept", watermark.endLoad(4));
+
+        counter.committing(5);
+        counter.committing(6);
+        counter.completed(6, true);
+
+        Assert.assertEquals("failure - expected the loaded count", 4, watermark.covered());
+        Assert.assertEquals("failure - expected a pending count",
+                CauseChangeCounter.Coverage.PENDING, watermark.check(6));
+
+        counter.completed(5, true);
+
+        Assert.assertEquals("failure - expected the completed counts passed",
+                CauseChangeCounter.Coverage.CURRENT, watermark.check(6));
+        Assert.assertEquals("failure - expected a count of another instance",
+                CauseChangeCounter.Coverage.STALE, watermark.check(7));
+
+        counter.committing(7);
+
+        Assert.assertEquals("failure - expected the local count required",
+                7, watermark.beginLoad());
+        Assert.assertFalse("failure - expected a load missing it discarded",
+                watermark.endLoad(6));
+
+    }
+
+}
@@ -0,0 +1,160 @@
+package son.arca.service;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import son.arca.api.ArcaService;
+import son.arca.event.CauseChangeEvent;
+import son.arca.event.CauseOccurrenceEvent;
+import son.arca.model.Cause;
+import son.arca.model.CauseOccurrence;
+import son.arca.repository.CauseOccurrenceRepository;
+import son.arca.series.Resolution;
+import son.arca.ws.AbstractTest;
+
+import java.util.List;
+
+/**
+ * Unit test methods for the CauseSeriesStore. Not transactional: the store
+ * writes its buckets in transactions of its own.
+ *
+ * @author Harrison Mfula
+ */
+public class CauseSeriesStoreTest extends AbstractTest {
+
+    private static final Long ID = 3L;
+
+    private static final long MINUTE = Resolution.MINUTE.getMillis();
+
+    private static final long HOUR = Resolution.HOUR.getMillis();
+
+    private static final long DAY = Resolution.DAY.getMillis();
+
+    /**
+     * A day in the past, so the occurrences of the test stay apart from the
+     * ones recorded by other tests.
+     */
+    private static final long BASE = Resolution.DAY.floor(1000000000000L);
+
+    @Autowired
+    private CauseSeriesStore store;
+
+    @Autowired
+    private CauseOccurrenceRepository repository;
+
+    @Autowired
+    private ArcaService arcaService;
+
+    @After
+    public void tearDown() {
+        store.flush();
+        repository.deleteByCauseId(ID);
+    }
+
+    @Test
+    public void testFindSeries() {
+
+        store.record(ID, BASE + MINUTE, 2);
+        store.record(ID, BASE + 2 * MINUTE + 5000, 3);
+        store.record(ID, BASE + 90 * MINUTE, 4);
+
+        assertSeries();
+        store.flush();
+        assertSeries();
+
+        store.record(ID, BASE + MINUTE, 1);
+        Assert.assertEquals("failure - expected flushed and unflushed occurrences", 3,
+                store.findSeries(ID, BASE, BASE + HOUR, MINUTE).get(1).getOccurrences());
+        store.flush();
+        Assert.assertEquals("failure - expected occurrences flushed once", 3,
+                store.findSeries(ID, BASE, BASE + HOUR, MINUTE).get(1).getOccurrences());
+
+    }
+
+    @Test
+    public void testFindSeriesAlignsToStep() {
+
+        store.record(ID, BASE + 7 * MINUTE, 5);
+
+        List<CauseOccurrence> series = store.findSeries(ID, BASE + 6 * MINUTE,
+                BASE + 11 * MINUTE, 5 * MINUTE);
+
+        Assert.assertEquals("failure - expected points", 2, series.size());
+        Assert.assertEquals("failure - expected start rounded down to the step",
+                BASE + 5 * MINUTE, series.get(0).getStart());
+        Assert.assertEquals("failure - expected occurrences", 5,
+                series.get(0).getOccurrences());
+
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFindSeriesTooManyPoints() {
+
+        store.findSeries(ID, BASE, BASE + 30 * DAY, MINUTE);
+
+    }
+
+    @Test
+    public void testUpdateRecordsOccurrences() {
+
+        Cause cause = arcaService.findOne(ID);
+        Long frequency = cause.getFrequency();
+        long now = System.currentTimeMillis();
+
+        cause.setFrequency(frequency + 7);
+        arcaService.update(cause);
+        try {
+            long occurrences = 0;
+            for (CauseOccurrence point : store.findSeries(ID, now, now + HOUR, HOUR)) {
+                occurrences += point.getOccurrences();
+            }
+            Assert.assertEquals("failure - expected occurrences of the update", 7,
+                    occurrences);
+        } finally {
+            cause = arcaService.findOne(ID);
+            cause.setFrequency(frequency);
+            arcaService.update(cause);
+        }
+
+    }
+
+    @Test
+    public void testOccurrenceOfDeletedCauseDropped() {
+
+        Long id = 999L;
+        store.record(id, BASE + MINUTE, 2);
+        store.onCauseChange(CauseChangeEvent.deleted(id));
+        store.onOccurrence(new CauseOccurrenceEvent(id, BASE + MINUTE, 3));
+        store.flush();
+
+        Assert.assertEquals("failure - expected no occurrences of the deleted cause", 0,
+                store.findSeries(id, BASE, BASE + HOUR, MINUTE).get(1).getOccurrences());
+
+    }
+
+    private void assertSeries() {
+        List<CauseOccurrence> minutes = store.findSeries(ID, BASE, BASE + 3 * HOUR, MINUTE);
+        Assert.assertEquals("failure - expected a point per minute", 180, minutes.size());
+        Assert.assertEquals("failure - expected occurrences", 2,
+                minutes.get(1).getOccurrences());
+        Assert.assertEquals("failure - expected occurrences", 3,
+                minutes.get(2).getOccurrences());
+        Assert.assertEquals("failure - expected occurrences", 4,
+                minutes.get(90).getOccurrences());
+        Assert.assertEquals("failure - expected no occurrences", 0,
+                minutes.get(3).getOccurrences());
+
+        List<CauseOccurrence> hours = store.findSeries(ID, BASE, BASE + 3 * HOUR, HOUR);
+        Assert.assertEquals("failure - expected a point per hour", 3, hours.size());
+        Assert.assertEquals("failure - expected occurrences", 5,
+                hours.get(0).getOccurrences());
+        Assert.assertEquals("failure - expected occurrences", 4,
+                hours.get(1).getOccurrences());
+
+        List<CauseOccurrence> days = store.findSeries(ID, BASE, BASE + DAY, DAY);
+        Assert.assertEquals("failure - expected a point per day", 1, days.size());
+        Assert.assertEquals("failure - expected occurrences", 9,
+                days.get(0).getOccurrences());
+    }
+}
@@ -5,14 +5,28 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import son.arca.api.ArcaService;
+import son.arca.api.CauseHandler;
+import son.arca.event.CauseChangeEvent;
+import son.arca.model.BatchResult;
 import son.arca.model.Cause;
+import son.arca.model.CauseChanges;
+import son.arca.model.CauseView;
+import son.arca.model.ParetoItem;
+import son.arca.util.ArcaConstants;
 import son.arca.ws.AbstractTest;
 
 import javax.persistence.EntityExistsException;
 import javax.persistence.NoResultException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Unit test methods for the ArcaService and ArcaServiceBean.
@@ -25,6 +39,15 @@ public class CauseServiceTest extends AbstractTest {
     @Autowired
     private ArcaService service;
 
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private CauseSnapshotCache causeSnapshotCache;
+
+    @Autowired
+    private CauseCache causeCache;
+
     @Before
     public void setUp() {
         service.evictCache();
@@ -38,13 +61,249 @@ public class CauseServiceTest extends AbstractTest {
     @Test
     public void testFindAll() {
 
-        Collection<Cause> list = service.findAll();
+        Collection<CauseView> list = service.findAll();
 
         Assert.assertNotNull("failure - expected not null", list);
         Assert.assertEquals("failure - expected list size", 15, list.size());
 
     }
 
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void testFindAllSnapshot() {
+
+        Collection<CauseView> list = service.findAll();
+
+        Assert.assertEquals("failure - expected list size", 15, list.size());
+
+        Exception exception = null;
+        try {
+            list.clear();
+        } catch (UnsupportedOperationException e) {
+            exception = e;
+        }
+
+        Assert.assertNotNull("failure - expected an unmodifiable snapshot", exception);
+        Assert.assertSame("failure - expected the snapshot shared between readers",
+                list, service.findAll());
+
+        Cause entity = new Cause();
+        entity.setName("snapshot");
+        Cause createdEntity = service.create(entity);
+
+        try {
+            List<CauseView> updatedList = new ArrayList<CauseView>(service.findAll());
+
+            Assert.assertEquals("failure - expected committed create in snapshot",
+                    16, updatedList.size());
+            Assert.assertEquals("failure - expected id order",
+                    createdEntity.getId(), updatedList.get(15).getId());
+        } finally {
+            service.delete(createdEntity.getId());
+        }
+
+        Assert.assertEquals("failure - expected committed delete in snapshot",
+                15, service.findAll().size());
+
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void testFindAllSnapshotOutOfOrderChanges() {
+
+        List<CauseView> list = new ArrayList<CauseView>(service.findAll());
+        CauseView first = list.get(0);
+        CauseView second = list.get(1);
+
+        try {
+            Cause newer = first.toCause();
+            newer.setName("newer");
+            newer.setVersion(first.getVersion() + 2);
+            Cause older = first.toCause();
+            older.setName("older");
+            older.setVersion(first.getVersion() + 1);
+
+            causeSnapshotCache.onCauseChange(CauseChangeEvent.updated(newer));
+            causeSnapshotCache.onCauseChange(CauseChangeEvent.updated(older));
+
+            Assert.assertEquals("failure - expected the newer pending change", "newer",
+                    new ArrayList<CauseView>(service.findAll()).get(0).getName());
+
+            causeSnapshotCache.onCauseChange(CauseChangeEvent.updated(older));
+
+            Assert.assertEquals("failure - expected the newer snapshot value", "newer",
+                    new ArrayList<CauseView>(service.findAll()).get(0).getName());
+
+            causeSnapshotCache.onCauseChange(CauseChangeEvent.deleted(second.getId()));
+            service.findAll();
+            causeSnapshotCache.onCauseChange(CauseChangeEvent.updated(second.toCause()));
+
+            Assert.assertEquals("failure - expected the deleted cause to stay deleted",
+                    14, service.findAll().size());
+        } finally {
+            service.evictCache();
+        }
+
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void testFindChanges() {
+
+        CauseChanges all = service.findChanges(null);
+
+        Assert.assertEquals("failure - expected all causes", 15, all.getChanged().size());
+        Assert.assertTrue("failure - expected no deletions", all.getDeleted().isEmpty());
+
+        long since = all.getHighWaterMark();
+        Cause entity = new Cause();
+        entity.setName("changes");
+        Cause createdEntity = service.create(entity);
+
+        CauseChanges created;
+        try {
+            created = service.findChanges(since);
+
+            Assert.assertEquals("failure - expected the created cause", 1,
+                    created.getChanged().size());
+            Assert.assertEquals("failure - expected the created cause",
+                    createdEntity.getId(), created.getChanged().get(0).getId());
+            Assert.assertTrue("failure - expected a higher high-water mark",
+                    created.getHighWaterMark() > since);
+            Assert.assertTrue("failure - expected no changes after the high-water mark",
+                    service.findChanges(created.getHighWaterMark()).getChanged().isEmpty());
+        } finally {
+            service.delete(createdEntity.getId());
+        }
+
+        CauseChanges deleted = service.findChanges(created.getHighWaterMark());
+
+        Assert.assertTrue("failure - expected no changed causes",
+                deleted.getChanged().isEmpty());
+        Assert.assertEquals("failure - expected the tombstone",
+                Arrays.asList(createdEntity.getId()), deleted.getDeleted());
+        Assert.assertTrue("failure - expected a higher high-water mark",
+                deleted.getHighWaterMark() > created.getHighWaterMark());
+
+    }
+
+    @Test
+    public void testFindFields() {
+
+        Sort byFrequency = new Sort(Sort.Direction.DESC, "frequency");
+        List<String> fields = Arrays.asList("name", "frequency", "total");
+
+        List<Map<String, Object>> top = new ArrayList<Map<String, Object>>(
+                service.findFields(fields, null, null, byFrequency, 3));
+
+        Assert.assertEquals("failure - expected top size", 3, top.size());
+        Assert.assertEquals("failure - expected only the fields", fields,
+                new ArrayList<String>(top.get(0).keySet()));
+        Assert.assertEquals("failure - expected most frequent cause first",
+                service.findOne(1L).getName(), top.get(0).get("name"));
+        Assert.assertEquals("failure - expected its frequency", 287L,
+                top.get(0).get("frequency"));
+
+        Collection<Map<String, Object>> named = service.findFields(Arrays.asList("id"),
+                "Internet", 17L, byFrequency, 0);
+
+        Assert.assertEquals("failure - expected the matching cause", 1, named.size());
+        Assert.assertEquals("failure - expected its id", 6L,
+                named.iterator().next().get("id"));
+
+        try {
+            service.findFields(Arrays.asList("name", "changeSeq"), null, null,
+                    byFrequency, 0);
+            Assert.fail("failure - expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+
+    }
+
+    @Test
+    public void testFindAllAfter() {
+
+        List<Cause> firstPage = new ArrayList<Cause>(service.findAllAfter(0L, 10));
+
+        Assert.assertEquals("failure - expected first page size", 10,
+                firstPage.size());
+
+        Long lastId = firstPage.get(firstPage.size() - 1).getId();
+        List<Cause> secondPage = new ArrayList<Cause>(
+                service.findAllAfter(lastId, 10));
+
+        Assert.assertEquals("failure - expected second page size", 5,
+                secondPage.size());
+        Assert.assertTrue("failure - expected ids to continue after cursor",
+                secondPage.get(0).getId() > lastId);
+
+    }
+
+    @Test
+    public void testFindAllMatching() {
+
+        Sort byFrequency = new Sort(Sort.Direction.DESC, "frequency");
+
+        List<Cause> top = new ArrayList<Cause>(service.findAll(null, null, byFrequency, 3));
+
+        Assert.assertEquals("failure - expected top size", 3, top.size());
+        Assert.assertEquals("failure - expected most frequent cause first", Long.valueOf(1),
+                top.get(0).getId());
+        Assert.assertTrue("failure - expected descending frequency",
+                top.get(1).getFrequency() >= top.get(2).getFrequency());
+
+        Collection<Cause> frequent = service.findAll(null, 100L, byFrequency, 0);
+
+        Assert.assertEquals("failure - expected causes with frequency of at least 100", 3,
+                frequent.size());
+
+        List<Cause> named = new ArrayList<Cause>(
+                service.findAll("Internet", 10L, byFrequency, 0));
+
+        Assert.assertEquals("failure - expected cause by name", 1, named.size());
+        Assert.assertEquals("failure - expected cause by name", Long.valueOf(6),
+                named.get(0).getId());
+        Assert.assertTrue("failure - expected no cause above its frequency",
+                service.findAll("Internet", 1000L, byFrequency, 0).isEmpty());
+
+    }
+
+    @Test
+    public void testStreamAll() throws Exception {
+
+        final List<Long> ids = new ArrayList<Long>();
+
+        service.streamAll(new CauseHandler() {
+            @Override
+            public void handle(Cause cause) {
+                ids.add(cause.getId());
+            }
+        });
+
+        Assert.assertEquals("failure - expected streamed size", 15, ids.size());
+        for (int i = 1; i < ids.size(); i++) {
+            Assert.assertTrue("failure - expected ascending id order",
+                    ids.get(i) > ids.get(i - 1));
+        }
+
+    }
+
+    @Test
+    public void testFindPareto() {
+
+        List<ParetoItem> items = service.findPareto(3);
+
+        Assert.assertEquals("failure - expected size", 3, items.size());
+        Assert.assertEquals("failure - expected most frequent cause first",
+                "Drop Call Rate", items.get(0).getName());
+        Assert.assertTrue("failure - expected descending frequency",
+                items.get(0).getFrequency() >= items.get(1).getFrequency());
+        Assert.assertTrue("failure - expected ascending cumulative share",
+                items.get(1).getTotal() > items.get(0).getTotal());
+
+    }
+
     @Test
     public void testFindOne() {
 
@@ -58,6 +317,49 @@ public class CauseServiceTest extends AbstractTest {
 
     }
 
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @SuppressWarnings("unchecked")
+    public void testFindOneCacheStatistics() {
+
+        com.google.common.cache.Cache<Object, Object> nativeCache =
+                (com.google.common.cache.Cache<Object, Object>) cacheManager
+                        .getCache(ArcaConstants.ARCA_CACHE_NAME).getNativeCache();
+        long hits = nativeCache.stats().hitCount();
+
+        Long id = new Long(1);
+        service.findOne(id);
+        service.findOne(id);
+
+        Assert.assertEquals("failure - expected cache hit recorded", hits + 1,
+                nativeCache.stats().hitCount());
+
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void testFindOneCachedDespiteOtherCommits() {
+
+        Cause cause = service.findOne(1L);
+        service.evictCache();
+
+        long generation = causeCache.generation(cause.getId());
+        causeCache.onCauseChange(CauseChangeEvent.deleted(2L));
+        causeCache.putLoaded(generation, cause);
+
+        Assert.assertNotNull("failure - expected load cached after another commit",
+                causeCache.get(cause.getId()));
+
+        causeCache.clear();
+        generation = causeCache.generation(cause.getId());
+        causeCache.onCauseChange(CauseChangeEvent.updated(cause));
+        causeCache.putLoaded(generation, cause);
+
+        Assert.assertNull("failure - expected load before a commit to the cause not cached",
+                causeCache.get(cause.getId()));
+
+    }
+
     @Test
     public void testFindOneNotFound() {
 
@@ -83,7 +385,7 @@ public class CauseServiceTest extends AbstractTest {
         Assert.assertEquals("failure - expected text attribute match", "test",
                 createdEntity.getName());
 
-        Collection<Cause> list = service.findAll();
+        Collection<CauseView> list = service.findAll();
 
         Assert.assertEquals("failure - expected size", 16, list.size());
 
@@ -110,6 +412,84 @@ public class CauseServiceTest extends AbstractTest {
 
     }
 
+    @Test
+    public void testCreateAll() {
+
+        Cause first = new Cause();
+        first.setName("first");
+        Cause withId = new Cause();
+        withId.setId(Long.MAX_VALUE);
+        withId.setName("with id");
+        Cause second = new Cause();
+        second.setName("second");
+
+        List<BatchResult> results = service.createAll(
+                Arrays.asList(first, withId, second));
+
+        Assert.assertEquals("failure - expected result per item", 3,
+                results.size());
+        Assert.assertEquals("failure - expected CREATED",
+                BatchResult.Status.CREATED, results.get(0).getStatus());
+        Assert.assertNotNull("failure - expected id attribute not null",
+                results.get(0).getId());
+        Assert.assertEquals("failure - expected REJECTED",
+                BatchResult.Status.REJECTED, results.get(1).getStatus());
+        Assert.assertEquals("failure - expected CREATED",
+                BatchResult.Status.CREATED, results.get(2).getStatus());
+
+        Collection<CauseView> list = service.findAll();
+
+        Assert.assertEquals("failure - expected size", 17, list.size());
+
+    }
+
+    @Test
+    public void testUpdateAll() {
+
+        Cause existing = new Cause();
+        existing.setId(1L);
+        existing.setName("updated");
+        existing.setFrequency(1L);
+        Cause missing = new Cause();
+        missing.setId(Long.MAX_VALUE);
+        missing.setName("missing");
+
+        List<BatchResult> results = service.updateAll(
+                Arrays.asList(existing, missing));
+
+        Assert.assertEquals("failure - expected UPDATED",
+                BatchResult.Status.UPDATED, results.get(0).getStatus());
+        Assert.assertEquals("failure - expected NOT_FOUND",
+                BatchResult.Status.NOT_FOUND, results.get(1).getStatus());
+
+        service.evictCache();
+        Cause updatedEntity = service.findOne(1L);
+
+        Assert.assertEquals("failure - expected text attribute match",
+                "updated", updatedEntity.getName());
+
+    }
+
+    @Test
+    public void testDeleteAll() {
+
+        List<BatchResult> results = service.deleteAll(
+                Arrays.asList(1L, 2L, Long.MAX_VALUE));
+
+        Assert.assertEquals("failure - expected DELETED",
+                BatchResult.Status.DELETED, results.get(0).getStatus());
+        Assert.assertEquals("failure - expected DELETED",
+                BatchResult.Status.DELETED, results.get(1).getStatus());
+        Assert.assertEquals("failure - expected NOT_FOUND",
+                BatchResult.Status.NOT_FOUND, results.get(2).getStatus());
+
+        Collection<CauseView> list = service.findAll();
+
+        Assert.assertEquals("failure - expected size", 13, list.size());
+        Assert.assertNull("failure - expected null", service.findOne(1L));
+
+    }
+
     @Test
     public void testUpdate() {
 
@@ -167,7 +547,7 @@ public class CauseServiceTest extends AbstractTest {
 
         service.delete(id);
 
-        Collection<Cause> list = service.findAll();
+        Collection<CauseView> list = service.findAll();
 
         Assert.assertEquals("failure - expected size", 14, list.size());
 
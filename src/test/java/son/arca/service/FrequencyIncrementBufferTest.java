@@ -0,0 +1,85 @@
+package son.arca.service;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import son.arca.api.ArcaService;
+import son.arca.model.Cause;
+import son.arca.ws.AbstractTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit test methods for the FrequencyIncrementBuffer. Not transactional:
+ * the buffer writes in transactions of its own.
+ *
+ * @author Harrison Mfula
+ */
+public class FrequencyIncrementBufferTest extends AbstractTest {
+
+    private static final Long ID = 5L;
+
+    private static final int THREADS = 8;
+
+    private static final int INCREMENTS = 1000;
+
+    @Autowired
+    private FrequencyIncrementBuffer buffer;
+
+    @Autowired
+    private ArcaService service;
+
+    @Test
+    public void testConcurrentIncrementsAreNotLost() throws Exception {
+
+        buffer.flush();
+        Cause cause = service.findOne(ID);
+        final Long frequency = cause.getFrequency();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS + 1);
+        try {
+            List<Future<?>> futures = new ArrayList<Future<?>>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        for (int i = 0; i < INCREMENTS; i++) {
+                            service.increment(ID, 1);
+                        }
+                        return null;
+                    }
+                }));
+            }
+            // flushes race the increments
+            futures.add(executor.submit(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    for (int i = 0; i < 20; i++) {
+                        buffer.flush();
+                    }
+                    return null;
+                }
+            }));
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+            buffer.flush();
+
+            Assert.assertEquals("failure - expected every increment written",
+                    Long.valueOf(frequency + THREADS * INCREMENTS),
+                    service.findOne(ID).getFrequency());
+        } finally {
+            executor.shutdownNow();
+            cause = service.findOne(ID);
+            cause.setFrequency(frequency);
+            service.update(cause);
+        }
+
+    }
+}
@@ -0,0 +1,66 @@
+package son.arca.service;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Transactional;
+import son.arca.api.ArcaService;
+import son.arca.api.IngestionService;
+import son.arca.model.IngestionReport;
+import son.arca.ws.AbstractTest;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Unit test methods for the IngestionService and IngestionServiceBean.
+ *
+ * @author Harrison Mfula
+ */
+@Transactional
+public class IngestionServiceBeanTest extends AbstractTest {
+
+    @Autowired
+    private IngestionService ingestionService;
+
+    @Autowired
+    private ArcaService arcaService;
+
+    @Test
+    public void testIngest() throws Exception {
+
+        Long id = new Long(1);
+        long frequency = arcaService.findOne(id).getFrequency();
+
+        Path file = Files.createTempFile("events", ".ndjson");
+        try {
+            StringBuilder events = new StringBuilder();
+            for (int i = 0; i < 3; i++) {
+                events.append("{\"cell\":\"A").append(i)
+                        .append("\",\"cause\":\"Drop Call Rate\"}\n");
+            }
+            events.append("{\"cell\":\"B1\",\"cause\":\"Unknown Cause\"}\n");
+            events.append("{\"cell\":\"B2\"}\n");
+            Files.write(file, events.toString().getBytes(StandardCharsets.UTF_8));
+
+            IngestionReport report = ingestionService.ingest(file,
+                    IngestionService.Format.NDJSON);
+
+            Assert.assertEquals("failure - expected events", 4, report.getEvents());
+            Assert.assertEquals("failure - expected malformed lines", 1,
+                    report.getMalformed());
+            Assert.assertEquals("failure - expected causes updated", 1,
+                    report.getCausesUpdated());
+            Assert.assertEquals("failure - expected unmatched name",
+                    Long.valueOf(1), report.getUnmatched().get("Unknown Cause"));
+            Assert.assertTrue("failure - expected throughput",
+                    report.getEventsPerSecond() > 0);
+            Assert.assertEquals("failure - expected frequency incremented",
+                    Long.valueOf(frequency + 3), arcaService.findOne(id).getFrequency());
+        } finally {
+            Files.delete(file);
+        }
+
+    }
+}
@@ -0,0 +1,158 @@
+package son.arca.service;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import son.arca.api.EmailService;
+import son.arca.model.Cause;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the batching and merging done by the
+ * NotificationServiceBean.
+ *
+ * @author Harrison Mfula
+ */
+public class NotificationServiceBeanTest {
+
+    @Mock
+    private EmailService emailService;
+
+    @Captor
+    private ArgumentCaptor<Collection<Cause>> causes;
+
+    private NotificationServiceBean notificationService;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        when(emailService.sendDigest(any(String.class), anyCollectionOf(Cause.class)))
+                .thenReturn(Boolean.TRUE);
+
+        notificationService = new NotificationServiceBean();
+        ReflectionTestUtils.setField(notificationService, "emailService", emailService);
+        ReflectionTestUtils.setField(notificationService, "emailExecutor", new SyncTaskExecutor());
+        ReflectionTestUtils.setField(notificationService, "queueCapacity", 100);
+        ReflectionTestUtils.setField(notificationService, "windowMillis", 200L);
+        ReflectionTestUtils.setField(notificationService, "maxBatchSize", 100);
+        ReflectionTestUtils.setField(notificationService, "defaultRecipient", "noc@localhost");
+        ReflectionTestUtils.setField(notificationService, "allowedRecipients",
+                new String[] {"a@example.com"});
+        notificationService.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        notificationService.stop();
+    }
+
+    @Test
+    public void testDigestPerRecipientWithDuplicatesMerged() throws Exception {
+
+        notificationService.enqueue("a@example.com", cause(1L, 10L));
+        notificationService.enqueue("a@example.com", cause(2L, 20L));
+        notificationService.enqueue("a@example.com", cause(1L, 11L));
+        notificationService.enqueue(null, cause(3L, 30L));
+        notificationService.enqueue(null, cause(3L, 31L));
+
+        verify(emailService, timeout(5000).times(1))
+                .sendDigest(eq("a@example.com"), causes.capture());
+        verify(emailService, timeout(5000).times(1))
+                .sendDigest(eq("noc@localhost"), anyCollectionOf(Cause.class));
+
+        List<Cause> digest = new ArrayList<Cause>(causes.getValue());
+
+        Assert.assertEquals("failure - expected duplicates merged", 2, digest.size());
+        Assert.assertEquals("failure - expected latest state of the cause",
+                Long.valueOf(11L), digest.get(0).getFrequency());
+
+    }
+
+    @Test
+    public void testQueueFull() throws Exception {
+
+        // Block the dispatcher inside the first digest so the queue fills up
+        final CountDownLatch release = new CountDownLatch(1);
+        when(emailService.sendDigest(any(String.class), anyCollectionOf(Cause.class)))
+                .thenAnswer(new Answer<Boolean>() {
+                    @Override
+                    public Boolean answer(InvocationOnMock invocation) throws Throwable {
+                        release.await();
+                        return Boolean.TRUE;
+                    }
+                });
+        notificationService.stop();
+        ReflectionTestUtils.setField(notificationService, "queueCapacity", 1);
+        ReflectionTestUtils.setField(notificationService, "windowMillis", 0L);
+        notificationService.start();
+
+        try {
+            boolean accepted = true;
+            for (long id = 1; id <= 10 && accepted; id++) {
+                accepted = notificationService.enqueue(null, cause(id, 1L));
+            }
+
+            Assert.assertFalse("failure - expected full queue to reject", accepted);
+        } finally {
+            release.countDown();
+        }
+
+    }
+
+    @Test
+    public void testRecipientNotAllowed() throws Exception {
+
+        for (String recipient : new String[] {"b@example.com", "not an address"}) {
+            try {
+                notificationService.enqueue(recipient, cause(1L, 1L));
+                Assert.fail("failure - expected IllegalArgumentException for " + recipient);
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+
+        Assert.assertTrue("failure - expected allowed recipient accepted",
+                notificationService.enqueue("A@Example.com", cause(1L, 1L)));
+
+    }
+
+    @Test
+    public void testEnqueueAfterStopRejected() throws Exception {
+
+        notificationService.stop();
+
+        Assert.assertFalse("failure - expected enqueue after stop to reject",
+                notificationService.enqueue(null, cause(1L, 1L)));
+
+        verify(emailService, never()).sendDigest(any(String.class),
+                anyCollectionOf(Cause.class));
+
+    }
+
+    private Cause cause(Long id, Long frequency) {
+        Cause cause = new Cause();
+        cause.setId(id);
+        cause.setName("cause " + id);
+        cause.setFrequency(frequency);
+        return cause;
+    }
+
+}
@@ -0,0 +1,127 @@
+package son.arca.service;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import son.arca.event.CauseChangeEvent;
+import son.arca.model.Cause;
+import son.arca.model.ParetoItem;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Unit tests for the incremental ranking kept by the ParetoAggregator.
+ *
+ * @author Harrison Mfula
+ */
+public class ParetoAggregatorTest {
+
+    private ParetoAggregator aggregator;
+
+    @Before
+    public void setUp() {
+        aggregator = new ParetoAggregator();
+        aggregator.reset(Arrays.asList(
+                cause(1L, "a", 50L),
+                cause(2L, "b", 30L),
+                cause(3L, "c", 20L)));
+    }
+
+    @Test
+    public void testTop() {
+
+        List<ParetoItem> items = aggregator.ranked(2);
+
+        Assert.assertEquals("failure - expected size", 2, items.size());
+        Assert.assertEquals("failure - expected highest first", "a",
+                items.get(0).getName());
+        Assert.assertEquals("failure - expected share", 50.0,
+                items.get(0).getShare(), 0.001);
+        Assert.assertEquals("failure - expected cumulative share", 80.0,
+                items.get(1).getTotal(), 0.001);
+
+    }
+
+    @Test
+    public void testUpdateReorders() {
+
+        aggregator.onCauseChange(CauseChangeEvent.updated(cause(3L, "c", 100L)));
+
+        List<ParetoItem> items = aggregator.ranked(0);
+
+        Assert.assertEquals("failure - expected size", 3, items.size());
+        Assert.assertEquals("failure - expected updated cause first", "c",
+                items.get(0).getName());
+        Assert.assertEquals("failure - expected share", 55.555,
+                items.get(0).getShare(), 0.001);
+        Assert.assertEquals("failure - expected cumulative share", 100.0,
+                items.get(2).getTotal(), 0.001);
+
+    }
+
+    @Test
+    public void testCreateAndDelete() {
+
+        aggregator.onCauseChange(CauseChangeEvent.created(cause(4L, "d", 40L)));
+        aggregator.onCauseChange(CauseChangeEvent.deleted(1L));
+
+        List<ParetoItem> items = aggregator.ranked(0);
+
+        Assert.assertEquals("failure - expected size", 3, items.size());
+        Assert.assertEquals("failure - expected new cause first", "d",
+                items.get(0).getName());
+        Assert.assertEquals("failure - expected share", 44.444,
+                items.get(0).getShare(), 0.001);
+
+    }
+
+    @Test
+    public void testOutOfOrderUpdateIgnored() {
+
+        Cause newer = cause(3L, "c", 100L);
+        newer.setVersion(2L);
+        Cause older = cause(3L, "c", 10L);
+        older.setVersion(1L);
+
+        aggregator.onCauseChange(CauseChangeEvent.updated(newer));
+        aggregator.onCauseChange(CauseChangeEvent.updated(older));
+
+        List<ParetoItem> items = aggregator.ranked(1);
+
+        Assert.assertEquals("failure - expected the newer update first", "c",
+                items.get(0).getName());
+        Assert.assertEquals("failure - expected the newer frequency",
+                100L, items.get(0).getFrequency());
+        Assert.assertEquals("failure - expected the newer version",
+                Long.valueOf(2L), items.get(0).getVersion());
+
+    }
+
+    @Test
+    public void testUpdateAfterDeleteIgnored() {
+
+        Cause update = cause(3L, "c", 100L);
+        update.setVersion(1L);
+
+        aggregator.onCauseChange(CauseChangeEvent.deleted(3L));
+        aggregator.onCauseChange(CauseChangeEvent.updated(update));
+
+        List<ParetoItem> items = aggregator.ranked(0);
+
+        Assert.assertEquals("failure - expected the deleted cause not ranked", 2,
+                items.size());
+        Assert.assertEquals("failure - expected cumulative share", 100.0,
+                items.get(1).getTotal(), 0.001);
+
+    }
+
+    private Cause cause(Long id, String name, Long frequency) {
+        Cause cause = new Cause();
+        cause.setId(id);
+        cause.setName(name);
+        cause.setFrequency(frequency);
+        return cause;
+    }
+
+}
@@ -0,0 +1,144 @@
+package son.arca.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Unit tests for the AsyncResponse completion semantics, including the
+ * latency a waiting thread adds on top of the asynchronous work.
+ *
+ * @author Harrison Mfula
+ */
+public class AsyncResponseTest {
+
+    private static final int ROUNDS = 50;
+
+    @Test
+    public void testWakeUpLatency() throws Exception {
+
+        long[] latencies = new long[ROUNDS];
+        for (int round = 0; round < ROUNDS; round++) {
+            final AsyncResponse<Boolean> response = new AsyncResponse<Boolean>();
+            final AtomicLong completedAt = new AtomicLong();
+            Thread worker = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        Thread.sleep(2);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    completedAt.set(System.nanoTime());
+                    response.completed(Boolean.TRUE);
+                }
+            });
+            worker.start();
+
+            Assert.assertTrue("failure - expected value", response.get());
+            latencies[round] = System.nanoTime() - completedAt.get();
+            worker.join();
+        }
+
+        Arrays.sort(latencies);
+        long median = TimeUnit.NANOSECONDS.toMillis(latencies[ROUNDS / 2]);
+
+        Assert.assertTrue("failure - expected median wake-up latency below 10 ms but was "
+                + median + " ms", median < 10);
+
+    }
+
+    @Test
+    public void testGetWithTimeout() throws Exception {
+
+        AsyncResponse<Boolean> response = new AsyncResponse<Boolean>();
+
+        long start = System.nanoTime();
+        Exception exception = null;
+        try {
+            response.get(100, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            exception = e;
+        }
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        Assert.assertNotNull("failure - expected TimeoutException", exception);
+        Assert.assertTrue("failure - expected to wait for the timeout",
+                elapsed >= 100);
+        Assert.assertTrue("failure - expected to return soon after the timeout",
+                elapsed < 1000);
+
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+
+        AsyncResponse<Boolean> response = new AsyncResponse<Boolean>();
+
+        Assert.assertTrue("failure - expected cancel", response.cancel(true));
+
+        Exception exception = null;
+        try {
+            response.get();
+        } catch (CancellationException e) {
+            exception = e;
+        }
+
+        Assert.assertNotNull("failure - expected CancellationException", exception);
+        Assert.assertFalse("failure - expected completion after cancel to fail",
+                response.completed(Boolean.TRUE));
+
+    }
+
+    @Test
+    public void testCompletedExceptionally() throws Exception {
+
+        AsyncResponse<Boolean> response = new AsyncResponse<Boolean>();
+        IllegalStateException failure = new IllegalStateException("test");
+        response.completedExceptionally(failure);
+
+        Exception exception = null;
+        try {
+            response.get();
+        } catch (ExecutionException e) {
+            exception = e;
+        }
+
+        Assert.assertNotNull("failure - expected ExecutionException", exception);
+        Assert.assertSame("failure - expected cause", failure, exception.getCause());
+        Assert.assertTrue("failure - expected exceptional completion",
+                response.isCompletedExceptionally());
+
+    }
+
+    @Test
+    public void testCallback() throws Exception {
+
+        AsyncResponse<Boolean> response = new AsyncResponse<Boolean>();
+        final AtomicBoolean received = new AtomicBoolean();
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        response.thenAccept(new Consumer<Boolean>() {
+            @Override
+            public void accept(Boolean value) {
+                received.set(value);
+                latch.countDown();
+            }
+        });
+        response.completed(Boolean.TRUE);
+
+        Assert.assertTrue("failure - expected callback", latch.await(1, TimeUnit.SECONDS));
+        Assert.assertTrue("failure - expected callback value", received.get());
+
+    }
+
+}